@@ -0,0 +1,57 @@
+package com.bfb.rental.benchmark;
+
+import com.bfb.rental.service.OccupancyIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Recherche de disponibilité sur toute la flotte (OccupancyIndex.findAvailable),
+ * sur une semaine et sur un mois, avec et sans filtre de marque.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AvailabilityBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int contrats;
+
+    private ConfigurableApplicationContext ctx;
+    private OccupancyIndex occupancyIndex;
+    private final LocalDate debut = LocalDate.now().plusDays(1);
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkDataset.start();
+        BenchmarkDataset.seed(ctx, contrats);
+        occupancyIndex = ctx.getBean(OccupancyIndex.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public List<Long> semaine() {
+        return occupancyIndex.findAvailable(debut, debut.plusDays(6), null, null);
+    }
+
+    @Benchmark
+    public List<Long> moisParMarque() {
+        return occupancyIndex.findAvailable(debut, debut.plusDays(30), null, "Marque3");
+    }
+}
@@ -0,0 +1,108 @@
+package com.bfb.rental.benchmark;
+
+import com.bfb.rental.RentalApplication;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+/**
+ * Démarre l'application sur une base H2 en mémoire dédiée et la remplit par JDBC batch.
+ *
+ * Chaque véhicule a une chronologie de contrats sans chevauchement (un créneau de 3 jours par contrat) :
+ * le passé est TERMINE (10 % ANNULE), le créneau en cours est EN_COURS, le futur EN_ATTENTE.
+ * 1 % des contrats passés sont laissés EN_ATTENTE pour donner du travail à la tâche planifiée.
+ */
+final class BenchmarkDataset {
+
+    static final int VEHICULES = 1_000;
+    static final int CLIENTS = 1_000;
+    static final int SLOT_DAYS = 3;
+    static final int FUTURE_SLOTS = 5;
+
+    private static final int JDBC_BATCH = 10_000;
+
+    private BenchmarkDataset() {
+    }
+
+    static ConfigurableApplicationContext start() {
+        return start(WebApplicationType.NONE);
+    }
+
+    static ConfigurableApplicationContext start(WebApplicationType webApplicationType, String... properties) {
+        return new SpringApplicationBuilder(RentalApplication.class)
+                .web(webApplicationType)
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                        "rental.journal.dir=target/journal/bench-" + UUID.randomUUID(),
+                        "spring.jpa.show-sql=false",
+                        "logging.level.root=WARN")
+                .properties(properties)
+                .run();
+    }
+
+    static void seed(ConfigurableApplicationContext ctx, int contrats) {
+        JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+        Random random = new Random(42);
+        LocalDate today = LocalDate.now();
+
+        List<Object[]> rows = new ArrayList<>();
+        for (int i = 1; i <= CLIENTS; i++) {
+            rows.add(new Object[]{"Nom" + i, "Prenom" + i, Date.valueOf(LocalDate.of(1980, 1, 1).plusDays(i)), "BENCH-" + i});
+        }
+        jdbc.batchUpdate("INSERT INTO client (nom, prenom, date_naissance, num_permis) VALUES (?, ?, ?, ?)", rows);
+
+        rows.clear();
+        for (int i = 1; i <= VEHICULES; i++) {
+            rows.add(new Object[]{"Marque" + (i % 10), "Modele" + (i % 20), "Essence", "BENCH-" + i, 30.0 + random.nextInt(120)});
+        }
+        jdbc.batchUpdate("INSERT INTO vehicule (marque, modele, motorisation, immatriculation, etat, prix_journee) " +
+                "VALUES (?, ?, ?, ?, 'DISPONIBLE', ?)", rows);
+
+        // Chronologie par véhicule : le dernier créneau passé se termine aujourd'hui + FUTURE_SLOTS créneaux
+        int slotsPerVehicule = (contrats + VEHICULES - 1) / VEHICULES;
+        LocalDate firstSlot = today.minusDays((long) (slotsPerVehicule - FUTURE_SLOTS) * SLOT_DAYS);
+        Long firstVehiculeId = jdbc.queryForObject("SELECT MIN(id) FROM vehicule", Long.class);
+        Long firstClientId = jdbc.queryForObject("SELECT MIN(id) FROM client", Long.class);
+
+        rows.clear();
+        for (int k = 0; k < contrats; k++) {
+            int vehicule = k % VEHICULES;
+            int slot = k / VEHICULES;
+            LocalDate debut = firstSlot.plusDays((long) slot * SLOT_DAYS);
+            LocalDate fin = debut.plusDays(SLOT_DAYS - 1);
+            String etat;
+            if (debut.isAfter(today)) {
+                etat = "EN_ATTENTE";
+            } else if (!fin.isBefore(today)) {
+                etat = "EN_COURS";
+            } else {
+                int r = random.nextInt(100);
+                etat = r == 0 ? "EN_ATTENTE" : r < 11 ? "ANNULE" : "TERMINE";
+            }
+            rows.add(new Object[]{Date.valueOf(debut), Date.valueOf(fin), etat,
+                    firstClientId + random.nextInt(CLIENTS), firstVehiculeId + vehicule, 100.0});
+            if (rows.size() == JDBC_BATCH) {
+                insertContrats(jdbc, rows);
+                rows.clear();
+            }
+        }
+        insertContrats(jdbc, rows);
+
+        // Lignes écrites sans passer par les services : les structures en mémoire se reconstruisent depuis la base
+        ctx.publishEvent(new DonneesRemplaceesEvent(BenchmarkDataset.class));
+    }
+
+    private static void insertContrats(JdbcTemplate jdbc, List<Object[]> rows) {
+        jdbc.batchUpdate("INSERT INTO contrat (id, date_debut, date_fin, etat, client_id, vehicule_id, prix_total) " +
+                "VALUES (NEXT VALUE FOR contrat_seq, ?, ?, ?, ?, ?, ?)", rows);
+    }
+}
@@ -0,0 +1,128 @@
+package com.bfb.rental.benchmark;
+
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.repository.ContratRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import com.bfb.rental.service.ContratService;
+import com.bfb.rental.service.ReservationIndex;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chemin de réservation : createContrat avec et sans conflit, sur un thread et en parallèle,
+ * requête findConflictingContrats (comparée à l'index en mémoire) et calcul du prix.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class BookingBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int contrats;
+
+    private ConfigurableApplicationContext ctx;
+    private ContratService contratService;
+    private ContratRepository contratRepository;
+    private ReservationIndex reservationIndex;
+
+    private Long clientId;
+    private Long vehiculeId;
+    private Vehicule vehicule;
+    private LocalDate reservedDebut;
+    private LocalDate reservedFin;
+    private LocalDate freeDebut;
+    private final AtomicLong bookings = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkDataset.start();
+        BenchmarkDataset.seed(ctx, contrats);
+        contratService = ctx.getBean(ContratService.class);
+        contratRepository = ctx.getBean(ContratRepository.class);
+        reservationIndex = ctx.getBean(ReservationIndex.class);
+
+        JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+        clientId = jdbc.queryForObject("SELECT MIN(id) FROM client", Long.class);
+        vehiculeId = jdbc.queryForObject("SELECT MIN(id) FROM vehicule", Long.class);
+        vehicule = ctx.getBean(VehiculeRepository.class).findById(vehiculeId).orElseThrow();
+
+        // Une réservation future existante du véhicule : cible des tentatives en conflit
+        List<LocalDate> reserved = jdbc.query(
+                "SELECT date_debut, date_fin FROM contrat WHERE vehicule_id = ? AND etat = 'EN_ATTENTE' " +
+                "AND date_debut > CURRENT_DATE ORDER BY date_debut LIMIT 1",
+                (rs, i) -> List.of(rs.getDate(1).toLocalDate(), rs.getDate(2).toLocalDate()),
+                vehiculeId).get(0);
+        reservedDebut = reserved.get(0);
+        reservedFin = reserved.get(1);
+
+        // Au-delà de toute réservation générée
+        freeDebut = LocalDate.now().plusYears(10);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    // Un nouveau créneau libre à chaque appel, réparti sur toute la flotte
+    private Contrat bookFreeSlot() {
+        long n = bookings.getAndIncrement();
+        long vehicule = vehiculeId + (n % BenchmarkDataset.VEHICULES);
+        LocalDate debut = freeDebut.plusDays((n / BenchmarkDataset.VEHICULES) * 2);
+        return contratService.createContrat(clientId, vehicule, debut, debut);
+    }
+
+    @Benchmark
+    public Contrat createContratSansConflit() {
+        return bookFreeSlot();
+    }
+
+    // Les appels simultanés portent sur des véhicules différents : un temps moyen proche
+    // de createContratSansConflit signifie que le débit croît avec le nombre de threads
+    @Benchmark
+    @Threads(8)
+    public Contrat createContratSansConflitConcurrent() {
+        return bookFreeSlot();
+    }
+
+    @Benchmark
+    public Object createContratAvecConflit() {
+        try {
+            return contratService.createContrat(clientId, vehiculeId, reservedDebut, reservedFin);
+        } catch (IllegalStateException expected) {
+            return expected;
+        }
+    }
+
+    @Benchmark
+    public List<Contrat> findConflictingContrats() {
+        return contratRepository.findConflictingContrats(vehiculeId, reservedDebut, reservedFin);
+    }
+
+    @Benchmark
+    public boolean reservationIndexConflict() {
+        return reservationIndex.hasConflict(vehiculeId, reservedDebut, reservedFin);
+    }
+
+    @Benchmark
+    public Double calculatePrice() {
+        return contratService.calculatePrice(vehicule, reservedDebut, reservedFin);
+    }
+}
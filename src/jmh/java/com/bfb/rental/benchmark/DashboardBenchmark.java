@@ -0,0 +1,61 @@
+package com.bfb.rental.benchmark;
+
+import com.bfb.rental.controller.WebController;
+import com.bfb.rental.service.DashboardStats;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.ui.ExtendedModelMap;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrégation du tableau de bord : WebController.index (compteurs en mémoire)
+ * et la réconciliation depuis la base qui lui sert de repli.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DashboardBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int contrats;
+
+    private ConfigurableApplicationContext ctx;
+    private WebController webController;
+    private DashboardStats dashboardStats;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkDataset.start();
+        BenchmarkDataset.seed(ctx, contrats);
+        webController = ctx.getBean(WebController.class);
+        dashboardStats = ctx.getBean(DashboardStats.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public ExtendedModelMap index() {
+        ExtendedModelMap model = new ExtendedModelMap();
+        webController.index(model);
+        return model;
+    }
+
+    @Benchmark
+    public DashboardStats reconcile() {
+        dashboardStats.reconcile();
+        return dashboardStats;
+    }
+}
@@ -0,0 +1,71 @@
+package com.bfb.rental.benchmark;
+
+import com.bfb.rental.enums.TypeTransition;
+import com.bfb.rental.service.TransitionJournal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Coût d'une transition journalisée (TransitionJournal), sans base : un écrivain puis 8 en parallèle.
+ * waitForFlush=false : copie dans le segment mappé ; waitForFlush=true : l'appelant attend l'écriture
+ * groupée sur disque qui couvre sa transition.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class JournalBenchmark {
+
+    @Param({"false", "true"})
+    public boolean waitForFlush;
+
+    private final AtomicLong ids = new AtomicLong();
+    private Path dir;
+    private TransitionJournal journal;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("journal-bench");
+        journal = new TransitionJournal(true, dir.toString(), 1_000_000, 10, waitForFlush);
+        journal.open();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        try (Stream<Path> files = Files.walk(dir)) {
+            for (Path p : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(p);
+            }
+        }
+    }
+
+    @Benchmark
+    public void append() {
+        long id = ids.incrementAndGet();
+        journal.contrat(TypeTransition.CONTRAT_DEMARRE, id, id & 1023);
+    }
+
+    @Benchmark
+    @Threads(8)
+    public void appendConcurrent() {
+        long id = ids.incrementAndGet();
+        journal.contrat(TypeTransition.CONTRAT_DEMARRE, id, id & 1023);
+    }
+}
@@ -0,0 +1,76 @@
+package com.bfb.rental.benchmark;
+
+import com.bfb.rental.dto.QuoteRequest;
+import com.bfb.rental.dto.QuoteResult;
+import com.bfb.rental.service.PricingEngine;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Devis (PricingEngine) : un devis isolé, et un lot de 5 000 paires (véhicule, période)
+ * comme en envoie POST /api/quotes. Avec -prof gc, le devis isolé ne doit rien allouer.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PricingBenchmark {
+
+    private static final int QUOTES = 5_000;
+
+    private ConfigurableApplicationContext ctx;
+    private PricingEngine pricingEngine;
+    private long vehiculeId;
+    private long debut;
+    private List<QuoteRequest> requests;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkDataset.start();
+        BenchmarkDataset.seed(ctx, 10_000);
+        pricingEngine = ctx.getBean(PricingEngine.class);
+
+        long firstId = ctx.getBean(JdbcTemplate.class).queryForObject("SELECT MIN(id) FROM vehicule", Long.class);
+        vehiculeId = firstId;
+        debut = LocalDate.now().withMonth(6).withDayOfMonth(25).toEpochDay();
+
+        Random random = new Random(42);
+        requests = new ArrayList<>(QUOTES);
+        for (int i = 0; i < QUOTES; i++) {
+            QuoteRequest r = new QuoteRequest();
+            r.setVehiculeId(firstId + random.nextInt(BenchmarkDataset.VEHICULES));
+            r.setDateDebut(LocalDate.now().plusDays(random.nextInt(365)));
+            r.setDateFin(r.getDateDebut().plusDays(1 + random.nextInt(30)));
+            requests.add(r);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public double quote() {
+        return pricingEngine.quote(vehiculeId, debut, debut + 14);
+    }
+
+    @Benchmark
+    public List<QuoteResult> quoteBatch() {
+        return pricingEngine.quote(requests);
+    }
+}
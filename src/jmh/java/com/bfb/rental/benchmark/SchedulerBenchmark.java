@@ -0,0 +1,68 @@
+package com.bfb.rental.benchmark;
+
+import com.bfb.rental.service.ContratService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Une exécution de la tâche planifiée updateContratStatusAutomatic.
+ * Avant chaque itération, les contrats échus sont remis EN_ATTENTE et leurs véhicules DISPONIBLE,
+ * pour que chaque mesure traite le même volume.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class SchedulerBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int contrats;
+
+    private ConfigurableApplicationContext ctx;
+    private ContratService contratService;
+    private JdbcTemplate jdbc;
+    private List<Long> dueIds;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ctx = BenchmarkDataset.start();
+        BenchmarkDataset.seed(ctx, contrats);
+        contratService = ctx.getBean(ContratService.class);
+        jdbc = ctx.getBean(JdbcTemplate.class);
+        dueIds = jdbc.queryForList(
+                "SELECT id FROM contrat WHERE etat = 'EN_ATTENTE' AND date_debut <= CURRENT_DATE", Long.class);
+    }
+
+    @Setup(Level.Iteration)
+    public void resetDueContrats() {
+        jdbc.batchUpdate("UPDATE contrat SET etat = 'EN_ATTENTE' WHERE id = ?",
+                dueIds.stream().map(id -> new Object[]{id}).toList());
+        jdbc.update("UPDATE vehicule SET etat = 'DISPONIBLE'");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @Benchmark
+    public int updateContratStatusAutomatic() {
+        return contratService.updateContratStatusAutomatic();
+    }
+}
@@ -0,0 +1,108 @@
+package com.bfb.rental.benchmark;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Débit de réservation par HTTP (POST /api/contrats) sous forte concurrence,
+ * serveur en threads classiques (pool Tomcat) ou en threads virtuels (profil "virtual").
+ * Le pool de connexions a la même taille dans les deux modes : seule l'exécution des requêtes change.
+ * Les réservations acceptées et refusées (verrou du véhicule non obtenu à temps, 503 du limiteur)
+ * sont comptées séparément.
+ *
+ * Le mode "virtual" demande un JDK 21+ pour exécuter les benchmarks :
+ * mvn -P benchmark test-compile exec:exec -Djmh.args="-f 1 ThreadModeBenchmark"
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(256)
+public class ThreadModeBenchmark {
+
+    @Param({"platform", "virtual"})
+    public String threadMode;
+
+    private ConfigurableApplicationContext ctx;
+    private HttpClient httpClient;
+    private URI bookingUri;
+    private long clientId;
+    private long firstVehiculeId;
+    private final LocalDate freeDebut = LocalDate.now().plusYears(10);
+    private final AtomicLong bookings = new AtomicLong();
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        boolean virtual = "virtual".equals(threadMode);
+        if (virtual && Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Le mode virtual demande Java 21+");
+        }
+        ctx = BenchmarkDataset.start(WebApplicationType.SERVLET,
+                "server.port=0",
+                "spring.profiles.active=" + (virtual ? "virtual" : "default"),
+                "spring.datasource.hikari.maximum-pool-size=20",
+                // Limiteur du mode virtuel au-delà du nombre de clients : aucun 503 pendant la mesure
+                "rental.virtual.max-concurrent-requests=1000");
+        BenchmarkDataset.seed(ctx, 10_000);
+
+        JdbcTemplate jdbc = ctx.getBean(JdbcTemplate.class);
+        clientId = jdbc.queryForObject("SELECT MIN(id) FROM client", Long.class);
+        firstVehiculeId = jdbc.queryForObject("SELECT MIN(id) FROM vehicule", Long.class);
+        bookingUri = URI.create("http://localhost:" + ctx.getEnvironment().getProperty("local.server.port") + "/api/contrats");
+        httpClient = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        ctx.close();
+    }
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Outcomes {
+        public long acceptees;
+        public long refusees;
+    }
+
+    @Benchmark
+    public int reserver(Outcomes outcomes) throws IOException, InterruptedException {
+        // Un créneau libre différent à chaque appel, réparti sur toute la flotte : aucun conflit
+        long n = bookings.getAndIncrement();
+        long vehiculeId = firstVehiculeId + (n % BenchmarkDataset.VEHICULES);
+        LocalDate debut = freeDebut.plusDays((n / BenchmarkDataset.VEHICULES) * 2);
+        String body = "{\"clientId\":" + clientId + ",\"vehiculeId\":" + vehiculeId +
+                ",\"dateDebut\":\"" + debut + "\",\"dateFin\":\"" + debut + "\"}";
+        HttpRequest request = HttpRequest.newBuilder(bookingUri)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        int status = httpClient.send(request, HttpResponse.BodyHandlers.discarding()).statusCode();
+        if (status == 200) {
+            outcomes.acceptees++;
+        } else {
+            outcomes.refusees++;
+        }
+        return status;
+    }
+}
@@ -0,0 +1,85 @@
+package com.bfb.rental.benchmark;
+
+import com.bfb.rental.dto.ContratCompact;
+import com.bfb.rental.dto.ContratView;
+import com.bfb.rental.enums.EtatContrat;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import tools.jackson.databind.ObjectMapper;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sérialisation d'une page de 1 000 contrats (la page maximale de GET /api/contrats), sans base ni HTTP :
+ * JSON, CBOR et Smile, en vue complète (client et véhicule imbriqués, ContratView) ou à plat (ContratCompact).
+ * La taille de la page encodée est affichée au démarrage de chaque combinaison.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class WireFormatBenchmark {
+
+    private static final int PAGE = 1_000;
+
+    @Param({"json", "cbor", "smile"})
+    public String format;
+
+    @Param({"complete", "compact"})
+    public String vue;
+
+    private ObjectMapper mapper;
+    private List<?> page;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        mapper = switch (format) {
+            case "json" -> JsonMapper.builder().build();
+            case "cbor" -> CBORMapper.builder().build();
+            case "smile" -> SmileMapper.builder().build();
+            default -> throw new IllegalArgumentException(format);
+        };
+
+        String[] noms = {"Martin", "Bernard", "Dubois", "Thomas", "Robert", "Richard", "Petit", "Durand"};
+        String[] prenoms = {"Jean", "Marie", "Pierre", "Sophie", "Luc", "Camille"};
+        String[] marques = {"Peugeot", "Renault", "Citroen", "Toyota", "Tesla", "BMW"};
+        String[] modeles = {"208", "Clio", "C3", "Yaris", "Model 3", "Serie 1"};
+        EtatContrat[] etats = EtatContrat.values();
+        Random random = new Random(42);
+        List<ContratView> views = new ArrayList<>(PAGE);
+        for (int i = 0; i < PAGE; i++) {
+            LocalDate debut = LocalDate.of(2025, 1, 1).plusDays(random.nextInt(365));
+            long clientId = 1 + random.nextInt(100_000);
+            long vehiculeId = 1 + random.nextInt(10_000);
+            views.add(new ContratView(100_000L + i, debut, debut.plusDays(1 + random.nextInt(14)),
+                    etats[random.nextInt(etats.length)], 30.0 + random.nextInt(2_000),
+                    clientId, noms[random.nextInt(noms.length)], prenoms[random.nextInt(prenoms.length)],
+                    vehiculeId, marques[random.nextInt(marques.length)], modeles[random.nextInt(modeles.length)],
+                    "AB-" + (100 + random.nextInt(900)) + "-CD"));
+        }
+        page = "compact".equals(vue)
+                ? views.stream().map(v -> new ContratCompact(v.id(), v.dateDebut(), v.dateFin(), v.etat(),
+                        v.prixTotal(), v.client().id(), v.vehicule().id())).toList()
+                : views;
+
+        System.out.printf("%n%s / %s : %d octets pour %d contrats%n", format, vue, serialize().length, PAGE);
+    }
+
+    @Benchmark
+    public byte[] serialize() {
+        return mapper.writeValueAsBytes(page);
+    }
+}
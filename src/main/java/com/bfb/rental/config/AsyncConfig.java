@@ -0,0 +1,51 @@
+package com.bfb.rental.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+@Configuration
+@EnableAsync
+public class AsyncConfig {
+
+    /**
+     * Exécuteur borné pour le traitement des pannes (annulation des contrats après commit).
+     * File d'attente limitée : si elle est pleine, le thread appelant exécute lui-même la tâche,
+     * ce qui ralentit les déclarations de panne au lieu de perdre des annulations.
+     */
+    @Bean
+    @ConditionalOnThreading(Threading.PLATFORM)
+    public ThreadPoolTaskExecutor panneExecutor(@Value("${rental.panne.executor-threads:2}") int threads,
+                                                @Value("${rental.panne.executor-queue:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("panne-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        return executor;
+    }
+
+    /**
+     * Même rôle en mode threads virtuels (spring.threads.virtual.enabled=true, Java 21+) :
+     * un thread virtuel par traitement, mais au plus executor-threads en parallèle,
+     * pour ne pas occuper plus de connexions qu'en mode classique. Les suivants attendent leur tour.
+     */
+    @Bean(name = "panneExecutor")
+    @ConditionalOnThreading(Threading.VIRTUAL)
+    public SimpleAsyncTaskExecutor virtualPanneExecutor(@Value("${rental.panne.executor-threads:2}") int threads) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor("panne-");
+        executor.setVirtualThreads(true);
+        executor.setConcurrencyLimit(threads);
+        executor.setTaskTerminationTimeout(30_000);
+        return executor;
+    }
+}
@@ -0,0 +1,54 @@
+package com.bfb.rental.config;
+
+import com.github.benmanes.caffeine.jcache.configuration.CaffeineConfiguration;
+import com.github.benmanes.caffeine.jcache.spi.CaffeineCachingProvider;
+import org.hibernate.cache.jcache.ConfigSettings;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.hibernate.autoconfigure.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URI;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@Configuration
+public class CacheConfig {
+
+    // Régions du cache de second niveau (voir @Cache sur Vehicule et Client)
+    public static final String VEHICULE_REGION = "vehicule";
+    public static final String CLIENT_REGION = "client";
+
+    /**
+     * Cache de second niveau Hibernate, stocké dans Caffeine : taille bornée (éviction LRU approchée)
+     * et durée de vie limitée, pour qu'une modification faite hors de l'application finisse par être vue.
+     * Les écritures passant par Hibernate mettent le cache à jour au commit (stratégie READ_WRITE).
+     * Un gestionnaire propre à chaque contexte Spring (URI unique) : le gestionnaire par défaut du fournisseur
+     * est partagé par toute la JVM, et un second contexte (tests, benchmarks) y retrouverait les régions du premier.
+     */
+    @Bean(destroyMethod = "close")
+    public CacheManager entityCacheManager(@Value("${rental.cache.vehicule.max-size:50000}") long vehiculeMaxSize,
+                                           @Value("${rental.cache.client.max-size:100000}") long clientMaxSize,
+                                           @Value("${rental.cache.ttl-seconds:600}") long ttlSeconds) {
+        CacheManager cacheManager = Caching.getCachingProvider(CaffeineCachingProvider.class.getName())
+                .getCacheManager(URI.create("rental-cache-" + UUID.randomUUID()), CacheConfig.class.getClassLoader());
+        cacheManager.createCache(VEHICULE_REGION, region(vehiculeMaxSize, ttlSeconds));
+        cacheManager.createCache(CLIENT_REGION, region(clientMaxSize, ttlSeconds));
+        return cacheManager;
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer entityCacheCustomizer(CacheManager entityCacheManager) {
+        return properties -> properties.put(ConfigSettings.CACHE_MANAGER, entityCacheManager);
+    }
+
+    private static CaffeineConfiguration<Object, Object> region(long maxSize, long ttlSeconds) {
+        CaffeineConfiguration<Object, Object> configuration = new CaffeineConfiguration<>();
+        configuration.setMaximumSize(OptionalLong.of(maxSize));
+        configuration.setExpireAfterWrite(OptionalLong.of(TimeUnit.SECONDS.toNanos(ttlSeconds)));
+        return configuration;
+    }
+}
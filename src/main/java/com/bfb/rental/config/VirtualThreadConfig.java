@@ -0,0 +1,64 @@
+package com.bfb.rental.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnThreading;
+import org.springframework.boot.thread.Threading;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mode threads virtuels (profil "virtual", Java 21+).
+ *
+ * Spring Boot exécute alors les requêtes Tomcat, les tâches @Scheduled et les exécuteurs @Async
+ * sur des threads virtuels. Il n'y a plus de plafond de 200 threads côté Tomcat : ce plafond
+ * servait aussi de limite de charge. Sans lui, des milliers de requêtes attendraient une connexion
+ * du pool. Ce filtre rétablit la limite : au plus max-concurrent-requests requêtes en cours,
+ * les suivantes attendent au plus queue-timeout-ms puis reçoivent un 503.
+ * Voir application-virtual.properties pour le dimensionnement du pool de connexions.
+ */
+@Configuration
+@ConditionalOnThreading(Threading.VIRTUAL)
+public class VirtualThreadConfig {
+
+    @Bean
+    public FilterRegistrationBean<OncePerRequestFilter> concurrencyLimitFilter(
+            @Value("${rental.virtual.max-concurrent-requests:200}") int maxConcurrentRequests,
+            @Value("${rental.virtual.queue-timeout-ms:1000}") long queueTimeoutMillis) {
+        Semaphore permits = new Semaphore(maxConcurrentRequests, true);
+        OncePerRequestFilter filter = new OncePerRequestFilter() {
+            @Override
+            protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+                    throws ServletException, IOException {
+                boolean acquired;
+                try {
+                    acquired = permits.tryAcquire(queueTimeoutMillis, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    acquired = false;
+                }
+                if (!acquired) {
+                    response.sendError(HttpServletResponse.SC_SERVICE_UNAVAILABLE, "Service surchargé, veuillez réessayer");
+                    return;
+                }
+                try {
+                    chain.doFilter(request, response);
+                } finally {
+                    permits.release();
+                }
+            }
+        };
+        FilterRegistrationBean<OncePerRequestFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/*", "/ui/*");
+        return registration;
+    }
+}
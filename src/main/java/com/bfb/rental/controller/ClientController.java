@@ -1,11 +1,24 @@
 package com.bfb.rental.controller;
 
+import com.bfb.rental.dto.ImportReport;
+import com.bfb.rental.dto.Suggestion;
 import com.bfb.rental.entity.Client;
 import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.service.ClientService;
+import com.bfb.rental.service.CsvImportService;
+import com.bfb.rental.service.ResourceVersions;
+import com.bfb.rental.service.SearchIndex;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
 
 @RestController
@@ -14,14 +27,68 @@ import java.util.List;
 public class ClientController {
 
     private final ClientRepository clientRepository;
+    private final ClientService clientService;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final CsvImportService csvImportService;
+    private final SearchIndex searchIndex;
+    private final ResourceVersions resourceVersions;
 
     @PostMapping
     public Client createClient(@RequestBody Client client) {
-        return clientRepository.save(client);
+        return clientService.createClient(client);
     }
 
+    /**
+     * Saisie semi-automatique : GET /api/clients/suggestions?q=dup je&limit=10
+     * Chaque mot de q doit commencer un mot du nom, du prénom ou du numéro de permis.
+     */
+    @GetMapping("/suggestions")
+    public List<Suggestion> suggestClients(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return searchIndex.suggestClients(q, limit);
+    }
+
+    /**
+     * Liste paginée par curseur : GET /api/clients?afterId=0&limit=100
+     * La page suivante s'obtient avec afterId = valeur de l'en-tête X-Next-Cursor ; sans afterId ni limit,
+     * toute la liste est renvoyée.
+     * Réponse 304 sans lecture en base si If-None-Match porte l'ETag courant.
+     */
     @GetMapping
-    public List<Client> getAllClients() {
-        return clientRepository.findAll();
+    public ResponseEntity<List<Client>> getAllClients(@RequestParam(required = false) Long afterId,
+                                                      @RequestParam(required = false) Integer limit,
+                                                      NativeWebRequest request) {
+        Limit pageLimit = Pagination.limit(afterId, limit);
+        return ConditionalGet.ifNoneMatch(request, resourceVersions.clientsEtag(), () -> Pagination.page(
+                clientRepository.findPage(Pagination.afterId(afterId), pageLimit), pageLimit, Client::getId));
+    }
+
+    // Détail : GET /api/clients/1, conditionnel comme la liste
+    @GetMapping("/{id}")
+    public ResponseEntity<Client> getClient(@PathVariable Long id, NativeWebRequest request) {
+        return ConditionalGet.ifNoneMatch(request, resourceVersions.clientsEtag(), () ->
+                ResponseEntity.of(clientRepository.findById(id)));
+    }
+
+    // Tous les clients en flux NDJSON, mémoire constante
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamClients() {
+        return ndjsonStreamer.stream(clientRepository::streamAll);
+    }
+
+    /**
+     * Import CSV de clients : POST /api/clients/import, fichier multipart "file" ou corps text/csv.
+     * En-tête obligatoire : nom, prenom, dateNaissance (AAAA-MM-JJ), numPermis ; optionnelles : adresse, email.
+     * Les lignes valides sont importées, les autres listées dans le rapport avec leur motif.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ImportReport importClients(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return csvImportService.importClients(in);
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportReport importClients(InputStream body) {
+        return csvImportService.importClients(body);
     }
-}
\ No newline at end of file
+}
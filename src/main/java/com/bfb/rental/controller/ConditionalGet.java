@@ -0,0 +1,46 @@
+package com.bfb.rental.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.NativeWebRequest;
+
+import java.util.function.Supplier;
+
+/**
+ * GET conditionnel pour l'API : l'ETag (version courante de la ressource, voir ResourceVersions)
+ * est comparé à If-None-Match avant toute lecture en base. S'il correspond, la réponse est un 304
+ * sans corps et la requête n'est pas exécutée ; sinon la réponse est produite normalement, avec l'ETag.
+ *
+ * Le format de la réponse (JSON, CBOR, Smile) dépend de l'en-tête Accept : l'ETag, fort, en tient compte
+ * (une même version a un ETag par valeur d'Accept) et la réponse porte Vary: Accept pour les caches.
+ */
+final class ConditionalGet {
+
+    private ConditionalGet() {
+    }
+
+    /**
+     * @param etag ETag calculé avant la lecture
+     * @return null si le client est à jour (Spring envoie alors le 304 positionné par checkNotModified)
+     */
+    static <T> ResponseEntity<T> ifNoneMatch(NativeWebRequest request, String etag, Supplier<ResponseEntity<T>> response) {
+        HttpServletResponse servletResponse = request.getNativeResponse(HttpServletResponse.class);
+        if (servletResponse != null) {
+            servletResponse.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        }
+        // Positionne l'en-tête ETag dans les deux cas, et le statut 304 si If-None-Match correspond
+        if (request.checkNotModified(representation(etag, request.getHeader(HttpHeaders.ACCEPT)))) {
+            return null;
+        }
+        return response.get();
+    }
+
+    // La même valeur d'Accept donne toujours le même format : l'empreinte suffit à distinguer les représentations
+    private static String representation(String etag, String accept) {
+        if (accept == null || accept.isBlank()) {
+            return etag;
+        }
+        return etag.substring(0, etag.length() - 1) + "-" + Integer.toHexString(accept.trim().hashCode()) + "\"";
+    }
+}
@@ -1,13 +1,25 @@
 package com.bfb.rental.controller;
 
+import com.bfb.rental.dto.ContratBatchResult;
+import com.bfb.rental.dto.ContratCompact;
+import com.bfb.rental.dto.ContratView;
 import com.bfb.rental.dto.CreateContratRequest;
 import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.enums.EtatContrat;
 import com.bfb.rental.repository.ContratRepository;
 import com.bfb.rental.service.ContratService;
+import com.bfb.rental.service.ResourceVersions;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.LocalDate;
 import java.util.List;
 
 @RestController
@@ -15,8 +27,14 @@ import java.util.List;
 @RequiredArgsConstructor
 public class ContratController {
 
+    private static final List<String> EXPORT_HEADER = List.of("id", "dateDebut", "dateFin", "etat", "prixTotal",
+            "clientId", "clientNom", "clientPrenom", "vehiculeId", "marque", "modele", "immatriculation");
+
     private final ContratService contratService;
     private final ContratRepository contratRepository;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final CsvStreamer csvStreamer;
+    private final ResourceVersions resourceVersions;
 
     @PostMapping
     public ResponseEntity<?> createContrat(@RequestBody CreateContratRequest request) {
@@ -34,9 +52,108 @@ public class ContratController {
         }
     }
 
+    /**
+     * Création par lot : POST /api/contrats/batch
+     * Renvoie un résultat par élément (ID du contrat créé ou motif du refus), dans l'ordre de la demande.
+     */
+    @PostMapping("/batch")
+    public List<ContratBatchResult> createContrats(@RequestBody List<CreateContratRequest> requests) {
+        return contratService.createContrats(requests);
+    }
+
+    /**
+     * Liste paginée par curseur : GET /api/contrats?afterId=0&limit=100
+     * Filtres optionnels : etat, vehiculeId, et période debut/fin (contrats qui la chevauchent).
+     * La page suivante s'obtient avec afterId = valeur de l'en-tête X-Next-Cursor ;
+     * sans afterId ni limit, toute la liste (filtrée) est renvoyée.
+     * Réponse 304 sans lecture en base si If-None-Match porte l'ETag courant
+     * (aucun contrat, client ou véhicule modifié depuis).
+     */
     @GetMapping
-    public List<Contrat> getAllContrats() {
-        return contratRepository.findAll();
+    public ResponseEntity<List<ContratView>> getAllContrats(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) EtatContrat etat,
+            @RequestParam(required = false) Long vehiculeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            NativeWebRequest request) {
+        Limit pageLimit = Pagination.limit(afterId, limit);
+        return ConditionalGet.ifNoneMatch(request, resourceVersions.contratsEtag(), () -> {
+            List<ContratView> page = contratRepository.findViewPage(Pagination.afterId(afterId), etat, vehiculeId,
+                    debut, fin, pageLimit);
+            return Pagination.page(page, pageLimit, ContratView::id);
+        });
+    }
+
+    /**
+     * Même liste en représentation à plat : GET /api/contrats?compact=true (mêmes filtres et curseur).
+     * Client et véhicule réduits à leur ID ; avec Accept: application/cbor ou application/x-jackson-smile,
+     * c'est la forme la plus légère pour les consommateurs qui interrogent l'API en continu.
+     */
+    @GetMapping(params = "compact=true")
+    public ResponseEntity<List<ContratCompact>> getAllContratsCompact(
+            @RequestParam(required = false) Long afterId,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) EtatContrat etat,
+            @RequestParam(required = false) Long vehiculeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            NativeWebRequest request) {
+        Limit pageLimit = Pagination.limit(afterId, limit);
+        return ConditionalGet.ifNoneMatch(request, resourceVersions.contratsCompactEtag(), () -> {
+            List<ContratCompact> page = contratRepository.findCompactPage(Pagination.afterId(afterId), etat, vehiculeId,
+                    debut, fin, pageLimit);
+            return Pagination.page(page, pageLimit, ContratCompact::id);
+        });
+    }
+
+    // Détail : GET /api/contrats/1, même vue que la liste, conditionnel comme elle
+    @GetMapping("/{id}")
+    public ResponseEntity<ContratView> getContrat(@PathVariable Long id, NativeWebRequest request) {
+        return ConditionalGet.ifNoneMatch(request, resourceVersions.contratsEtag(), () ->
+                ResponseEntity.of(contratRepository.findViewById(id)));
+    }
+
+    // Tous les contrats (mêmes filtres) en flux NDJSON, mémoire constante
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamContrats(
+            @RequestParam(required = false) EtatContrat etat,
+            @RequestParam(required = false) Long vehiculeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin) {
+        return ndjsonStreamer.stream(() -> contratRepository.streamViews(etat, vehiculeId, debut, fin));
+    }
+
+    /**
+     * Export comptable : GET /api/contrats/export?debut=2025-01-01&fin=2025-01-31&etat=TERMINE
+     * Mêmes filtres que la liste ; CSV écrit au fil de la lecture du curseur, en mémoire constante.
+     * format=csv.gz pour une réponse compressée.
+     */
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportContrats(
+            @RequestParam(required = false) EtatContrat etat,
+            @RequestParam(required = false) Long vehiculeId,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(defaultValue = "csv") String format) {
+        boolean gzip = switch (format) {
+            case "csv" -> false;
+            case "csv.gz" -> true;
+            default -> throw new IllegalArgumentException("Format d'export inconnu : " + format + " (csv ou csv.gz)");
+        };
+        StreamingResponseBody body = csvStreamer.stream(() -> contratRepository.streamViews(etat, vehiculeId, debut, fin),
+                EXPORT_HEADER, ContratController::exportColumns, gzip);
+        return ResponseEntity.ok()
+                .contentType(gzip ? MediaType.parseMediaType("application/gzip") : MediaType.parseMediaType("text/csv;charset=UTF-8"))
+                .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"contrats." + format + "\"")
+                .body(body);
+    }
+
+    private static Object[] exportColumns(ContratView c) {
+        return new Object[]{c.id(), c.dateDebut(), c.dateFin(), c.etat(), c.prixTotal(),
+                c.client().id(), c.client().nom(), c.client().prenom(),
+                c.vehicule().id(), c.vehicule().marque(), c.vehicule().modele(), c.vehicule().immatriculation()};
     }
 
     /**
@@ -0,0 +1,102 @@
+package com.bfb.rental.controller;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Écrit le résultat d'une requête en flux au format CSV (RFC 4180, UTF-8, séparateur virgule),
+ * éventuellement compressé en gzip. Même principe que NdjsonStreamer : curseur JDBC en lecture seule,
+ * tampon d'écriture de taille fixe vidé régulièrement vers la réponse, contexte de persistance vidé :
+ * la mémoire utilisée ne dépend pas du nombre de lignes.
+ */
+@Component
+@RequiredArgsConstructor
+public class CsvStreamer {
+
+    private static final int CLEAR_EVERY = 500;
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+
+    /**
+     * @param header  noms des colonnes (première ligne)
+     * @param columns valeurs d'une ligne, dans l'ordre de l'en-tête (null pour une cellule vide)
+     */
+    public <T> StreamingResponseBody stream(Supplier<Stream<T>> query, List<String> header,
+                                            Function<T, Object[]> columns, boolean gzip) {
+        return out -> {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            tx.executeWithoutResult(status -> {
+                try (Stream<T> rows = query.get()) {
+                    OutputStream target = gzip ? new GZIPOutputStream(out, BUFFER_SIZE) : out;
+                    Writer writer = new BufferedWriter(new OutputStreamWriter(target, StandardCharsets.UTF_8), BUFFER_SIZE);
+                    write(rows.iterator(), header, columns, writer);
+                    if (target instanceof GZIPOutputStream compressed) {
+                        compressed.finish();
+                    }
+                    out.flush();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+    }
+
+    private <T> void write(Iterator<T> rows, List<String> header, Function<T, Object[]> columns, Writer writer) throws IOException {
+        writeLine(header.toArray(), writer);
+        int count = 0;
+        while (rows.hasNext()) {
+            writeLine(columns.apply(rows.next()), writer);
+            if (++count % CLEAR_EVERY == 0) {
+                entityManager.clear();
+            }
+        }
+        writer.flush();
+    }
+
+    private static void writeLine(Object[] values, Writer writer) throws IOException {
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writeCell(values[i], writer);
+        }
+        writer.write("\r\n");
+    }
+
+    private static void writeCell(Object value, Writer writer) throws IOException {
+        if (value == null) {
+            return;
+        }
+        // Montants en notation décimale (Double.toString passe en notation scientifique à partir de 10^7)
+        String text = value instanceof Double d ? BigDecimal.valueOf(d).toPlainString() : value.toString();
+        if (text.indexOf(',') < 0 && text.indexOf('"') < 0 && text.indexOf('\n') < 0 && text.indexOf('\r') < 0) {
+            writer.write(text);
+            return;
+        }
+        writer.write('"');
+        writer.write(text.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,25 @@
+package com.bfb.rental.controller;
+
+import com.bfb.rental.dto.BulkGenerationReport;
+import com.bfb.rental.dto.BulkGenerationRequest;
+import com.bfb.rental.service.BulkDataGeneratorService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/generator")
+@RequiredArgsConstructor
+public class GeneratorController {
+
+    private final BulkDataGeneratorService bulkDataGeneratorService;
+
+    /**
+     * Génération massive pour les tests de charge :
+     * POST /api/generator/bulk {"vehicules":100000,"clients":1000000,"contrats":10000000,"seed":42}
+     * Renvoie le débit d'insertion par table.
+     */
+    @PostMapping("/bulk")
+    public BulkGenerationReport generateBulk(@RequestBody BulkGenerationRequest request) {
+        return bulkDataGeneratorService.generate(request);
+    }
+}
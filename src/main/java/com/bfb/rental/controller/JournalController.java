@@ -0,0 +1,32 @@
+package com.bfb.rental.controller;
+
+import com.bfb.rental.dto.JournalEntry;
+import com.bfb.rental.service.TransitionJournal;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/journal")
+@RequiredArgsConstructor
+public class JournalController {
+
+    private final TransitionJournal transitionJournal;
+
+    /**
+     * Journal des transitions, dans l'ordre : GET /api/journal?afterId=0&limit=100
+     * afterId est une séquence du journal ; la suivante est renvoyée dans l'en-tête X-Next-Cursor.
+     */
+    @GetMapping
+    public ResponseEntity<List<JournalEntry>> read(@RequestParam(defaultValue = "0") long afterId,
+                                                   @RequestParam(defaultValue = "100") int limit) {
+        Limit pageLimit = Pagination.limit(limit);
+        return Pagination.page(transitionJournal.read(afterId, pageLimit.max()), pageLimit, JournalEntry::sequence);
+    }
+}
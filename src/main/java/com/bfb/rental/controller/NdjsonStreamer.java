@@ -0,0 +1,63 @@
+package com.bfb.rental.controller;
+
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Écrit le résultat d'une requête en flux au format NDJSON (un objet JSON par ligne).
+ * Les lignes sont lues via un curseur JDBC et écrites au fil de l'eau ; le contexte de persistance
+ * est vidé régulièrement pour que la mémoire utilisée reste constante quel que soit le volume.
+ */
+@Component
+@RequiredArgsConstructor
+public class NdjsonStreamer {
+
+    private static final int CLEAR_EVERY = 500;
+
+    private final PlatformTransactionManager transactionManager;
+    private final EntityManager entityManager;
+    private final JsonMapper jsonMapper;
+
+    // Le type de contenu est posé sur la réponse : "produces" ne sert qu'à la négociation
+    public <T> ResponseEntity<StreamingResponseBody> stream(Supplier<Stream<T>> query) {
+        StreamingResponseBody body = out -> {
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            tx.setReadOnly(true);
+            tx.executeWithoutResult(status -> {
+                try (Stream<T> rows = query.get()) {
+                    write(rows.iterator(), out);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    private <T> void write(Iterator<T> rows, OutputStream out) throws IOException {
+        int count = 0;
+        while (rows.hasNext()) {
+            out.write(jsonMapper.writeValueAsBytes(rows.next()));
+            out.write('\n');
+            if (++count % CLEAR_EVERY == 0) {
+                entityManager.clear();
+                out.flush();
+            }
+        }
+        out.flush();
+    }
+}
@@ -0,0 +1,47 @@
+package com.bfb.rental.controller;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Pagination par curseur (keyset sur l'ID) pour les listes de l'API.
+ * Le corps reste un tableau JSON ; s'il reste potentiellement des lignes,
+ * l'ID à passer en afterId pour la page suivante est renvoyé dans l'en-tête X-Next-Cursor.
+ * Sans afterId ni limit, les listes restent complètes, comme avant la pagination.
+ */
+final class Pagination {
+
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    static final int DEFAULT_LIMIT = 100;
+    static final int MAX_LIMIT = 1000;
+
+    private Pagination() {
+    }
+
+    // Liste complète si le client ne demande pas de page (ni afterId ni limit), sinon limit par défaut à 100
+    static Limit limit(Long afterId, Integer requested) {
+        if (afterId == null && requested == null) {
+            return Limit.unlimited();
+        }
+        return limit(requested == null ? DEFAULT_LIMIT : requested);
+    }
+
+    static long afterId(Long afterId) {
+        return afterId == null ? 0 : afterId;
+    }
+
+    static Limit limit(int requested) {
+        return Limit.of(Math.max(1, Math.min(requested, MAX_LIMIT)));
+    }
+
+    static <T> ResponseEntity<List<T>> page(List<T> rows, Limit limit, Function<T, Long> idOf) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (limit.isLimited() && !rows.isEmpty() && rows.size() == limit.max()) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(idOf.apply(rows.get(rows.size() - 1))));
+        }
+        return response.body(rows);
+    }
+}
@@ -0,0 +1,30 @@
+package com.bfb.rental.controller;
+
+import com.bfb.rental.dto.QuoteRequest;
+import com.bfb.rental.dto.QuoteResult;
+import com.bfb.rental.service.PricingEngine;
+import lombok.RequiredArgsConstructor;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/quotes")
+@RequiredArgsConstructor
+public class QuoteController {
+
+    private final PricingEngine pricingEngine;
+
+    /**
+     * Devis par lot, sans réservation : POST /api/quotes
+     * Corps : [{"vehiculeId": 1, "dateDebut": "2025-07-01", "dateFin": "2025-07-08"}, ...]
+     * Renvoie un résultat par élément (prix ou motif du refus), dans l'ordre de la demande.
+     */
+    @PostMapping
+    public List<QuoteResult> quote(@RequestBody List<QuoteRequest> requests) {
+        return pricingEngine.quote(requests);
+    }
+}
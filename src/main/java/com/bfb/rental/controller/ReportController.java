@@ -0,0 +1,36 @@
+package com.bfb.rental.controller;
+
+import com.bfb.rental.dto.FleetReport;
+import com.bfb.rental.service.FleetRollups;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/reports")
+@RequiredArgsConstructor
+public class ReportController {
+
+    private final FleetRollups fleetRollups;
+
+    /**
+     * Utilisation et revenu de la flotte : GET /api/reports/fleet?debut=2025-01-01&fin=2025-03-31&groupBy=marque
+     * Filtres optionnels : vehiculeId, marque, motorisation ; regroupement optionnel : vehicule, marque, motorisation.
+     * Calculé à partir des agrégats journaliers en mémoire, sans lire la table des contrats.
+     */
+    @GetMapping("/fleet")
+    public FleetReport fleet(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(required = false) Long vehiculeId,
+            @RequestParam(required = false) String marque,
+            @RequestParam(required = false) String motorisation,
+            @RequestParam(required = false) String groupBy) {
+        return fleetRollups.report(debut, fin, vehiculeId, marque, motorisation, groupBy);
+    }
+}
@@ -1,12 +1,29 @@
 package com.bfb.rental.controller;
 
+import com.bfb.rental.dto.ImportReport;
+import com.bfb.rental.dto.Suggestion;
 import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.service.CsvImportService;
+import com.bfb.rental.service.OccupancyIndex;
+import com.bfb.rental.service.ResourceVersions;
+import com.bfb.rental.service.SearchIndex;
 import com.bfb.rental.service.VehiculeService;
 import com.bfb.rental.repository.VehiculeRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.data.domain.Limit;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.Comparator;
 import java.util.List;
 
 @RestController
@@ -16,15 +33,80 @@ public class VehiculeController {
 
     private final VehiculeService vehiculeService;
     private final VehiculeRepository vehiculeRepository;
+    private final NdjsonStreamer ndjsonStreamer;
+    private final CsvImportService csvImportService;
+    private final SearchIndex searchIndex;
+    private final OccupancyIndex occupancyIndex;
+    private final ResourceVersions resourceVersions;
 
     @PostMapping
     public Vehicule createVehicule(@RequestBody Vehicule vehicule) {
         return vehiculeService.createVehicule(vehicule);
     }
 
+    /**
+     * Liste paginée par curseur : GET /api/vehicules?afterId=0&limit=100&etat=DISPONIBLE
+     * La page suivante s'obtient avec afterId = valeur de l'en-tête X-Next-Cursor ; sans afterId ni limit,
+     * toute la liste (filtrée) est renvoyée.
+     * Réponse 304 sans lecture en base si If-None-Match porte l'ETag courant (aucun véhicule modifié depuis).
+     */
     @GetMapping
-    public List<Vehicule> getAllVehicules() {
-        return vehiculeRepository.findAll();
+    public ResponseEntity<List<Vehicule>> getAllVehicules(@RequestParam(required = false) Long afterId,
+                                                          @RequestParam(required = false) Integer limit,
+                                                          @RequestParam(required = false) EtatVehicule etat,
+                                                          NativeWebRequest request) {
+        Limit pageLimit = Pagination.limit(afterId, limit);
+        return ConditionalGet.ifNoneMatch(request, resourceVersions.vehiculesEtag(), () -> Pagination.page(
+                vehiculeRepository.findPage(Pagination.afterId(afterId), etat, pageLimit), pageLimit, Vehicule::getId));
+    }
+
+    // Détail : GET /api/vehicules/1, conditionnel comme la liste
+    @GetMapping("/{id}")
+    public ResponseEntity<Vehicule> getVehicule(@PathVariable Long id, NativeWebRequest request) {
+        return ConditionalGet.ifNoneMatch(request, resourceVersions.vehiculesEtag(), () ->
+                ResponseEntity.of(vehiculeRepository.findById(id)));
+    }
+
+    // Tous les véhicules (filtre optionnel sur l'état) en flux NDJSON, mémoire constante
+    @GetMapping(value = "/stream", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamVehicules(@RequestParam(required = false) EtatVehicule etat) {
+        return ndjsonStreamer.stream(() -> vehiculeRepository.streamAll(etat));
+    }
+
+    /**
+     * Recherche de disponibilité sur toute la flotte :
+     * GET /api/vehicules/disponibles?debut=2025-07-01&fin=2025-07-14&motorisation=Electrique&marque=Tesla
+     * Répond depuis l'index d'occupation en mémoire (hors véhicules EN_PANNE), paginé comme la liste.
+     * Le nombre total de véhicules libres est renvoyé dans l'en-tête X-Total-Count.
+     */
+    @GetMapping("/disponibles")
+    public ResponseEntity<List<Vehicule>> getVehiculesDisponibles(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate debut,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate fin,
+            @RequestParam(required = false) String motorisation,
+            @RequestParam(required = false) String marque,
+            @RequestParam(defaultValue = "0") Long afterId,
+            @RequestParam(defaultValue = "100") int limit) {
+        List<Long> available = occupancyIndex.findAvailable(debut, fin, motorisation, marque);
+        Limit pageLimit = Pagination.limit(limit);
+        List<Long> pageIds = available.stream().filter(id -> id > afterId).limit(pageLimit.max()).toList();
+        List<Vehicule> page = vehiculeRepository.findAllById(pageIds).stream()
+                .sorted(Comparator.comparing(Vehicule::getId))
+                .toList();
+        ResponseEntity<List<Vehicule>> response = Pagination.page(page, pageLimit, Vehicule::getId);
+        return ResponseEntity.status(response.getStatusCode())
+                .headers(response.getHeaders())
+                .header("X-Total-Count", String.valueOf(available.size()))
+                .body(page);
+    }
+
+    /**
+     * Saisie semi-automatique : GET /api/vehicules/suggestions?q=ab-12&limit=10
+     * Chaque mot de q doit commencer un mot de l'immatriculation, de la marque ou du modèle.
+     */
+    @GetMapping("/suggestions")
+    public List<Suggestion> suggestVehicules(@RequestParam String q, @RequestParam(defaultValue = "10") int limit) {
+        return searchIndex.suggestVehicules(q, limit);
     }
 
     /**
@@ -34,6 +116,34 @@ public class VehiculeController {
     @PostMapping("/{id}/panne")
     public ResponseEntity<String> declarerPanne(@PathVariable Long id) {
         vehiculeService.declarerPanne(id);
-        return ResponseEntity.ok("Le véhicule a été marqué en panne, les contrats en attente associés ont été automatiquement annulés.");
+        return ResponseEntity.ok("Le véhicule a été marqué en panne, les contrats en attente associés vont être automatiquement annulés.");
+    }
+
+    /**
+     * Déclaration de pannes pour plusieurs véhicules
+     * URL: POST /api/vehicules/panne  (corps : liste d'ID)
+     */
+    @PostMapping("/panne")
+    public ResponseEntity<String> declarerPannes(@RequestBody List<Long> ids) {
+        int updated = vehiculeService.declarerPannes(ids);
+        return ResponseEntity.ok(updated + " véhicule(s) marqué(s) en panne, les contrats en attente associés vont être automatiquement annulés.");
+    }
+
+    /**
+     * Import CSV de véhicules : POST /api/vehicules/import, fichier multipart "file" ou corps text/csv.
+     * En-tête obligatoire : immatriculation ; optionnelles : marque, modele, motorisation, couleur,
+     * dateAcquisition (AAAA-MM-JJ), prixJournee. Les véhicules importés sont DISPONIBLE.
+     * Les lignes valides sont importées, les autres listées dans le rapport avec leur motif.
+     */
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ImportReport importVehicules(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return csvImportService.importVehicules(in);
+        }
+    }
+
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public ImportReport importVehicules(InputStream body) {
+        return csvImportService.importVehicules(body);
     }
-}
\ No newline at end of file
+}
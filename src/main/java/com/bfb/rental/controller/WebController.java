@@ -3,20 +3,24 @@ package com.bfb.rental.controller;
 import com.bfb.rental.entity.Client;
 import com.bfb.rental.entity.Contrat;
 import com.bfb.rental.entity.Vehicule;
-import com.bfb.rental.enums.EtatVehicule;
 import com.bfb.rental.repository.ClientRepository;
 import com.bfb.rental.repository.ContratRepository;
 import com.bfb.rental.repository.VehiculeRepository;
+import com.bfb.rental.service.ClientService;
 import com.bfb.rental.service.ContratService;
+import com.bfb.rental.service.DashboardStats;
 import com.bfb.rental.service.DataGeneratorService;
+import com.bfb.rental.service.SearchIndex;
 import com.bfb.rental.service.VehiculeService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
 
+@Slf4j
 @Controller
 @RequiredArgsConstructor
 public class WebController {
@@ -25,37 +29,22 @@ public class WebController {
     private final ContratRepository contratRepository;
     private final ClientRepository clientRepository;
     private final VehiculeService vehiculeService;
+    private final ClientService clientService;
     private final ContratService contratService;
     private final DataGeneratorService dataGeneratorService;
+    private final DashboardStats dashboardStats;
 
     // === Page d'accueil (Tableau de bord) ===
     // [Attention] C'est la seule méthode qui gère "/", l'ancienne index() doit être supprimée
     @GetMapping("/")
     public String index(Model model) {
-        // 1. Comptage de base
-        long totalCars = vehiculeRepository.count();
-        long totalClients = clientRepository.count();
-
-        // 2. Statistiques d'état
-        long rentedCars = vehiculeRepository.findAll().stream()
-                .filter(v -> v.getEtat() == EtatVehicule.EN_LOCATION).count();
-
-        // 3. Statistiques financières (calcul du revenu total des contrats terminés ou en cours, éviter les NullPointer)
-        double totalRevenue = contratRepository.findAll().stream()
-                .filter(c -> c.getPrixTotal() != null)
-                .mapToDouble(Contrat::getPrixTotal)
-                .sum();
-
-        // 4. Statistiques d'alerte
-        long overdueContracts = contratRepository.findAll().stream()
-                .filter(c -> c.getEtat() == com.bfb.rental.enums.EtatContrat.EN_RETARD)
-                .count();
-
-        model.addAttribute("totalCars", totalCars);
-        model.addAttribute("rentedCars", rentedCars);
-        model.addAttribute("totalClients", totalClients);
-        model.addAttribute("totalRevenue", String.format("%.2f", totalRevenue));
-        model.addAttribute("overdueContracts", overdueContracts);
+        // Les compteurs sont maintenus à chaque transition d'état (voir DashboardStats) :
+        // aucun parcours de table, le coût ne dépend plus du volume de données
+        model.addAttribute("totalCars", dashboardStats.getTotalCars());
+        model.addAttribute("rentedCars", dashboardStats.getRentedCars());
+        model.addAttribute("totalClients", dashboardStats.getTotalClients());
+        model.addAttribute("totalRevenue", String.format("%.2f", dashboardStats.getTotalRevenue()));
+        model.addAttribute("overdueContracts", dashboardStats.getOverdueContracts());
 
         return "index";
     }
@@ -90,7 +79,7 @@ public class WebController {
     @GetMapping("/ui/vehicules/delete/{id}")
     public String deleteVehicule(@PathVariable Long id) {
         try {
-            vehiculeRepository.deleteById(id);
+            vehiculeService.deleteVehicule(id);
         } catch (Exception e) {
             return "redirect:/ui/vehicules?error=cannot_delete";
         }
@@ -105,11 +94,7 @@ public class WebController {
 
     @PostMapping("/ui/vehicules")
     public String saveVehicule(@ModelAttribute Vehicule vehicule) {
-        // Si c'est nouveau et sans état, disponible par défaut
-        if (vehicule.getId() == null && vehicule.getEtat() == null) {
-            vehicule.setEtat(EtatVehicule.DISPONIBLE);
-        }
-        vehiculeRepository.save(vehicule);
+        vehiculeService.saveVehicule(vehicule);
         return "redirect:/ui/vehicules";
     }
 
@@ -143,7 +128,7 @@ public class WebController {
     @GetMapping("/ui/clients/delete/{id}")
     public String deleteClient(@PathVariable Long id) {
         try {
-            clientRepository.deleteById(id);
+            clientService.deleteClient(id);
         } catch (Exception e) {
             return "redirect:/ui/clients?error=cannot_delete";
         }
@@ -158,37 +143,37 @@ public class WebController {
 
     @PostMapping("/ui/clients")
     public String saveClient(@ModelAttribute Client client) {
-        clientRepository.save(client);
+        clientService.saveClient(client);
         return "redirect:/ui/clients";
     }
 
     // ================= Gestion des contrats =================
     @GetMapping("/ui/contrats")
     public String contrats(Model model) {
-        model.addAttribute("contrats", contratRepository.findAll());
+        model.addAttribute("contrats", contratRepository.findAllViews());
         return "contrats";
     }
 
+    // Clients et véhicules ne sont plus listés dans la page : le formulaire les cherche à la saisie
+    // (GET /api/clients/suggestions, /api/vehicules/suggestions)
     @GetMapping("/ui/contrats/new")
     public String showContratForm(Model model) {
         model.addAttribute("contrat", new Contrat()); // Objet vide
-        model.addAttribute("clients", clientRepository.findAll());
-        model.addAttribute("vehicules", vehiculeRepository.findAll());
         return "contrat-form";
     }
 
     @GetMapping("/ui/contrats/edit/{id}")
     public String showEditContratForm(@PathVariable Long id, Model model) {
-        Contrat contrat = contratRepository.findById(id).orElseThrow();
+        Contrat contrat = contratRepository.findWithClientAndVehiculeById(id).orElseThrow();
         model.addAttribute("contrat", contrat); // Objet à afficher
-        model.addAttribute("clients", clientRepository.findAll());
-        model.addAttribute("vehicules", vehiculeRepository.findAll());
+        model.addAttribute("clientLibelle", SearchIndex.libelle(contrat.getClient()));
+        model.addAttribute("vehiculeLibelle", SearchIndex.libelle(contrat.getVehicule()));
         return "contrat-form";
     }
 
     @GetMapping("/ui/contrats/delete/{id}")
     public String deleteContrat(@PathVariable Long id) {
-        contratRepository.deleteById(id);
+        contratService.deleteContrat(id);
         return "redirect:/ui/contrats";
     }
 
@@ -239,7 +224,7 @@ public class WebController {
                 contratService.createContrat(clientId, vehiculeId, start, end);
             }
         } catch (Exception e) {
-            e.printStackTrace();
+            log.warn("Contrat refusé : {}", e.getMessage());
             return "redirect:/ui/contrats?error=collision";
         }
         return "redirect:/ui/contrats";
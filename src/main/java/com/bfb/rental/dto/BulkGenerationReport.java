@@ -0,0 +1,15 @@
+package com.bfb.rental.dto;
+
+import java.util.List;
+
+// Rapport d'une génération massive : volumes et débit par table, puis le total
+public record BulkGenerationReport(long seed, int threads, List<Phase> phases,
+                                   long totalLignes, long totalMs, double lignesParSeconde) {
+
+    public record Phase(String table, long lignes, long dureeMs, double lignesParSeconde) {
+    }
+
+    public static double rate(long lignes, long dureeMs) {
+        return dureeMs == 0 ? lignes * 1000.0 : lignes * 1000.0 / dureeMs;
+    }
+}
@@ -0,0 +1,14 @@
+package com.bfb.rental.dto;
+
+import lombok.Data;
+
+// Volumes cibles d'une génération massive ; la même graine produit le même jeu de données
+@Data
+public class BulkGenerationRequest {
+    private int vehicules;
+    private int clients;
+    private int contrats;
+    private long seed = 42L;
+    // 0 = valeur par défaut (rental.generator.bulk.threads)
+    private int threads;
+}
@@ -0,0 +1,7 @@
+package com.bfb.rental.dto;
+
+import java.time.LocalDate;
+
+// Ce qui rend un client unique : numéro de permis, et (nom, prénom, date de naissance) ; aussi ce qui est recherché
+public record ClientIdentite(Long id, String numPermis, String nom, String prenom, LocalDate dateNaissance) {
+}
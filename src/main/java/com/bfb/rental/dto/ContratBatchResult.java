@@ -0,0 +1,13 @@
+package com.bfb.rental.dto;
+
+// Résultat d'un élément d'une création de contrats par lot : soit l'ID créé, soit le motif du refus
+public record ContratBatchResult(int index, Long contratId, String erreur) {
+
+    public static ContratBatchResult succes(int index, Long contratId) {
+        return new ContratBatchResult(index, contratId, null);
+    }
+
+    public static ContratBatchResult echec(int index, String erreur) {
+        return new ContratBatchResult(index, null, erreur);
+    }
+}
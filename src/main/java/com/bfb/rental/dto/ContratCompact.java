@@ -0,0 +1,14 @@
+package com.bfb.rental.dto;
+
+import com.bfb.rental.enums.EtatContrat;
+
+import java.time.LocalDate;
+
+/**
+ * Représentation à plat d'un contrat pour les consommateurs à haute fréquence (GET /api/contrats?compact=true) :
+ * le client et le véhicule sont référencés par leur ID, sans objets imbriqués.
+ * Lue sans jointure (les ID sont les clés étrangères de la table contrat).
+ */
+public record ContratCompact(Long id, LocalDate dateDebut, LocalDate dateFin, EtatContrat etat, Double prixTotal,
+                             Long clientId, Long vehiculeId) {
+}
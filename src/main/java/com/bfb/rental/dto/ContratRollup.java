@@ -0,0 +1,7 @@
+package com.bfb.rental.dto;
+
+import java.time.LocalDate;
+
+// Contribution d'un contrat aux rapports de flotte : véhicule, jours loués, montant
+public record ContratRollup(Long vehiculeId, LocalDate dateDebut, LocalDate dateFin, Double prixTotal) {
+}
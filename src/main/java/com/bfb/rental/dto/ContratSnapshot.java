@@ -0,0 +1,16 @@
+package com.bfb.rental.dto;
+
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.enums.EtatContrat;
+
+import java.time.LocalDate;
+
+// État d'un contrat à un instant donné, détaché de l'entité : ce que lisent les structures en mémoire après commit
+public record ContratSnapshot(Long id, Long vehiculeId, LocalDate dateDebut, LocalDate dateFin,
+                              EtatContrat etat, Double prixTotal) {
+
+    public static ContratSnapshot of(Contrat c) {
+        return new ContratSnapshot(c.getId(), c.getVehicule().getId(), c.getDateDebut(), c.getDateFin(),
+                c.getEtat(), c.getPrixTotal());
+    }
+}
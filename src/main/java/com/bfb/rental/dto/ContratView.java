@@ -0,0 +1,29 @@
+package com.bfb.rental.dto;
+
+import com.bfb.rental.enums.EtatContrat;
+
+import java.time.LocalDate;
+
+/**
+ * Vue de lecture d'un contrat pour les listes (API et page /ui/contrats) : uniquement les colonnes affichées,
+ * chargées en une seule requête avec le client et le véhicule (expression constructeur JPQL).
+ * Le JSON garde la forme de l'entité (client.nom, vehicule.marque...), sans les champs inutiles.
+ */
+public record ContratView(Long id, LocalDate dateDebut, LocalDate dateFin, EtatContrat etat, Double prixTotal,
+                          ClientRef client, VehiculeRef vehicule) {
+
+    public record ClientRef(Long id, String nom, String prenom) {
+    }
+
+    public record VehiculeRef(Long id, String marque, String modele, String immatriculation) {
+    }
+
+    // Constructeur à plat, utilisé par les requêtes (JPQL ne sait pas imbriquer les expressions NEW)
+    public ContratView(Long id, LocalDate dateDebut, LocalDate dateFin, EtatContrat etat, Double prixTotal,
+                       Long clientId, String clientNom, String clientPrenom,
+                       Long vehiculeId, String marque, String modele, String immatriculation) {
+        this(id, dateDebut, dateFin, etat, prixTotal,
+                new ClientRef(clientId, clientNom, clientPrenom),
+                new VehiculeRef(vehiculeId, marque, modele, immatriculation));
+    }
+}
@@ -0,0 +1,15 @@
+package com.bfb.rental.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Rapport d'utilisation et de revenu de la flotte sur une période, éventuellement regroupé
+ * par véhicule, marque ou motorisation. Le taux d'utilisation est joursLoues / (vehicules x jours de la période).
+ */
+public record FleetReport(LocalDate debut, LocalDate fin, String groupBy, List<Ligne> lignes, Ligne total) {
+
+    public record Ligne(String cle, int vehicules, long joursLoues, long joursPanne,
+                        double tauxUtilisation, double revenu) {
+    }
+}
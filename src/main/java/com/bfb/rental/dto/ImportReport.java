@@ -0,0 +1,14 @@
+package com.bfb.rental.dto;
+
+import java.util.List;
+
+/**
+ * Rapport d'un import CSV : lignes lues, importées et rejetées, avec le motif de chaque rejet
+ * (numéro de ligne dans le fichier, l'en-tête étant la ligne 1). La liste des erreurs est bornée,
+ * le compteur rejetes reste exact.
+ */
+public record ImportReport(String entite, long lignes, long importes, long rejetes, List<Erreur> erreurs, long dureeMs) {
+
+    public record Erreur(long ligne, String message) {
+    }
+}
@@ -0,0 +1,9 @@
+package com.bfb.rental.dto;
+
+import com.bfb.rental.enums.TypeTransition;
+
+import java.time.Instant;
+
+// Enregistrement du journal des transitions ; contratId est null pour les transitions d'un véhicule
+public record JournalEntry(long sequence, Instant date, TypeTransition type, Long contratId, Long vehiculeId) {
+}
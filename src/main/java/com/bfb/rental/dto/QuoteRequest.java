@@ -0,0 +1,11 @@
+package com.bfb.rental.dto;
+
+import lombok.Data;
+import java.time.LocalDate;
+
+@Data
+public class QuoteRequest {
+    private Long vehiculeId;
+    private LocalDate dateDebut;
+    private LocalDate dateFin;
+}
@@ -0,0 +1,13 @@
+package com.bfb.rental.dto;
+
+// Résultat d'un élément d'une demande de devis : soit le prix, soit le motif du refus
+public record QuoteResult(int index, Double prix, String erreur) {
+
+    public static QuoteResult succes(int index, double prix) {
+        return new QuoteResult(index, prix, null);
+    }
+
+    public static QuoteResult echec(int index, String erreur) {
+        return new QuoteResult(index, null, erreur);
+    }
+}
@@ -0,0 +1,7 @@
+package com.bfb.rental.dto;
+
+import java.time.LocalDate;
+
+// Vue minimale d'un contrat actif : uniquement ce qu'il faut pour détecter un chevauchement
+public record ReservationSlot(Long contratId, Long vehiculeId, LocalDate dateDebut, LocalDate dateFin) {
+}
@@ -0,0 +1,5 @@
+package com.bfb.rental.dto;
+
+// Résultat de recherche par préfixe (saisie semi-automatique du formulaire de contrat)
+public record Suggestion(Long id, String libelle) {
+}
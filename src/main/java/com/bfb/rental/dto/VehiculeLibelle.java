@@ -0,0 +1,5 @@
+package com.bfb.rental.dto;
+
+// Ce qui identifie un véhicule pour l'utilisateur : utilisé par l'index de recherche
+public record VehiculeLibelle(Long id, String immatriculation, String marque, String modele) {
+}
@@ -0,0 +1,7 @@
+package com.bfb.rental.dto;
+
+import com.bfb.rental.enums.EtatVehicule;
+
+// Attributs d'un véhicule utiles à la recherche de disponibilité
+public record VehiculeProfile(Long id, String marque, String motorisation, EtatVehicule etat) {
+}
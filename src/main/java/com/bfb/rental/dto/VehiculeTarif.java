@@ -0,0 +1,5 @@
+package com.bfb.rental.dto;
+
+// Attributs d'un véhicule utiles à la tarification
+public record VehiculeTarif(Long id, String motorisation, Double prixJournee) {
+}
@@ -1,12 +1,18 @@
 package com.bfb.rental.entity;
 
+import com.bfb.rental.config.CacheConfig;
 import jakarta.persistence.*;
 import lombok.Data;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import java.time.LocalDate;
 import org.springframework.format.annotation.DateTimeFormat;
 
 @Entity
 @Data
+// Lu à chaque réservation, rarement modifié : conservé dans le cache de second niveau
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = CacheConfig.CLIENT_REGION)
 // Règle : (Nom + Prenom + DateNaissance) doit être unique
 @Table(uniqueConstraints = {
     @UniqueConstraint(columnNames = {"nom", "prenom", "dateNaissance"})
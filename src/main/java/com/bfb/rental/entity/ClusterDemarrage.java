@@ -0,0 +1,34 @@
+package com.bfb.rental.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Entity
+@Data
+// Contrats démarrés par la tâche planifiée, relus par les autres instances (voir ClusterSync)
+@Table(indexes = {
+    @Index(name = "idx_cluster_demarrage_lot", columnList = "lot")
+})
+public class ClusterDemarrage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Simple colonne : le contrat peut être supprimé avant que les autres instances ne relisent la ligne
+    @Column(nullable = false)
+    private Long contratId;
+
+    // Valeur du compteur ClusterVersion après le lot qui a démarré le contrat
+    @Column(nullable = false)
+    private long lot;
+
+    // Instance qui a démarré le contrat : elle ne relit pas ses propres lignes
+    @Column(nullable = false, length = 200)
+    private String noeud;
+
+    @Column(nullable = false)
+    private Instant dateEcriture;
+}
@@ -0,0 +1,20 @@
+package com.bfb.rental.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+@Entity
+@Data
+// Compteurs partagés entre instances (voir ClusterSync) : une ligne par flux, incrémentée par chaque lot écrit
+public class ClusterVersion {
+
+    @Id
+    @Column(length = 100)
+    private String nom;
+
+    // Numéro du dernier lot validé
+    @Column(nullable = false)
+    private long valeur;
+}
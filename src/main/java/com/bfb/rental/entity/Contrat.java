@@ -2,15 +2,34 @@ package com.bfb.rental.entity;
 
 import com.bfb.rental.enums.EtatContrat;
 import jakarta.persistence.*;
-import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
+import lombok.ToString;
 import java.time.LocalDate;
 
 @Entity
-@Data
+// Pas de @Data : equals, hashCode et toString générés parcourraient les relations LAZY
+@Getter
+@Setter
+@ToString
+// Index utilisé par la tâche planifiée (contrats EN_ATTENTE dont la date de début est atteinte),
+// les comptages par état et la reconstruction de l'index des réservations
+// Index par véhicule : détection des conflits, annulations sur panne ou retard (véhicule + état + période)
+// Les plans de ces requêtes sont vérifiés par ContratQueryPlanTest
+@Table(indexes = {
+    @Index(name = "idx_contrat_etat_debut", columnList = "etat, dateDebut"),
+    @Index(name = "idx_contrat_vehicule_etat_dates", columnList = "vehicule_id, etat, dateDebut, dateFin")
+})
 public class Contrat {
 
+    // Taille des blocs d'identifiants : une valeur v de la séquence réserve les identifiants v - 49 à v
+    // (optimiseur "pooled" d'Hibernate, repris par la génération massive)
+    public static final int ID_ALLOCATION = 50;
+
+    // Séquence (allocation par blocs) plutôt qu'IDENTITY : permet le batch JDBC des INSERT
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "contrat_seq")
+    @SequenceGenerator(name = "contrat_seq", sequenceName = "contrat_seq", allocationSize = ID_ALLOCATION)
     private Long id;
 
     @Column(nullable = false)
@@ -22,14 +41,31 @@ public class Contrat {
     @Enumerated(EnumType.STRING)
     private EtatContrat etat;
 
-    // Relation ManyToOne
-    @ManyToOne
+    // Relations ManyToOne chargées à la demande : les listes passent par la projection ContratView
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id", nullable = false)
+    @ToString.Exclude
     private Client client;
 
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "vehicule_id", nullable = false)
+    @ToString.Exclude
     private Vehicule vehicule;
     
     private Double prixTotal;
+
+    // Égalité par identifiant : un contrat non encore enregistré n'est égal qu'à lui-même
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        return o instanceof Contrat other && id != null && id.equals(other.getId());
+    }
+
+    // Constant pour une entité donnée, avant comme après l'attribution de l'identifiant
+    @Override
+    public int hashCode() {
+        return Contrat.class.hashCode();
+    }
 }
\ No newline at end of file
@@ -0,0 +1,28 @@
+package com.bfb.rental.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import java.time.LocalDate;
+
+@Entity
+@Data
+// Historique des pannes : sert au calcul des jours d'immobilisation dans les rapports (FleetRollups)
+@Table(indexes = {
+    @Index(name = "idx_panne_vehicule_fin", columnList = "vehiculeId, dateFin")
+})
+public class Panne {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // Simple colonne plutôt qu'une association : l'historique n'empêche pas de supprimer un véhicule
+    @Column(nullable = false)
+    private Long vehiculeId;
+
+    @Column(nullable = false)
+    private LocalDate dateDebut;
+
+    // Vide tant que le véhicule est en panne
+    private LocalDate dateFin;
+}
@@ -0,0 +1,26 @@
+package com.bfb.rental.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Entity
+@Data
+// Baux des tâches planifiées partagés entre instances (voir SchedulerLeases) : une ligne par partition,
+// plus une ligne de présence par instance vivante
+public class SchedulerLease {
+
+    @Id
+    @Column(length = 200)
+    private String nom;
+
+    // Instance qui détient le bail ; vide si jamais pris
+    private String proprietaire;
+
+    // Le bail est libre une fois cet instant passé
+    @Column(nullable = false)
+    private Instant expireLe;
+}
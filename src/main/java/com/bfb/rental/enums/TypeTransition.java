@@ -0,0 +1,35 @@
+package com.bfb.rental.enums;
+
+// Transitions enregistrées dans le journal (voir TransitionJournal) ; le code est celui écrit sur disque, il ne doit pas changer
+public enum TypeTransition {
+    CONTRAT_CREE(1),
+    CONTRAT_DEMARRE(2),
+    CONTRAT_EN_RETARD(3),
+    CONTRAT_ANNULE(4),
+    CONTRAT_TERMINE(5),
+    VEHICULE_EN_PANNE(6),
+    VEHICULE_REPARE(7);
+
+    private static final TypeTransition[] BY_CODE = new TypeTransition[8];
+
+    static {
+        for (TypeTransition type : values()) {
+            BY_CODE[type.code] = type;
+        }
+    }
+
+    private final byte code;
+
+    TypeTransition(int code) {
+        this.code = (byte) code;
+    }
+
+    public byte getCode() {
+        return code;
+    }
+
+    // null si le code est inconnu
+    public static TypeTransition fromCode(byte code) {
+        return code > 0 && code < BY_CODE.length ? BY_CODE[code] : null;
+    }
+}
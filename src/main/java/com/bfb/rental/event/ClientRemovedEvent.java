@@ -0,0 +1,15 @@
+package com.bfb.rental.event;
+
+import com.bfb.rental.dto.ClientIdentite;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class ClientRemovedEvent extends ApplicationEvent {
+    private final ClientIdentite client;
+
+    public ClientRemovedEvent(Object source, ClientIdentite client) {
+        super(source);
+        this.client = client;
+    }
+}
@@ -0,0 +1,35 @@
+package com.bfb.rental.event;
+
+import com.bfb.rental.dto.ClientIdentite;
+import com.bfb.rental.entity.Client;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Clients créés ou modifiés (formulaire, API, import, génération), publié dans la transaction d'écriture.
+ */
+@Getter
+public class ClientSavedEvent extends ApplicationEvent {
+    private final List<Client> clients;
+    private final boolean created;
+    // Modification d'un client : clés d'unicité lues avant la sauvegarde
+    private final ClientIdentite previous;
+
+    private ClientSavedEvent(Object source, Collection<Client> clients, boolean created, ClientIdentite previous) {
+        super(source);
+        this.clients = List.copyOf(clients);
+        this.created = created;
+        this.previous = previous;
+    }
+
+    public static ClientSavedEvent created(Object source, Collection<Client> clients) {
+        return new ClientSavedEvent(source, clients, true, null);
+    }
+
+    public static ClientSavedEvent updated(Object source, Client client, ClientIdentite previous) {
+        return new ClientSavedEvent(source, List.of(client), false, previous);
+    }
+}
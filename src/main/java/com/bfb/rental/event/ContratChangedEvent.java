@@ -0,0 +1,42 @@
+package com.bfb.rental.event;
+
+import com.bfb.rental.dto.ContratSnapshot;
+import com.bfb.rental.entity.Contrat;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Contrats créés, modifiés, changés d'état ou supprimés, publié dans la transaction d'écriture.
+ * Chaque changement porte l'état du contrat avant et après, capturé au moment de la publication.
+ */
+@Getter
+public class ContratChangedEvent extends ApplicationEvent {
+
+    // before null : contrat créé ; after null : contrat supprimé
+    public record Change(ContratSnapshot before, ContratSnapshot after) {
+    }
+
+    private final List<Change> changes;
+
+    public ContratChangedEvent(Object source, List<Change> changes) {
+        super(source);
+        this.changes = List.copyOf(changes);
+    }
+
+    public static ContratChangedEvent created(Object source, Collection<Contrat> contrats) {
+        return new ContratChangedEvent(source, contrats.stream()
+                .map(c -> new Change(null, ContratSnapshot.of(c)))
+                .toList());
+    }
+
+    public static ContratChangedEvent changed(Object source, ContratSnapshot before, Contrat after) {
+        return new ContratChangedEvent(source, List.of(new Change(before, ContratSnapshot.of(after))));
+    }
+
+    public static ContratChangedEvent removed(Object source, Contrat contrat) {
+        return new ContratChangedEvent(source, List.of(new Change(ContratSnapshot.of(contrat), null)));
+    }
+}
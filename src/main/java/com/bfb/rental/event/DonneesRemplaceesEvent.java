@@ -0,0 +1,14 @@
+package com.bfb.rental.event;
+
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * Tables remplacées en bloc sans passer par les chemins d'écriture (réinitialisation, génération massive) :
+ * les structures en mémoire se reconstruisent à partir de la base, comme au démarrage.
+ */
+public class DonneesRemplaceesEvent extends ApplicationEvent {
+
+    public DonneesRemplaceesEvent(Object source) {
+        super(source);
+    }
+}
@@ -0,0 +1,25 @@
+package com.bfb.rental.event;
+
+import com.bfb.rental.enums.EtatVehicule;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.List;
+
+/**
+ * Changement d'état lié au cycle de location (départ, restitution), sans autre attribut modifié.
+ * Le passage EN_PANNE a son propre événement (VehiculePanneEvent).
+ */
+@Getter
+public class VehiculeEtatChangedEvent extends ApplicationEvent {
+    private final List<Long> vehiculeIds;
+    private final EtatVehicule from;
+    private final EtatVehicule to;
+
+    public VehiculeEtatChangedEvent(Object source, List<Long> vehiculeIds, EtatVehicule from, EtatVehicule to) {
+        super(source);
+        this.vehiculeIds = List.copyOf(vehiculeIds);
+        this.from = from;
+        this.to = to;
+    }
+}
@@ -1,14 +1,25 @@
 package com.bfb.rental.event;
 
+import com.bfb.rental.enums.EtatVehicule;
 import lombok.Getter;
 import org.springframework.context.ApplicationEvent;
 
+import java.util.List;
+
 @Getter
 public class VehiculePanneEvent extends ApplicationEvent {
-    private final Long vehiculeId;
+    // Un ou plusieurs véhicules (déclaration de pannes par lot)
+    private final List<Long> vehiculeIds;
+    // Parmi eux, ceux qui étaient EN_LOCATION (compteurs du tableau de bord)
+    private final int enLocation;
+
+    public VehiculePanneEvent(Object source, Long vehiculeId, EtatVehicule previousEtat) {
+        this(source, List.of(vehiculeId), previousEtat == EtatVehicule.EN_LOCATION ? 1 : 0);
+    }
 
-    public VehiculePanneEvent(Object source, Long vehiculeId) {
+    public VehiculePanneEvent(Object source, List<Long> vehiculeIds, int enLocation) {
         super(source);
-        this.vehiculeId = vehiculeId;
+        this.vehiculeIds = List.copyOf(vehiculeIds);
+        this.enLocation = enLocation;
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,21 @@
+package com.bfb.rental.event;
+
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatVehicule;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+@Getter
+public class VehiculeRemovedEvent extends ApplicationEvent {
+    // Ce que les structures en mémoire doivent retirer : la ligne n'existe plus après commit
+    private final Long vehiculeId;
+    private final String immatriculation;
+    private final EtatVehicule etat;
+
+    public VehiculeRemovedEvent(Object source, Vehicule vehicule) {
+        super(source);
+        this.vehiculeId = vehicule.getId();
+        this.immatriculation = vehicule.getImmatriculation();
+        this.etat = vehicule.getEtat();
+    }
+}
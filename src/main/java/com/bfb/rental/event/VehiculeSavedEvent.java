@@ -0,0 +1,39 @@
+package com.bfb.rental.event;
+
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatVehicule;
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Véhicules créés ou modifiés (formulaire, API, import, génération), publié dans la transaction d'écriture.
+ * Les structures en mémoire (index, compteurs, tarifs, ETags) s'y abonnent après commit.
+ */
+@Getter
+public class VehiculeSavedEvent extends ApplicationEvent {
+    private final List<Vehicule> vehicules;
+    private final boolean created;
+    // Modification d'un véhicule : état et immatriculation lus avant la sauvegarde
+    private final EtatVehicule previousEtat;
+    private final String previousImmatriculation;
+
+    private VehiculeSavedEvent(Object source, Collection<Vehicule> vehicules, boolean created,
+                               EtatVehicule previousEtat, String previousImmatriculation) {
+        super(source);
+        this.vehicules = List.copyOf(vehicules);
+        this.created = created;
+        this.previousEtat = previousEtat;
+        this.previousImmatriculation = previousImmatriculation;
+    }
+
+    public static VehiculeSavedEvent created(Object source, Collection<Vehicule> vehicules) {
+        return new VehiculeSavedEvent(source, vehicules, true, null, null);
+    }
+
+    public static VehiculeSavedEvent updated(Object source, Vehicule vehicule, EtatVehicule previousEtat, String previousImmatriculation) {
+        return new VehiculeSavedEvent(source, List.of(vehicule), false, previousEtat, previousImmatriculation);
+    }
+}
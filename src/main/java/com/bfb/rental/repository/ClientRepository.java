@@ -1,9 +1,19 @@
 package com.bfb.rental.repository;
 
+import com.bfb.rental.dto.ClientIdentite;
 import com.bfb.rental.entity.Client;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
 import java.time.LocalDate;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ClientRepository extends JpaRepository<Client, Long> {
 
@@ -11,5 +21,26 @@ public interface ClientRepository extends JpaRepository<Client, Long> {
     boolean existsByNumPermis(String numPermis);
     boolean existsByNomAndPrenomAndDateNaissance(String nom, String prenom, LocalDate dateNaissance);
 
-    
+    // Import CSV, filtres d'unicité et index de recherche : chargés en une requête
+    @Query("SELECT new com.bfb.rental.dto.ClientIdentite(c.id, c.numPermis, c.nom, c.prenom, c.dateNaissance) FROM Client c")
+    List<ClientIdentite> findAllIdentites();
+
+    // Tirage d'un client au hasard sans tout charger : bornes des ID, puis premier ID >= valeur tirée
+    @Query("SELECT MIN(c.id) FROM Client c")
+    Long findMinId();
+
+    @Query("SELECT MAX(c.id) FROM Client c")
+    Long findMaxId();
+
+    @Query("SELECT c.id FROM Client c WHERE c.id >= :fromId ORDER BY c.id")
+    List<Long> findIdsFrom(@Param("fromId") Long fromId, Limit limit);
+
+    // Pagination par curseur (keyset) : les clients dont l'ID est strictement supérieur au curseur
+    @Query("SELECT c FROM Client c WHERE c.id > :afterId ORDER BY c.id")
+    List<Client> findPage(@Param("afterId") Long afterId, Limit limit);
+
+    // Lecture en flux (curseur JDBC), doit être appelée dans une transaction
+    @Query("SELECT c FROM Client c ORDER BY c.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Client> streamAll();
 }
\ No newline at end of file
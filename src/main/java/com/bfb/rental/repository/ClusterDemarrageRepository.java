@@ -0,0 +1,28 @@
+package com.bfb.rental.repository;
+
+import com.bfb.rental.entity.ClusterDemarrage;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface ClusterDemarrageRepository extends JpaRepository<ClusterDemarrage, Long> {
+
+    // Une ligne par contrat du lot, en une seule requête
+    @Modifying
+    @Query("INSERT INTO ClusterDemarrage (contratId, lot, noeud, dateEcriture) " +
+           "SELECT c.id, :lot, :noeud, :date FROM Contrat c WHERE c.id IN :ids")
+    int record(@Param("ids") Collection<Long> contratIds, @Param("lot") long lot,
+               @Param("noeud") String noeud, @Param("date") Instant date);
+
+    List<ClusterDemarrage> findByLotGreaterThanOrderByLot(long lot);
+
+    // Purge des lignes que toutes les instances ont eu le temps de relire
+    @Modifying
+    @Query("DELETE FROM ClusterDemarrage d WHERE d.dateEcriture < :before")
+    int deleteBefore(@Param("before") Instant before);
+}
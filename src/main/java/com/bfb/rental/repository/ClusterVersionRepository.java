@@ -0,0 +1,23 @@
+package com.bfb.rental.repository;
+
+import com.bfb.rental.entity.ClusterVersion;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+public interface ClusterVersionRepository extends JpaRepository<ClusterVersion, String> {
+
+    // Création du compteur à zéro ; échoue (clé dupliquée) si une autre instance l'a déjà créé
+    @Modifying
+    @Query("INSERT INTO ClusterVersion (nom, valeur) VALUES (:nom, 0)")
+    int create(@Param("nom") String nom);
+
+    // La ligne reste verrouillée jusqu'au commit : les lots sont numérotés dans l'ordre où ils deviennent visibles
+    @Modifying
+    @Query("UPDATE ClusterVersion v SET v.valeur = v.valeur + 1 WHERE v.nom = :nom")
+    int increment(@Param("nom") String nom);
+
+    @Query("SELECT v.valeur FROM ClusterVersion v WHERE v.nom = :nom")
+    Long findValeur(@Param("nom") String nom);
+}
@@ -1,16 +1,32 @@
 package com.bfb.rental.repository;
 
+import com.bfb.rental.dto.ContratCompact;
+import com.bfb.rental.dto.ContratRollup;
+import com.bfb.rental.dto.ContratView;
+import com.bfb.rental.dto.ReservationSlot;
 import com.bfb.rental.entity.Contrat;
 import com.bfb.rental.enums.EtatContrat;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface ContratRepository extends JpaRepository<Contrat, Long> {
     
+    // Formulaire de modification : le client et le véhicule (libellés affichés) chargés dans la même requête
+    @Query("SELECT c FROM Contrat c JOIN FETCH c.client JOIN FETCH c.vehicule WHERE c.id = :id")
+    Optional<Contrat> findWithClientAndVehiculeById(@Param("id") Long id);
+
     // Rechercher s'il existe des contrats en conflit pour un véhicule dans une période donnée
     // Il y a chevauchement si (DébutA <= FinB) et (FinA >= DébutB)
     @Query("SELECT c FROM Contrat c WHERE c.vehicule.id = :vehiculeId " +
@@ -25,4 +41,98 @@ public interface ContratRepository extends JpaRepository<Contrat, Long> {
     // Utilisé pour la fonctionnalité : 
     // lorsque le véhicule est en panne, trouver tous les contrats "EN_ATTENTE" pour ce véhicule, prêts à être annulés
     List<Contrat> findByVehiculeIdAndEtat(Long vehiculeId, EtatContrat etat);
-}
\ No newline at end of file
+
+    // Version ensembliste pour les pannes : les contrats concernés (pour l'index et le journal), puis une seule requête UPDATE
+    @Query("SELECT new com.bfb.rental.dto.ReservationSlot(c.id, c.vehicule.id, c.dateDebut, c.dateFin) " +
+           "FROM Contrat c WHERE c.vehicule.id IN :vehiculeIds AND c.etat = 'EN_ATTENTE'")
+    List<ReservationSlot> findPendingSlotsByVehiculeIds(@Param("vehiculeIds") Collection<Long> vehiculeIds);
+
+    @Modifying
+    @Query("UPDATE Contrat c SET c.etat = com.bfb.rental.enums.EtatContrat.ANNULE " +
+           "WHERE c.vehicule.id IN :vehiculeIds AND c.etat = com.bfb.rental.enums.EtatContrat.EN_ATTENTE")
+    int cancelPendingByVehiculeIds(@Param("vehiculeIds") Collection<Long> vehiculeIds);
+
+    // Utilisé par la tâche planifiée : uniquement les contrats EN_ATTENTE dont la date de début est atteinte,
+    // par lots (pagination par ID), avec le véhicule chargé dans la même requête,
+    // limités à une partition de véhicules (ID modulo partitions) quand plusieurs instances se partagent la tâche
+    @Query("SELECT c FROM Contrat c JOIN FETCH c.vehicule WHERE c.etat = 'EN_ATTENTE' " +
+           "AND c.dateDebut <= :today AND c.id > :afterId " +
+           "AND (:partitions = 1 OR MOD(c.vehicule.id, :partitions) = :partition) ORDER BY c.id")
+    List<Contrat> findDueContrats(@Param("today") LocalDate today, @Param("afterId") Long afterId,
+                                  @Param("partitions") int partitions, @Param("partition") int partition, Limit limit);
+
+    // Utilisé pour reconstruire l'index des réservations au démarrage, sans charger les entités complètes
+    @Query("SELECT new com.bfb.rental.dto.ReservationSlot(c.id, c.vehicule.id, c.dateDebut, c.dateFin) " +
+           "FROM Contrat c WHERE c.etat IN ('EN_ATTENTE', 'EN_COURS')")
+    List<ReservationSlot> findActiveReservationSlots();
+
+    // Reconstruction des rapports de flotte au démarrage : contrats démarrés, en flux (dans une transaction)
+    @Query("SELECT new com.bfb.rental.dto.ContratRollup(c.vehicule.id, c.dateDebut, c.dateFin, c.prixTotal) " +
+           "FROM Contrat c WHERE c.etat IN ('EN_COURS', 'EN_RETARD', 'TERMINE')")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ContratRollup> streamRollups();
+
+    // Utilisés pour la réconciliation des compteurs du tableau de bord
+    long countByEtat(EtatContrat etat);
+
+    @Query("SELECT COALESCE(SUM(c.prixTotal), 0) FROM Contrat c")
+    Double sumPrixTotal();
+
+    // Projection commune aux listes : colonnes affichées du contrat, du client et du véhicule, en une requête
+    String VIEW = "SELECT new com.bfb.rental.dto.ContratView(c.id, c.dateDebut, c.dateFin, c.etat, c.prixTotal, " +
+                  "cl.id, cl.nom, cl.prenom, v.id, v.marque, v.modele, v.immatriculation) " +
+                  "FROM Contrat c JOIN c.client cl JOIN c.vehicule v ";
+
+    // Pagination par curseur (keyset) pour l'API, filtres optionnels :
+    // état, véhicule, et période (contrats qui chevauchent [debut, fin])
+    @Query(VIEW +
+           "WHERE c.id > :afterId " +
+           "AND (:etat IS NULL OR c.etat = :etat) " +
+           "AND (:vehiculeId IS NULL OR v.id = :vehiculeId) " +
+           "AND (:debut IS NULL OR c.dateFin >= :debut) " +
+           "AND (:fin IS NULL OR c.dateDebut <= :fin) " +
+           "ORDER BY c.id")
+    List<ContratView> findViewPage(@Param("afterId") Long afterId,
+                                   @Param("etat") EtatContrat etat,
+                                   @Param("vehiculeId") Long vehiculeId,
+                                   @Param("debut") LocalDate debut,
+                                   @Param("fin") LocalDate fin,
+                                   Limit limit);
+
+    // Même page en représentation à plat : les ID du client et du véhicule, sans jointure
+    @Query("SELECT new com.bfb.rental.dto.ContratCompact(c.id, c.dateDebut, c.dateFin, c.etat, c.prixTotal, " +
+           "c.client.id, c.vehicule.id) FROM Contrat c " +
+           "WHERE c.id > :afterId " +
+           "AND (:etat IS NULL OR c.etat = :etat) " +
+           "AND (:vehiculeId IS NULL OR c.vehicule.id = :vehiculeId) " +
+           "AND (:debut IS NULL OR c.dateFin >= :debut) " +
+           "AND (:fin IS NULL OR c.dateDebut <= :fin) " +
+           "ORDER BY c.id")
+    List<ContratCompact> findCompactPage(@Param("afterId") Long afterId,
+                                         @Param("etat") EtatContrat etat,
+                                         @Param("vehiculeId") Long vehiculeId,
+                                         @Param("debut") LocalDate debut,
+                                         @Param("fin") LocalDate fin,
+                                         Limit limit);
+
+    // Même filtre, en flux (curseur JDBC), doit être appelée dans une transaction
+    @Query(VIEW +
+           "WHERE (:etat IS NULL OR c.etat = :etat) " +
+           "AND (:vehiculeId IS NULL OR v.id = :vehiculeId) " +
+           "AND (:debut IS NULL OR c.dateFin >= :debut) " +
+           "AND (:fin IS NULL OR c.dateDebut <= :fin) " +
+           "ORDER BY c.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<ContratView> streamViews(@Param("etat") EtatContrat etat,
+                                    @Param("vehiculeId") Long vehiculeId,
+                                    @Param("debut") LocalDate debut,
+                                    @Param("fin") LocalDate fin);
+
+    // Page /ui/contrats
+    @Query(VIEW + "ORDER BY c.id")
+    List<ContratView> findAllViews();
+
+    // Détail GET /api/contrats/{id}
+    @Query(VIEW + "WHERE c.id = :id")
+    Optional<ContratView> findViewById(@Param("id") Long id);
+}
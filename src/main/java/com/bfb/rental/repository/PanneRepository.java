@@ -0,0 +1,24 @@
+package com.bfb.rental.repository;
+
+import com.bfb.rental.entity.Panne;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDate;
+import java.util.Collection;
+
+public interface PanneRepository extends JpaRepository<Panne, Long> {
+
+    // Ouvre une panne pour chaque véhicule qui n'est pas déjà EN_PANNE (à exécuter avant le passage EN_PANNE)
+    @Modifying
+    @Query("INSERT INTO Panne (vehiculeId, dateDebut) SELECT v.id, :today FROM Vehicule v " +
+           "WHERE v.id IN :ids AND v.etat <> com.bfb.rental.enums.EtatVehicule.EN_PANNE")
+    int openForVehicules(@Param("ids") Collection<Long> ids, @Param("today") LocalDate today);
+
+    // Clôt la panne en cours d'un véhicule réparé
+    @Modifying
+    @Query("UPDATE Panne p SET p.dateFin = :today WHERE p.vehiculeId = :vehiculeId AND p.dateFin IS NULL")
+    int close(@Param("vehiculeId") Long vehiculeId, @Param("today") LocalDate today);
+}
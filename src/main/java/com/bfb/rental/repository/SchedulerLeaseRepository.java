@@ -0,0 +1,46 @@
+package com.bfb.rental.repository;
+
+import com.bfb.rental.entity.SchedulerLease;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SchedulerLeaseRepository extends JpaRepository<SchedulerLease, String> {
+
+    // Création d'un bail libre ; échoue (clé dupliquée) si une autre instance l'a déjà créé
+    @Modifying
+    @Query("INSERT INTO SchedulerLease (nom, proprietaire, expireLe) VALUES (:nom, NULL, :expireLe)")
+    int create(@Param("nom") String nom, @Param("expireLe") Instant expireLe);
+
+    // Prise ou renouvellement, en une requête : réussit (1 ligne) si le bail est à nous ou expiré.
+    // La ligne reste verrouillée jusqu'au commit : deux instances ne peuvent pas prendre le même bail
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.proprietaire = :proprietaire, l.expireLe = :expireLe " +
+           "WHERE l.nom = :nom AND (l.proprietaire = :proprietaire OR l.expireLe < :now)")
+    int acquire(@Param("nom") String nom, @Param("proprietaire") String proprietaire,
+                @Param("now") Instant now, @Param("expireLe") Instant expireLe);
+
+    // Prolongation d'un bail encore valide uniquement : un bail expiré a pu être repris entre-temps
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.expireLe = :expireLe " +
+           "WHERE l.nom = :nom AND l.proprietaire = :proprietaire AND l.expireLe >= :now")
+    int extend(@Param("nom") String nom, @Param("proprietaire") String proprietaire,
+               @Param("now") Instant now, @Param("expireLe") Instant expireLe);
+
+    @Modifying
+    @Query("UPDATE SchedulerLease l SET l.expireLe = :expireLe WHERE l.nom = :nom AND l.proprietaire = :proprietaire")
+    int release(@Param("nom") String nom, @Param("proprietaire") String proprietaire, @Param("expireLe") Instant expireLe);
+
+    // Instances vivantes : propriétaires d'une ligne de présence non expirée
+    @Query("SELECT DISTINCT l.proprietaire FROM SchedulerLease l WHERE l.nom LIKE :prefix AND l.expireLe >= :now")
+    List<String> findLiveOwners(@Param("prefix") String prefix, @Param("now") Instant now);
+
+    // Nettoyage des lignes de présence des instances arrêtées depuis longtemps
+    @Modifying
+    @Query("DELETE FROM SchedulerLease l WHERE l.nom LIKE :prefix AND l.expireLe < :before")
+    int deleteExpired(@Param("prefix") String prefix, @Param("before") Instant before);
+}
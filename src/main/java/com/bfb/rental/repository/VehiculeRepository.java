@@ -1,8 +1,83 @@
 package com.bfb.rental.repository;
 
+import com.bfb.rental.dto.VehiculeLibelle;
+import com.bfb.rental.dto.VehiculeProfile;
+import com.bfb.rental.dto.VehiculeTarif;
 import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatVehicule;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
 
 public interface VehiculeRepository extends JpaRepository<Vehicule, Long> {
     boolean existsByImmatriculation(String immatriculation);
+
+    // Import CSV : contrôle d'unicité en mémoire, en une requête
+    @Query("SELECT v.immatriculation FROM Vehicule v")
+    List<String> findAllImmatriculations();
+
+    // Utilisé pour construire l'index de recherche au démarrage
+    @Query("SELECT new com.bfb.rental.dto.VehiculeLibelle(v.id, v.immatriculation, v.marque, v.modele) FROM Vehicule v")
+    List<VehiculeLibelle> findAllLibelles();
+
+    // Utilisé pour la réconciliation des compteurs du tableau de bord
+    long countByEtat(EtatVehicule etat);
+
+    // Utilisé pour construire l'index d'occupation au démarrage, sans charger les entités complètes
+    @Query("SELECT new com.bfb.rental.dto.VehiculeProfile(v.id, v.marque, v.motorisation, v.etat) FROM Vehicule v")
+    List<VehiculeProfile> findAllProfiles();
+
+    // Véhicules couverts par un rapport de flotte, filtres optionnels (marque et motorisation insensibles à la casse)
+    @Query("SELECT new com.bfb.rental.dto.VehiculeProfile(v.id, v.marque, v.motorisation, v.etat) FROM Vehicule v " +
+           "WHERE (:id IS NULL OR v.id = :id) " +
+           "AND (:marque IS NULL OR LOWER(v.marque) = LOWER(:marque)) " +
+           "AND (:motorisation IS NULL OR LOWER(v.motorisation) = LOWER(:motorisation)) " +
+           "ORDER BY v.id")
+    List<VehiculeProfile> findProfiles(@Param("id") Long id,
+                                       @Param("marque") String marque,
+                                       @Param("motorisation") String motorisation);
+
+    // Utilisé pour construire les tarifs du moteur de prix au démarrage
+    @Query("SELECT new com.bfb.rental.dto.VehiculeTarif(v.id, v.motorisation, v.prixJournee) FROM Vehicule v")
+    List<VehiculeTarif> findAllTarifs();
+
+    // Déclaration de pannes par lot
+    long countByIdInAndEtat(Collection<Long> ids, EtatVehicule etat);
+
+    @Query("SELECT v.id FROM Vehicule v WHERE v.id IN :ids AND v.etat <> com.bfb.rental.enums.EtatVehicule.EN_PANNE")
+    List<Long> findIdsNotEnPanne(@Param("ids") Collection<Long> ids);
+
+    @Modifying
+    @Query("UPDATE Vehicule v SET v.etat = com.bfb.rental.enums.EtatVehicule.EN_PANNE " +
+           "WHERE v.id IN :ids AND v.etat <> com.bfb.rental.enums.EtatVehicule.EN_PANNE")
+    int markEnPanne(@Param("ids") Collection<Long> ids);
+
+    // Tirage d'un véhicule au hasard sans tout charger : bornes des ID, puis premier ID >= valeur tirée
+    @Query("SELECT MIN(v.id) FROM Vehicule v")
+    Long findMinId();
+
+    @Query("SELECT MAX(v.id) FROM Vehicule v")
+    Long findMaxId();
+
+    @Query("SELECT v.id FROM Vehicule v WHERE v.id >= :fromId ORDER BY v.id")
+    List<Long> findIdsFrom(@Param("fromId") Long fromId, Limit limit);
+
+    // Pagination par curseur (keyset) avec filtre optionnel sur l'état
+    @Query("SELECT v FROM Vehicule v WHERE v.id > :afterId " +
+           "AND (:etat IS NULL OR v.etat = :etat) ORDER BY v.id")
+    List<Vehicule> findPage(@Param("afterId") Long afterId, @Param("etat") EtatVehicule etat, Limit limit);
+
+    // Lecture en flux (curseur JDBC), doit être appelée dans une transaction
+    @Query("SELECT v FROM Vehicule v WHERE (:etat IS NULL OR v.etat = :etat) ORDER BY v.id")
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    Stream<Vehicule> streamAll(@Param("etat") EtatVehicule etat);
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package com.bfb.rental.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Verrous striés par véhicule pour le chemin de réservation.
+ * Deux réservations du même véhicule sont sérialisées (vérification du conflit + insertion + commit),
+ * alors que des réservations de véhicules différents tombent en général sur des verrous différents
+ * et avancent en parallèle. Le nombre de verrous est fixe, quelle que soit la taille de la flotte.
+ */
+@Component
+public class BookingLocks {
+
+    private final ReentrantLock[] stripes;
+    private final long timeoutMillis;
+    private final int maxAttempts;
+
+    public BookingLocks(@Value("${rental.booking.lock-stripes:256}") int stripeCount,
+                        @Value("${rental.booking.lock-timeout-ms:200}") long timeoutMillis,
+                        @Value("${rental.booking.lock-attempts:5}") int maxAttempts) {
+        // Arrondi à la puissance de deux supérieure pour un calcul d'index par masque
+        int size = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        this.timeoutMillis = timeoutMillis;
+        this.maxAttempts = maxAttempts;
+    }
+
+    /**
+     * Exécute l'action en tenant le verrou du véhicule.
+     * L'acquisition est retentée un nombre borné de fois ; au-delà, la réservation est refusée
+     * plutôt que de laisser les requêtes s'accumuler derrière un véhicule très demandé.
+     */
+    public <T> T withVehiculeLock(Long vehiculeId, Supplier<T> action) {
+        return withVehiculeLocks(List.of(vehiculeId), action);
+    }
+
+    /**
+     * Même chose pour plusieurs véhicules (réservation par lot).
+     * Les verrous sont toujours pris dans l'ordre croissant de leur index, ce qui exclut
+     * tout interblocage entre deux lots ; en cas d'échec, tout est relâché avant de réessayer.
+     */
+    public <T> T withVehiculeLocks(Collection<Long> vehiculeIds, Supplier<T> action) {
+        int[] indexes = vehiculeIds.stream().mapToInt(this::indexFor).distinct().sorted().toArray();
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            int acquired = 0;
+            try {
+                while (acquired < indexes.length
+                        && stripes[indexes[acquired]].tryLock(timeoutMillis, TimeUnit.MILLISECONDS)) {
+                    acquired++;
+                }
+            } catch (InterruptedException e) {
+                unlock(indexes, acquired);
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Réservation interrompue", e);
+            }
+            if (acquired == indexes.length) {
+                try {
+                    return action.get();
+                } finally {
+                    unlock(indexes, acquired);
+                }
+            }
+            unlock(indexes, acquired);
+        }
+        throw new IllegalStateException("Ce véhicule fait l'objet de trop de réservations simultanées, veuillez réessayer");
+    }
+
+    private void unlock(int[] indexes, int count) {
+        for (int i = count - 1; i >= 0; i--) {
+            stripes[indexes[i]].unlock();
+        }
+    }
+
+    private int indexFor(Long vehiculeId) {
+        // Mélange des bits pour que des ID consécutifs ne tombent pas sur des verrous voisins
+        int h = Long.hashCode(vehiculeId);
+        h ^= (h >>> 16);
+        h *= 0x85ebca6b;
+        h ^= (h >>> 13);
+        return h & (stripes.length - 1);
+    }
+}
@@ -0,0 +1,369 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.BulkGenerationReport;
+import com.bfb.rental.dto.BulkGenerationRequest;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Génération massive de données pour les tests de charge et de capacité.
+ *
+ * Les lignes sont écrites par JDBC batch, en parallèle, chaque lot dans sa propre transaction.
+ * Chaque lot (et, pour les contrats, chaque véhicule) a son propre générateur aléatoire dérivé de la graine :
+ * à graine égale, le jeu de données est le même quel que soit le nombre de threads.
+ *
+ * Les contrats d'un véhicule forment une chronologie sans chevauchement autour d'aujourd'hui :
+ * passé TERMINE (10 % ANNULE), une location EN_COURS pour 70 % des véhicules (dont 5 % EN_RETARD),
+ * futur EN_ATTENTE. Les véhicules sont EN_PANNE à 3 % (leurs réservations futures sont alors ANNULE),
+ * EN_LOCATION s'ils ont une location en cours, DISPONIBLE sinon.
+ *
+ * Les identifiants des contrats sont pris dans la séquence par blocs, comme le fait Hibernate : ils ne
+ * peuvent pas entrer en collision avec ceux des contrats créés ensuite par ContratService.
+ *
+ * Les index en mémoire et les compteurs du tableau de bord sont reconstruits à la fin.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class BulkDataGeneratorService {
+
+    private static final String[] NOMS = {"Dupont", "Martin", "Durand", "Lefebvre", "Moreau", "Dubois", "Garcia"};
+    private static final String[] PRENOMS = {"Jean", "Paul", "Marie", "Sophie", "Pierre", "Thomas", "Lucas"};
+    private static final String[] MARQUES = {"Peugeot", "Renault", "Citroen", "Toyota", "Tesla", "BMW"};
+    private static final String[] MODELES = {"208", "Clio", "C3", "Yaris", "Model 3", "Serie 1"};
+    private static final String[] COULEURS = {"Blanc", "Noir", "Gris", "Bleu", "Rouge"};
+    private static final String[] MOTEURS = {"Essence", "Diesel", "Electrique", "Hybride"};
+
+    private static final String INSERT_VEHICULE = "INSERT INTO vehicule " +
+            "(marque, modele, couleur, motorisation, immatriculation, date_acquisition, etat, prix_journee) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CLIENT = "INSERT INTO client " +
+            "(nom, prenom, date_naissance, num_permis, adresse) VALUES (?, ?, ?, ?, ?)";
+    private static final String INSERT_CONTRAT = "INSERT INTO contrat " +
+            "(id, date_debut, date_fin, etat, client_id, vehicule_id, prix_total) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?)";
+    // Une valeur de séquence par bloc de Contrat.ID_ALLOCATION identifiants, en une seule requête
+    private static final String NEXT_CONTRAT_BLOCKS = "SELECT NEXT VALUE FOR contrat_seq FROM SYSTEM_RANGE(1, ?)";
+
+    private static final int PHASE_VEHICULES = 1;
+    private static final int PHASE_CLIENTS = 2;
+    private static final int PHASE_CONTRATS = 3;
+
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityManagerFactory entityManagerFactory;
+    private final PlatformTransactionManager transactionManager;
+    private final ContratService contratService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${rental.generator.bulk.batch-size:5000}")
+    private int batchSize;
+
+    @Value("${rental.generator.bulk.threads:4}")
+    private int defaultThreads;
+
+    @Value("${rental.generator.bulk.max-threads:8}")
+    private int maxThreads;
+
+    public BulkGenerationReport generate(BulkGenerationRequest request) {
+        if (request.getVehicules() < 0 || request.getClients() < 0 || request.getContrats() < 0) {
+            throw new IllegalArgumentException("Les volumes demandés ne peuvent pas être négatifs");
+        }
+        if (request.getContrats() > 0 && (request.getVehicules() == 0 || request.getClients() == 0)) {
+            throw new IllegalArgumentException("Des véhicules et des clients sont nécessaires pour générer des contrats");
+        }
+        if (request.getThreads() < 0 || request.getThreads() > maxThreads) {
+            throw new IllegalArgumentException("Nombre de threads limité à " + maxThreads);
+        }
+        int threads = request.getThreads() == 0 ? defaultThreads : request.getThreads();
+        // Préfixe propre à cette génération : garantit l'unicité des immatriculations et des permis
+        String prefix = "GEN-" + Long.toString(System.currentTimeMillis(), 36).toUpperCase(Locale.ROOT) + "-";
+
+        List<BulkGenerationReport.Phase> phases = new ArrayList<>();
+        long start = System.nanoTime();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            phases.add(timed("vehicule", request.getVehicules(), () -> insertVehicules(pool, request, prefix)));
+            phases.add(timed("client", request.getClients(), () -> insertClients(pool, request, prefix)));
+            if (request.getContrats() > 0) {
+                phases.add(timed("contrat", request.getContrats(), () -> insertContrats(pool, request, prefix)));
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        // Historique : les véhicules générés EN_PANNE le sont depuis aujourd'hui
+        jdbcTemplate.update("INSERT INTO panne (vehicule_id, date_debut) SELECT id, ? FROM vehicule " +
+                "WHERE immatriculation LIKE ? AND etat = 'EN_PANNE'", Date.valueOf(LocalDate.now()), prefix + "%");
+
+        // Mêmes reconstructions qu'au démarrage : les lignes ont été écrites sans passer par les services
+        eventPublisher.publishEvent(new DonneesRemplaceesEvent(this));
+
+        long totalMs = (System.nanoTime() - start) / 1_000_000;
+        long totalLignes = (long) request.getVehicules() + request.getClients() + request.getContrats();
+        BulkGenerationReport report = new BulkGenerationReport(request.getSeed(), threads, phases,
+                totalLignes, totalMs, BulkGenerationReport.rate(totalLignes, totalMs));
+        log.info("Génération massive : {} ligne(s) en {} ms ({} lignes/s)",
+                totalLignes, totalMs, Math.round(report.lignesParSeconde()));
+        return report;
+    }
+
+    private BulkGenerationReport.Phase timed(String table, long lignes, Runnable phase) {
+        long start = System.nanoTime();
+        phase.run();
+        long ms = (System.nanoTime() - start) / 1_000_000;
+        return new BulkGenerationReport.Phase(table, lignes, ms, BulkGenerationReport.rate(lignes, ms));
+    }
+
+    // ================= Véhicules et clients : un lot = une tranche d'indices =================
+
+    private void insertVehicules(ExecutorService pool, BulkGenerationRequest request, String prefix) {
+        LocalDate today = LocalDate.now();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int from = 0; from < request.getVehicules(); from += batchSize) {
+            int first = from;
+            int last = Math.min(request.getVehicules(), from + batchSize);
+            tasks.add(() -> {
+                SplittableRandom rnd = random(request.getSeed(), PHASE_VEHICULES, first);
+                List<Object[]> rows = new ArrayList<>(last - first);
+                for (int i = first; i < last; i++) {
+                    EtatVehicule etat = rnd.nextInt(100) < 3 ? EtatVehicule.EN_PANNE : EtatVehicule.DISPONIBLE;
+                    rows.add(new Object[]{
+                            pick(rnd, MARQUES), pick(rnd, MODELES), pick(rnd, COULEURS), pick(rnd, MOTEURS),
+                            prefix + i, Date.valueOf(today.minusDays(rnd.nextInt(1000))), etat.name(),
+                            30.0 + rnd.nextInt(120)});
+                }
+                writeBatch(INSERT_VEHICULE, rows);
+            });
+        }
+        runAll(pool, tasks);
+    }
+
+    private void insertClients(ExecutorService pool, BulkGenerationRequest request, String prefix) {
+        String generation = prefix.substring("GEN-".length());
+        List<Runnable> tasks = new ArrayList<>();
+        for (int from = 0; from < request.getClients(); from += batchSize) {
+            int first = from;
+            int last = Math.min(request.getClients(), from + batchSize);
+            tasks.add(() -> {
+                SplittableRandom rnd = random(request.getSeed(), PHASE_CLIENTS, first);
+                List<Object[]> rows = new ArrayList<>(last - first);
+                for (int i = first; i < last; i++) {
+                    // Le suffixe du nom (génération, indice) garantit l'unicité (nom, prénom, date de naissance)
+                    // à grande échelle, y compris d'une génération à l'autre avec la même graine
+                    rows.add(new Object[]{
+                            pick(rnd, NOMS) + "-" + generation + Integer.toString(i, 36).toUpperCase(Locale.ROOT), pick(rnd, PRENOMS),
+                            Date.valueOf(LocalDate.of(1950 + rnd.nextInt(55), 1 + rnd.nextInt(12), 1 + rnd.nextInt(28))),
+                            prefix + i, "Rue de Paris " + rnd.nextInt(100)});
+                }
+                writeBatch(INSERT_CLIENT, rows);
+            });
+        }
+        runAll(pool, tasks);
+    }
+
+    // ================= Contrats : un lot = une tranche de véhicules =================
+
+    private void insertContrats(ExecutorService pool, BulkGenerationRequest request, String prefix) {
+        GeneratedVehicules vehicules = loadVehicules(prefix, request.getVehicules());
+        long[] clientIds = new long[request.getClients()];
+        int[] n = {0};
+        jdbcTemplate.query("SELECT id FROM client WHERE num_permis LIKE ? ORDER BY id",
+                rs -> { clientIds[n[0]++] = rs.getLong(1); }, prefix + "%");
+
+        int count = vehicules.ids().length;
+        int perVehicule = request.getContrats() / count;
+        int remainder = request.getContrats() % count;
+        int vehiculesPerTask = Math.max(1, batchSize / Math.max(1, perVehicule + 1));
+        LocalDate today = LocalDate.now();
+
+        List<Runnable> tasks = new ArrayList<>();
+        for (int from = 0; from < count; from += vehiculesPerTask) {
+            int first = from;
+            int last = Math.min(count, from + vehiculesPerTask);
+            tasks.add(() -> {
+                List<Object[]> rows = new ArrayList<>();
+                for (int v = first; v < last; v++) {
+                    int contrats = perVehicule + (v < remainder ? 1 : 0);
+                    SplittableRandom rnd = random(request.getSeed(), PHASE_CONTRATS, v);
+                    timeline(vehicules, v, contrats, clientIds, rnd, today, rows);
+                    if (rows.size() >= batchSize) {
+                        writeContrats(rows);
+                        rows.clear();
+                    }
+                }
+                writeContrats(rows);
+            });
+        }
+        runAll(pool, tasks);
+
+        // Un seul UPDATE ensembliste pour les véhicules ayant une location en cours
+        jdbcTemplate.update("UPDATE vehicule SET etat = 'EN_LOCATION' " +
+                "WHERE immatriculation LIKE ? AND etat = 'DISPONIBLE' AND id IN " +
+                "(SELECT c.vehicule_id FROM contrat c WHERE c.etat IN ('EN_COURS', 'EN_RETARD'))", prefix + "%");
+        // Écriture JDBC invisible pour Hibernate : le cache de second niveau des véhicules est vidé
+        entityManagerFactory.getCache().evict(Vehicule.class);
+    }
+
+    /**
+     * Chronologie d'un véhicule, sans chevauchement : une éventuelle location en cours,
+     * puis les contrats passés en remontant le temps et les réservations futures en avançant.
+     */
+    private void timeline(GeneratedVehicules vehicules, int v, int contrats, long[] clientIds,
+                          SplittableRandom rnd, LocalDate today, List<Object[]> rows) {
+        if (contrats == 0) {
+            return;
+        }
+        boolean panne = vehicules.panne()[v];
+        int futurs = Math.min(contrats, rnd.nextInt(4));
+        int enCours = !panne && contrats > futurs && rnd.nextInt(100) < 70 ? 1 : 0;
+        int passes = contrats - futurs - enCours;
+
+        LocalDate pastEnd = today.minusDays(1 + rnd.nextInt(6));
+        LocalDate futureStart = today.plusDays(1 + rnd.nextInt(6));
+        boolean retard = false;
+        if (enCours == 1) {
+            LocalDate debut;
+            LocalDate fin;
+            EtatContrat etat;
+            if (rnd.nextInt(100) < 5) {
+                // Aurait dû être rendu il y a quelques jours
+                fin = today.minusDays(1 + rnd.nextInt(3));
+                debut = fin.minusDays(rnd.nextInt(7));
+                etat = EtatContrat.EN_RETARD;
+                retard = true;
+            } else {
+                debut = today.minusDays(rnd.nextInt(7));
+                fin = today.plusDays(rnd.nextInt(7));
+                etat = EtatContrat.EN_COURS;
+            }
+            addContrat(rows, vehicules, v, clientIds, rnd, debut, fin, etat);
+            pastEnd = debut.minusDays(1 + rnd.nextInt(6));
+            futureStart = (fin.isAfter(today) ? fin : today).plusDays(1 + rnd.nextInt(6));
+        }
+        for (int i = 0; i < passes; i++) {
+            LocalDate debut = pastEnd.minusDays(rnd.nextInt(14));
+            addContrat(rows, vehicules, v, clientIds, rnd, debut, pastEnd,
+                    rnd.nextInt(100) < 10 ? EtatContrat.ANNULE : EtatContrat.TERMINE);
+            pastEnd = debut.minusDays(1 + rnd.nextInt(6));
+        }
+        for (int i = 0; i < futurs; i++) {
+            LocalDate fin = futureStart.plusDays(rnd.nextInt(14));
+            // Un véhicule en panne ou en retard voit ses réservations annulées
+            addContrat(rows, vehicules, v, clientIds, rnd, futureStart, fin,
+                    panne || retard ? EtatContrat.ANNULE : EtatContrat.EN_ATTENTE);
+            futureStart = fin.plusDays(1 + rnd.nextInt(6));
+        }
+    }
+
+    private void addContrat(List<Object[]> rows, GeneratedVehicules vehicules, int v, long[] clientIds,
+                            SplittableRandom rnd, LocalDate debut, LocalDate fin, EtatContrat etat) {
+        // Identifiant attribué à l'écriture du lot
+        rows.add(new Object[]{null, Date.valueOf(debut), Date.valueOf(fin), etat.name(),
+                clientIds[rnd.nextInt(clientIds.length)], vehicules.ids()[v],
+                contratService.calculatePrice(vehicules.tarifs()[v], debut, fin)});
+    }
+
+    private GeneratedVehicules loadVehicules(String prefix, int expected) {
+        long[] ids = new long[expected];
+        boolean[] panne = new boolean[expected];
+        Vehicule[] tarifs = new Vehicule[expected];
+        int[] n = {0};
+        jdbcTemplate.query("SELECT id, etat, prix_journee, motorisation FROM vehicule WHERE immatriculation LIKE ? ORDER BY id", rs -> {
+            int i = n[0]++;
+            ids[i] = rs.getLong(1);
+            panne[i] = EtatVehicule.EN_PANNE.name().equals(rs.getString(2));
+            // Seuls le tarif et la motorisation sont utiles au calcul du prix
+            tarifs[i] = new Vehicule();
+            tarifs[i].setPrixJournee(rs.getDouble(3));
+            tarifs[i].setMotorisation(rs.getString(4));
+        }, prefix + "%");
+        return new GeneratedVehicules(ids, panne, tarifs);
+    }
+
+    private record GeneratedVehicules(long[] ids, boolean[] panne, Vehicule[] tarifs) {
+    }
+
+    // ================= Outils =================
+
+    private void writeBatch(String sql, List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> jdbcTemplate.batchUpdate(sql, rows));
+    }
+
+    /**
+     * Attribue les identifiants du lot par blocs de la séquence, comme l'optimiseur "pooled" d'Hibernate :
+     * une valeur v réserve v - ID_ALLOCATION + 1 à v, blocs disjoints de ceux qu'Hibernate tire de la même séquence.
+     * Une valeur inférieure à ID_ALLOCATION (valeur initiale d'une base neuve) ne forme pas un bloc complet : ignorée.
+     */
+    private void writeContrats(List<Object[]> rows) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        int filled = 0;
+        while (filled < rows.size()) {
+            int blocks = (rows.size() - filled + Contrat.ID_ALLOCATION - 1) / Contrat.ID_ALLOCATION;
+            for (long hi : jdbcTemplate.queryForList(NEXT_CONTRAT_BLOCKS, Long.class, blocks)) {
+                if (hi < Contrat.ID_ALLOCATION) {
+                    continue;
+                }
+                for (long id = hi - Contrat.ID_ALLOCATION + 1; id <= hi && filled < rows.size(); id++) {
+                    rows.get(filled++)[0] = id;
+                }
+            }
+        }
+        writeBatch(INSERT_CONTRAT, rows);
+    }
+
+    private static void runAll(ExecutorService pool, List<Runnable> tasks) {
+        List<Future<?>> futures = new ArrayList<>(tasks.size());
+        for (Runnable task : tasks) {
+            futures.add(pool.submit(task));
+        }
+        try {
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } catch (InterruptedException e) {
+            futures.forEach(f -> f.cancel(true));
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Génération interrompue", e);
+        } catch (ExecutionException e) {
+            futures.forEach(f -> f.cancel(true));
+            throw new IllegalStateException("Échec de la génération : " + e.getCause().getMessage(), e.getCause());
+        }
+    }
+
+    // Générateur propre à (graine, phase, indice) : indépendant de l'ordre d'exécution des lots
+    private static SplittableRandom random(long seed, int phase, int index) {
+        return new SplittableRandom(seed * 0x9E3779B97F4A7C15L + ((long) phase << 40) + index);
+    }
+
+    private static String pick(SplittableRandom rnd, String[] values) {
+        return values[rnd.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,63 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.ClientIdentite;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.event.ClientRemovedEvent;
+import com.bfb.rental.event.ClientSavedEvent;
+import com.bfb.rental.repository.ClientRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Service
+@RequiredArgsConstructor
+public class ClientService {
+
+    private final ClientRepository clientRepository;
+    private final UniqueKeyFilter uniqueKeyFilter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Créer un client (avec validation d'unicité)
+    @Transactional
+    public Client createClient(Client client) {
+        if (uniqueKeyFilter.numPermisExists(client.getNumPermis())) {
+            throw new IllegalArgumentException("Numéro de permis déjà existant: " + client.getNumPermis());
+        }
+        if (uniqueKeyFilter.clientExists(client.getNom(), client.getPrenom(), client.getDateNaissance())) {
+            throw new IllegalArgumentException("Client déjà existant (nom, prénom, date de naissance)");
+        }
+        uniqueKeyFilter.addClient(client);
+        Client saved = clientRepository.save(client);
+        eventPublisher.publishEvent(ClientSavedEvent.created(this, List.of(saved)));
+        return saved;
+    }
+
+    // Création ou modification depuis le formulaire : l'unicité reste garantie par les contraintes de la base
+    @Transactional
+    public Client saveClient(Client client) {
+        // Clés précédentes lues avant la sauvegarde, pour mettre à jour les filtres d'unicité
+        ClientIdentite previous = client.getId() == null ? null
+                : clientRepository.findById(client.getId()).map(ClientService::identite).orElse(null);
+        uniqueKeyFilter.addClient(client);
+        Client saved = clientRepository.save(client);
+        eventPublisher.publishEvent(previous == null
+                ? ClientSavedEvent.created(this, List.of(saved))
+                : ClientSavedEvent.updated(this, saved, previous));
+        return saved;
+    }
+
+    @Transactional
+    public void deleteClient(Long id) {
+        clientRepository.findById(id).ifPresent(c -> {
+            clientRepository.delete(c);
+            eventPublisher.publishEvent(new ClientRemovedEvent(this, identite(c)));
+        });
+    }
+
+    private static ClientIdentite identite(Client c) {
+        return new ClientIdentite(c.getId(), c.getNumPermis(), c.getNom(), c.getPrenom(), c.getDateNaissance());
+    }
+}
@@ -0,0 +1,172 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.ContratSnapshot;
+import com.bfb.rental.entity.ClusterDemarrage;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.enums.TypeTransition;
+import com.bfb.rental.event.ContratChangedEvent;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
+import com.bfb.rental.event.VehiculeEtatChangedEvent;
+import com.bfb.rental.repository.ClusterDemarrageRepository;
+import com.bfb.rental.repository.ClusterVersionRepository;
+import com.bfb.rental.repository.ContratRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManagerFactory;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Supplier;
+
+/**
+ * Contrats démarrés par la tâche planifiée d'une instance, rendus visibles aux autres instances sur la même base.
+ *
+ * Les versions des ETags, le cache de second niveau des véhicules, les compteurs du tableau de bord,
+ * les agrégats de flotte et le journal des transitions sont propres à chaque JVM : sans partage, une instance
+ * qui sert l'API ne verrait pas les contrats démarrés par celle qui détient le bail de leur partition.
+ *
+ * Chaque lot qui démarre des contrats incrémente un compteur en base (table cluster_version) et écrit une ligne
+ * par contrat avec ce numéro de lot (table cluster_demarrage), dans sa propre transaction. La ligne du compteur
+ * reste verrouillée jusqu'au commit : un lot n'est visible qu'une fois les précédents validés.
+ * Toutes les rental.cluster.sync-ms, chaque instance relit les lots suivant le dernier appliqué, écrits par
+ * les autres : cache des véhicules vidé pour ces véhicules, démarrages ajoutés au journal local, puis mêmes
+ * événements que sur l'instance d'origine (versions, compteurs, agrégats...).
+ *
+ * Les lignes sont purgées après rental.cluster.retention-ms. Une instance qui trouve un trou (lots déjà purgés),
+ * ou des lots d'autres instances à sa première synchronisation (ses structures ont pu être construites avant
+ * ou après eux), reconstruit tout à partir de la base, comme après une génération massive ; le journal local
+ * ne contient alors pas ces démarrages.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ClusterSync {
+
+    private static final String DEMARRAGES = "contrats-demarres";
+    private static final long PRUNE_INTERVAL_MS = 60_000;
+
+    private final ClusterVersionRepository versionRepository;
+    private final ClusterDemarrageRepository demarrageRepository;
+    private final ContratRepository contratRepository;
+    private final SchedulerLeases schedulerLeases;
+    private final TransitionJournal transitionJournal;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${rental.cluster.retention-ms:3600000}")
+    private long retentionMs;
+
+    private TransactionTemplate tx;
+
+    // Dernier lot appliqué (ou écrit par cette instance), accès sous le verrou de l'objet
+    private long seen;
+    private boolean synced;
+    private long lastPrune;
+
+    @PostConstruct
+    void init() {
+        tx = new TransactionTemplate(transactionManager);
+        if (!inTx(() -> versionRepository.existsById(DEMARRAGES))) {
+            try {
+                inTx(() -> versionRepository.create(DEMARRAGES));
+            } catch (DataAccessException e) {
+                // Créé au même moment par une autre instance
+            }
+        }
+        // Lu avant la construction des structures en mémoire (ApplicationReadyEvent), voir sync()
+        seen = inTx(() -> versionRepository.findValeur(DEMARRAGES));
+        lastPrune = System.currentTimeMillis();
+    }
+
+    /**
+     * Publie les contrats démarrés par un lot de la tâche planifiée, dans la transaction du lot.
+     */
+    public void recordStarts(Collection<Contrat> contrats) {
+        versionRepository.increment(DEMARRAGES);
+        long lot = versionRepository.findValeur(DEMARRAGES);
+        demarrageRepository.record(contrats.stream().map(Contrat::getId).toList(), lot,
+                schedulerLeases.nodeId(), Instant.now());
+    }
+
+    /**
+     * Applique les lots écrits par les autres instances depuis la dernière synchronisation.
+     */
+    @Scheduled(fixedDelayString = "${rental.cluster.sync-ms:1000}", initialDelayString = "${rental.cluster.sync-ms:1000}")
+    public synchronized void sync() {
+        long current = inTx(() -> versionRepository.findValeur(DEMARRAGES));
+        if (current > seen) {
+            List<ClusterDemarrage> rows = inTx(() -> demarrageRepository.findByLotGreaterThanOrderByLot(seen));
+            List<Long> others = new ArrayList<>();
+            for (ClusterDemarrage row : rows) {
+                if (!schedulerLeases.nodeId().equals(row.getNoeud())) {
+                    others.add(row.getContratId());
+                }
+            }
+            boolean complete = !rows.isEmpty() && rows.get(0).getLot() == seen + 1;
+            if (!complete || (!synced && !others.isEmpty())) {
+                rebuildAll(current - seen);
+            } else if (!others.isEmpty()) {
+                apply(others);
+            }
+            seen = rows.isEmpty() ? current : Math.max(current, rows.get(rows.size() - 1).getLot());
+        }
+        synced = true;
+
+        long now = System.currentTimeMillis();
+        if (now - lastPrune >= PRUNE_INTERVAL_MS) {
+            lastPrune = now;
+            inTx(() -> demarrageRepository.deleteBefore(Instant.ofEpochMilli(now - retentionMs)));
+        }
+    }
+
+    // Mêmes effets que startDueContrats sur l'instance d'origine, hors transaction (les écouteurs s'exécutent aussitôt)
+    private void apply(List<Long> contratIds) {
+        List<Contrat> contrats = inTx(() -> contratRepository.findAllById(contratIds));
+        if (contrats.isEmpty()) {
+            return;
+        }
+        List<ContratChangedEvent.Change> changes = new ArrayList<>(contrats.size());
+        List<Long> vehiculeIds = new ArrayList<>(contrats.size());
+        for (Contrat c : contrats) {
+            changes.add(new ContratChangedEvent.Change(snapshot(c, EtatContrat.EN_ATTENTE), snapshot(c, EtatContrat.EN_COURS)));
+            vehiculeIds.add(c.getVehicule().getId());
+        }
+
+        Cache cache = entityManagerFactory.getCache();
+        vehiculeIds.forEach(id -> cache.evict(Vehicule.class, id));
+        transitionJournal.contrats(TypeTransition.CONTRAT_DEMARRE, contrats);
+        eventPublisher.publishEvent(new ContratChangedEvent(this, changes));
+        eventPublisher.publishEvent(new VehiculeEtatChangedEvent(this, vehiculeIds, EtatVehicule.DISPONIBLE, EtatVehicule.EN_LOCATION));
+        log.debug("Synchronisation : {} contrat(s) démarré(s) par d'autres instances.", contrats.size());
+    }
+
+    private void rebuildAll(long lots) {
+        log.info("Synchronisation : {} lot(s) d'autres instances non appliqués un par un, reconstruction depuis la base", lots);
+        entityManagerFactory.getCache().evict(Vehicule.class);
+        eventPublisher.publishEvent(new DonneesRemplaceesEvent(this));
+    }
+
+    // État du contrat avant ou après son démarrage ; les autres champs sont lus en base
+    private static ContratSnapshot snapshot(Contrat c, EtatContrat etat) {
+        return new ContratSnapshot(c.getId(), c.getVehicule().getId(), c.getDateDebut(), c.getDateFin(), etat, c.getPrixTotal());
+    }
+
+    private <T> T inTx(Supplier<T> action) {
+        return tx.execute(status -> action.get());
+    }
+}
@@ -1,25 +1,51 @@
 package com.bfb.rental.service;
 
+import com.bfb.rental.dto.ContratBatchResult;
+import com.bfb.rental.dto.ContratSnapshot;
+import com.bfb.rental.dto.CreateContratRequest;
+import com.bfb.rental.dto.ReservationSlot;
 import com.bfb.rental.entity.Client;
 import com.bfb.rental.entity.Contrat;
 import com.bfb.rental.entity.Vehicule;
 import com.bfb.rental.enums.EtatContrat;
 import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.enums.TypeTransition;
+import com.bfb.rental.event.ContratChangedEvent;
+import com.bfb.rental.event.VehiculeEtatChangedEvent;
 import com.bfb.rental.event.VehiculePanneEvent;
 import com.bfb.rental.repository.ClientRepository;
 import com.bfb.rental.repository.ContratRepository;
 import com.bfb.rental.repository.VehiculeRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.context.event.EventListener;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import org.springframework.scheduling.annotation.Scheduled;
 
 import java.time.LocalDate;
-import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
-
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ContratService {
@@ -27,24 +53,73 @@ public class ContratService {
     private final ContratRepository contratRepository;
     private final VehiculeRepository vehiculeRepository;
     private final ClientRepository clientRepository;
+    private final ReservationIndex reservationIndex;
+    private final BookingLocks bookingLocks;
+    private final RentalMetrics rentalMetrics;
+    private final PricingEngine pricingEngine;
+    private final TransitionJournal transitionJournal;
+    private final ClusterSync clusterSync;
+    private final ApplicationEventPublisher eventPublisher;
+    private final SchedulerLeases schedulerLeases;
+    private final PlatformTransactionManager transactionManager;
+
+    // Exécution de la tâche planifiée en cours (voir updateContratStatusAutomatic)
+    private final AtomicBoolean schedulerRunning = new AtomicBoolean();
+
+    @Value("${rental.scheduler.batch-size:500}")
+    private int schedulerBatchSize;
 
+    @Value("${rental.booking.batch-max-size:1000}")
+    private int bookingBatchMaxSize;
 
 
-    private Double calculatePrice(Vehicule vehicule, LocalDate start, LocalDate end) {
-        if (vehicule.getPrixJournee() == null) return 0.0;
-        long days = ChronoUnit.DAYS.between(start, end);
-        if (days == 0) days = 1;
-        return days * vehicule.getPrixJournee();
+
+    // Prix calculé par le moteur de tarification (saisons, paliers de durée, motorisation)
+    public Double calculatePrice(Vehicule vehicule, LocalDate start, LocalDate end) {
+        return pricingEngine.price(vehicule.getPrixJournee(), vehicule.getMotorisation(), start, end);
     }
 
+    /**
+     * Exécute une réservation sous le verrou du véhicule, dans sa propre transaction.
+     * Le commit (et donc la mise à jour de l'index) a lieu avant la libération du verrou :
+     * la requête suivante pour ce véhicule voit forcément la réservation précédente.
+     */
+    private <T> T underVehiculeLock(String operation, Long vehiculeId, Supplier<T> action) {
+        return underVehiculeLocks(operation, List.of(vehiculeId), action);
+    }
+
+    private <T> T underVehiculeLocks(String operation, Collection<Long> vehiculeIds, Supplier<T> action) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        return bookingLocks.withVehiculeLocks(vehiculeIds, () -> tx.execute(status -> {
+            rentalMetrics.transaction(operation);
+            return action.get();
+        }));
+    }
+
+    private Contrat newContrat(Client client, Vehicule vehicule, LocalDate debut, LocalDate fin) {
+        Contrat contrat = new Contrat();
+        contrat.setClient(client);
+        contrat.setVehicule(vehicule);
+        contrat.setDateDebut(debut);
+        contrat.setDateFin(fin);
+        contrat.setEtat(EtatContrat.EN_ATTENTE);
+        contrat.setPrixTotal(calculatePrice(vehicule, debut, fin));
+        return contrat;
+    }
 
-    @Transactional
     public Contrat createContrat(Long clientId, Long vehiculeId, LocalDate debut, LocalDate fin) {
-        // 1. Validation de base
-        if (fin.isBefore(debut)) {
-            throw new IllegalArgumentException("La date de fin ne peut pas être antérieure à la date de début");
-        }
+        return rentalMetrics.timed(RentalMetrics.CREATION, () -> {
+            // 1. Validation de base
+            if (fin.isBefore(debut)) {
+                throw new IllegalArgumentException("La date de fin ne peut pas être antérieure à la date de début");
+            }
+
+            return underVehiculeLock(RentalMetrics.CREATION, vehiculeId, () -> doCreateContrat(clientId, vehiculeId, debut, fin));
+        });
+    }
 
+    private Contrat doCreateContrat(Long clientId, Long vehiculeId, LocalDate debut, LocalDate fin) {
         Vehicule vehicule = vehiculeRepository.findById(vehiculeId)
                 .orElseThrow(() -> new RuntimeException("Le véhicule n'existe pas"));
         Client client = clientRepository.findById(clientId)
@@ -55,50 +130,160 @@ public class ContratService {
             throw new IllegalStateException("Ce véhicule est en panne et ne peut pas être loué");
         }
 
-        // 3. Règle : Détection des conflits temporels
-        List<Contrat> conflicts = contratRepository.findConflictingContrats(vehiculeId, debut, fin);
-        if (!conflicts.isEmpty()) {
+        // 3. Règle : Détection des conflits temporels (index en mémoire, sans requête)
+        if (reservationIndex.hasConflict(vehiculeId, debut, fin)) {
+            rentalMetrics.conflict(RentalMetrics.CREATION);
             throw new IllegalStateException("Ce véhicule est déjà réservé pendant la période spécifiée");
         }
 
-        // 4. Créer et sauvegarder
-        Contrat contrat = new Contrat();
-        contrat.setClient(client);
-        contrat.setVehicule(vehicule);
-        contrat.setDateDebut(debut);
-        contrat.setDateFin(fin);
-        contrat.setEtat(EtatContrat.EN_ATTENTE);
+        // 4. Créer (avec calcul du prix total) et sauvegarder
+        Contrat saved = contratRepository.save(newContrat(client, vehicule, debut, fin));
+        transitionJournal.contrat(TypeTransition.CONTRAT_CREE, saved);
+        eventPublisher.publishEvent(ContratChangedEvent.created(this, List.of(saved)));
+        return saved;
+    }
 
+    /**
+     * Création de contrats par lot (intégrations partenaires).
+     * Mêmes règles que createContrat, y compris les conflits entre éléments du même lot.
+     * Clients et véhicules sont chargés en une requête chacun, les contrats acceptés sont insérés
+     * en batch JDBC, et chaque élément reçoit son propre résultat (dans l'ordre de la demande).
+     */
+    public List<ContratBatchResult> createContrats(List<CreateContratRequest> requests) {
+        return rentalMetrics.timed(RentalMetrics.CREATION_LOT, () -> doCreateContrats(requests));
+    }
 
-        // 5. Calcul du prix total
-        Double price = calculatePrice(vehicule, debut, fin);
-        contrat.setPrixTotal(price);
+    private List<ContratBatchResult> doCreateContrats(List<CreateContratRequest> requests) {
+        if (requests.size() > bookingBatchMaxSize) {
+            throw new IllegalArgumentException("Lot trop volumineux (maximum " + bookingBatchMaxSize + " contrats)");
+        }
 
-        return contratRepository.save(contrat);
+        // 1. Validation de base, sans accès à la base
+        ContratBatchResult[] results = new ContratBatchResult[requests.size()];
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < requests.size(); i++) {
+            CreateContratRequest r = requests.get(i);
+            if (r.getClientId() == null || r.getVehiculeId() == null || r.getDateDebut() == null || r.getDateFin() == null) {
+                results[i] = ContratBatchResult.echec(i, "Client, véhicule et dates sont obligatoires");
+            } else if (r.getDateFin().isBefore(r.getDateDebut())) {
+                results[i] = ContratBatchResult.echec(i, "La date de fin ne peut pas être antérieure à la date de début");
+            } else {
+                candidates.add(i);
+            }
+        }
+
+        // 2. Tous les véhicules du lot sont verrouillés ensemble, puis le lot est traité dans une seule transaction
+        if (!candidates.isEmpty()) {
+            Set<Long> vehiculeIds = candidates.stream()
+                    .map(i -> requests.get(i).getVehiculeId())
+                    .collect(Collectors.toSet());
+            underVehiculeLocks(RentalMetrics.CREATION_LOT, vehiculeIds, () -> {
+                createCandidates(requests, candidates, results);
+                return null;
+            });
+        }
+        return Arrays.asList(results);
+    }
+
+    private void createCandidates(List<CreateContratRequest> requests, List<Integer> candidates, ContratBatchResult[] results) {
+        Map<Long, Client> clients = clientRepository.findAllById(
+                candidates.stream().map(i -> requests.get(i).getClientId()).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Client::getId, Function.identity()));
+        Map<Long, Vehicule> vehicules = vehiculeRepository.findAllById(
+                candidates.stream().map(i -> requests.get(i).getVehiculeId()).collect(Collectors.toSet()))
+                .stream().collect(Collectors.toMap(Vehicule::getId, Function.identity()));
+
+        // Éléments déjà acceptés dans ce lot, par véhicule, pour détecter les conflits internes au lot
+        Map<Long, List<Integer>> acceptedByVehicule = new HashMap<>();
+        List<Contrat> toSave = new ArrayList<>();
+        List<Integer> toSaveIndexes = new ArrayList<>();
+
+        for (int i : candidates) {
+            CreateContratRequest r = requests.get(i);
+            Vehicule vehicule = vehicules.get(r.getVehiculeId());
+            Client client = clients.get(r.getClientId());
+            if (vehicule == null) {
+                results[i] = ContratBatchResult.echec(i, "Le véhicule n'existe pas");
+                continue;
+            }
+            if (client == null) {
+                results[i] = ContratBatchResult.echec(i, "Le client n'existe pas");
+                continue;
+            }
+            if (vehicule.getEtat() == EtatVehicule.EN_PANNE) {
+                results[i] = ContratBatchResult.echec(i, "Ce véhicule est en panne et ne peut pas être loué");
+                continue;
+            }
+            Long conflictId = reservationIndex.findConflict(r.getVehiculeId(), r.getDateDebut(), r.getDateFin(), null).orElse(null);
+            if (conflictId != null) {
+                rentalMetrics.conflict(RentalMetrics.CREATION_LOT);
+                results[i] = ContratBatchResult.echec(i, "Ce véhicule est déjà réservé pendant la période spécifiée (ID conflit : " + conflictId + ")");
+                continue;
+            }
+            List<Integer> accepted = acceptedByVehicule.computeIfAbsent(r.getVehiculeId(), id -> new ArrayList<>());
+            Integer conflictIndex = accepted.stream()
+                    .filter(j -> !requests.get(j).getDateDebut().isAfter(r.getDateFin())
+                            && !requests.get(j).getDateFin().isBefore(r.getDateDebut()))
+                    .findFirst().orElse(null);
+            if (conflictIndex != null) {
+                rentalMetrics.conflict(RentalMetrics.CREATION_LOT);
+                results[i] = ContratBatchResult.echec(i, "Conflit avec l'élément " + conflictIndex + " du même lot");
+                continue;
+            }
+            accepted.add(i);
+            toSave.add(newContrat(client, vehicule, r.getDateDebut(), r.getDateFin()));
+            toSaveIndexes.add(i);
+        }
+
+        // Identifiants issus d'une séquence : Hibernate peut regrouper les INSERT en batch JDBC
+        contratRepository.saveAll(toSave);
+        for (int k = 0; k < toSave.size(); k++) {
+            results[toSaveIndexes.get(k)] = ContratBatchResult.succes(toSaveIndexes.get(k), toSave.get(k).getId());
+        }
+        transitionJournal.contrats(TypeTransition.CONTRAT_CREE, toSave);
+        if (!toSave.isEmpty()) {
+            eventPublisher.publishEvent(ContratChangedEvent.created(this, toSave));
+        }
     }
 
     /**
      * Implémentation du pattern Observer :
      * Écoute l'événement VehiculePanneEvent.
      * Lorsqu'une notification de panne est reçue, annule automatiquement les contrats associés.
+     *
+     * Exécuté après le commit de la déclaration de panne, sur l'exécuteur borné panneExecutor :
+     * la requête de l'utilisateur n'attend pas les annulations. Les véhicules concernés sont verrouillés
+     * pour qu'une réservation en cours se termine avant l'annulation, puis une seule requête UPDATE
+     * annule tous les contrats EN_ATTENTE du lot.
      */
-    @EventListener
-    @Transactional
+    @Async("panneExecutor")
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
     public void handleVehiculePanne(VehiculePanneEvent event) {
-        System.out.println("Événement de panne de véhicule reçu, ID du véhicule : " + event.getVehiculeId());
+        rentalMetrics.timed(RentalMetrics.PANNE, () -> {
+            log.info("Événement de panne de véhicule reçu, ID du/des véhicule(s) : {}", event.getVehiculeIds());
+
+            // Règle : Si un véhicule est en panne, tous les contrats EN_ATTENTE doivent être annulés
+            int cancelled = underVehiculeLocks(RentalMetrics.PANNE, event.getVehiculeIds(), () -> {
+                List<ReservationSlot> affected = contratRepository.findPendingSlotsByVehiculeIds(event.getVehiculeIds());
+                transitionJournal.slots(TypeTransition.CONTRAT_ANNULE, affected);
+                if (!affected.isEmpty()) {
+                    eventPublisher.publishEvent(new ContratChangedEvent(this, affected.stream()
+                            .map(ContratService::annulation)
+                            .toList()));
+                }
+                return contratRepository.cancelPendingByVehiculeIds(event.getVehiculeIds());
+            });
 
-        // Règle : Si un véhicule est en panne, tous les contrats EN_ATTENTE doivent être annulés
-        List<Contrat> affectedContrats = contratRepository.findByVehiculeIdAndEtat(
-                event.getVehiculeId(), 
-                EtatContrat.EN_ATTENTE
-        );
+            rentalMetrics.contratsAnnules("panne", cancelled);
+            log.debug("Contrats automatiquement annulés : {}", cancelled);
+        });
+    }
 
-        for (Contrat c : affectedContrats) {
-            c.setEtat(EtatContrat.ANNULE);
-            System.out.println("Contrat automatiquement annulé, ID : " + c.getId());
-        }
-        
-        contratRepository.saveAll(affectedContrats);
+    // Annulation par requête UPDATE : seul le créneau est connu, le prix ne change pas
+    private static ContratChangedEvent.Change annulation(ReservationSlot slot) {
+        return new ContratChangedEvent.Change(
+                new ContratSnapshot(slot.contratId(), slot.vehiculeId(), slot.dateDebut(), slot.dateFin(), EtatContrat.EN_ATTENTE, null),
+                new ContratSnapshot(slot.contratId(), slot.vehiculeId(), slot.dateDebut(), slot.dateFin(), EtatContrat.ANNULE, null));
     }
 
     /**
@@ -108,14 +293,23 @@ public class ContratService {
      */
     @Transactional
     public void declarerRetard(Long contratId) {
+        rentalMetrics.transaction(RentalMetrics.RETARD);
+        rentalMetrics.timed(RentalMetrics.RETARD, () -> doDeclarerRetard(contratId));
+    }
+
+    private void doDeclarerRetard(Long contratId) {
         Contrat currentContrat = contratRepository.findById(contratId)
             .orElseThrow(() -> new RuntimeException("Le contrat n'existe pas"));
 
         // 1. Marquer le contrat actuel comme étant en retard
+        List<ContratChangedEvent.Change> changes = new ArrayList<>();
+        ContratSnapshot before = ContratSnapshot.of(currentContrat);
         currentContrat.setEtat(EtatContrat.EN_RETARD);
         contratRepository.save(currentContrat);
+        changes.add(new ContratChangedEvent.Change(before, ContratSnapshot.of(currentContrat)));
+        transitionJournal.contrat(TypeTransition.CONTRAT_EN_RETARD, currentContrat);
 
-        System.out.println("Le contrat " + contratId + " est en retard. Vérification des conflits...");
+        log.info("Le contrat {} est en retard. Vérification des conflits...", contratId);
 
         // 2. [Stratégie agressive]
         // Tant que le véhicule n'est pas revenu, par sécurité, annuler tous les contrats "EN_ATTENTE" pour ce véhicule.
@@ -125,35 +319,46 @@ public class ContratService {
         );
 
         for (Contrat nextContrat : pendingContrats) {
+            ContratSnapshot pending = ContratSnapshot.of(nextContrat);
             nextContrat.setEtat(EtatContrat.ANNULE);
-            System.out.println("Réaction en chaîne : Annulation automatique du contrat ID " + nextContrat.getId());
+            changes.add(new ContratChangedEvent.Change(pending, ContratSnapshot.of(nextContrat)));
+            log.debug("Réaction en chaîne : Annulation automatique du contrat ID {}", nextContrat.getId());
         }
         
         contratRepository.saveAll(pendingContrats);
+        transitionJournal.contrats(TypeTransition.CONTRAT_ANNULE, pendingContrats);
+        rentalMetrics.contratsAnnules("retard", pendingContrats.size());
+        eventPublisher.publishEvent(new ContratChangedEvent(this, changes));
     }
 
 
-    @Transactional
     public void updateContrat(Long id, Long clientId, Long vehiculeId, LocalDate debut, LocalDate fin) {
-        // 1. Validation de base
-        if (fin.isBefore(debut)) {
-            throw new IllegalArgumentException("La date de fin ne peut pas être antérieure à la date de début");
-        }
+        rentalMetrics.timed(RentalMetrics.MODIFICATION, () -> {
+            // 1. Validation de base
+            if (fin.isBefore(debut)) {
+                throw new IllegalArgumentException("La date de fin ne peut pas être antérieure à la date de début");
+            }
 
+            // Seul le véhicule cible peut gagner une réservation, c'est donc lui qu'on verrouille
+            underVehiculeLock(RentalMetrics.MODIFICATION, vehiculeId, () -> {
+                doUpdateContrat(id, clientId, vehiculeId, debut, fin);
+                return null;
+            });
+        });
+    }
+
+    private void doUpdateContrat(Long id, Long clientId, Long vehiculeId, LocalDate debut, LocalDate fin) {
         Contrat contrat = contratRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Le contrat n'existe pas"));
 
-        // 2. Vérification des conflits
-        List<Contrat> conflicts = contratRepository.findConflictingContrats(vehiculeId, debut, fin);
-        
-        // Parcourir la liste : si l'ID du contrat en conflit n'est pas celui qu'on modifie, c'est un vrai conflit
-        for (Contrat c : conflicts) {
-            if (!c.getId().equals(id)) {
-                throw new IllegalStateException("Ce véhicule est déjà réservé pendant la période spécifiée (ID conflit : " + c.getId() + ")");
-            }
-        }
+        // 2. Vérification des conflits : le contrat qu'on modifie est exclu de la recherche
+        reservationIndex.findConflict(vehiculeId, debut, fin, id).ifPresent(conflictId -> {
+            rentalMetrics.conflict(RentalMetrics.MODIFICATION);
+            throw new IllegalStateException("Ce véhicule est déjà réservé pendant la période spécifiée (ID conflit : " + conflictId + ")");
+        });
 
         // 3. Mise à jour des données
+        ContratSnapshot before = ContratSnapshot.of(contrat);
         Client client = clientRepository.findById(clientId).orElseThrow();
         Vehicule vehicule = vehiculeRepository.findById(vehiculeId).orElseThrow();
 
@@ -162,10 +367,10 @@ public class ContratService {
         contrat.setDateDebut(debut);
         contrat.setDateFin(fin);
         
-        Double price = calculatePrice(vehicule, debut, fin);
-        contrat.setPrixTotal(price);
+        contrat.setPrixTotal(calculatePrice(vehicule, debut, fin));
 
         contratRepository.save(contrat);
+        eventPublisher.publishEvent(ContratChangedEvent.changed(this, before, contrat));
     }
 
     /**
@@ -173,38 +378,111 @@ public class ContratService {
      * Logique : Si aujourd'hui est la date de début du contrat et que l'état est EN_ATTENTE -> passer à EN_COURS
      * En même temps : L'état du véhicule passe à EN_LOCATION
      * 
-     * fixedRate = 5000 signifie une exécution toutes les 5 secondes.
+     * Une exécution toutes les rental.scheduler.rate-ms (5 secondes par défaut).
+     * Seuls les contrats EN_ATTENTE échus sont lus (requête indexée), par lots de schedulerBatchSize,
+     * chaque lot dans sa propre transaction courte.
+     * Avec plusieurs instances sur la même base, chacune ne traite que les partitions (véhicules) dont
+     * elle détient le bail (voir SchedulerLeases) : un contrat n'est jamais démarré par deux instances.
+     *
+     * @return le nombre de contrats démarrés pendant cette exécution
      */
-    @Scheduled(fixedRate = 5000)
-    @Transactional
-    public void updateContratStatusAutomatic() {
-        LocalDate today = LocalDate.now();
-        List<Contrat> contrats = contratRepository.findAll();
+    @Scheduled(fixedRateString = "${rental.scheduler.rate-ms:5000}", initialDelayString = "${rental.scheduler.rate-ms:5000}")
+    public int updateContratStatusAutomatic() {
+        // En mode threads virtuels, chaque exécution à taux fixe part sur un nouveau thread :
+        // si la précédente n'est pas terminée, celle-ci est sautée plutôt que de traiter les mêmes contrats
+        if (!schedulerRunning.compareAndSet(false, true)) {
+            return 0;
+        }
+        try {
+            return rentalMetrics.timed(RentalMetrics.PLANIFICATION, () -> startAllDueContrats(LocalDate.now()));
+        } finally {
+            schedulerRunning.set(false);
+        }
+    }
 
-        for (Contrat c : contrats) {
-            // Condition 1 : Doit être "EN_ATTENTE"
-            // Condition 2 : La date de début est atteinte (ou passée)
-            if (c.getEtat() == EtatContrat.EN_ATTENTE && !c.getDateDebut().isAfter(today)) {
-                
-                // Si le véhicule n'est pas revenu (ex: EN_LOCATION ou EN_PANNE), on ne peut absolument pas démarrer un nouveau contrat !
-                // Le laisser en EN_ATTENTE, en attendant une annulation ou une intervention manuelle.
-                if (c.getVehicule().getEtat() != EtatVehicule.DISPONIBLE) {
-                    System.out.println("Attention : Le contrat " + c.getId() + " devrait commencer, mais le véhicule " + c.getVehicule().getImmatriculation() + " n'est pas disponible. Démarrage ignoré.");
-                    continue; // Passer à l'itération suivante
+    private int startAllDueContrats(LocalDate today) {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int read = 0;
+        int started = 0;
+
+        for (int partition : schedulerLeases.acquire()) {
+            long afterId = 0L;
+            try {
+                while (true) {
+                    long from = afterId;
+                    List<Contrat> batch = tx.execute(status -> startDueContrats(today, partition, from));
+                    read += batch.size();
+                    for (Contrat c : batch) {
+                        if (c.getEtat() == EtatContrat.EN_COURS) {
+                            started++;
+                        }
+                    }
+                    if (batch.size() < schedulerBatchSize) {
+                        break;
+                    }
+                    afterId = batch.get(batch.size() - 1).getId();
                 }
+            } catch (IllegalStateException e) {
+                // Bail perdu en cours de route : le lot a été annulé, la suite revient au nouveau détenteur
+                log.warn("Tâche planifiée : {}", e.getMessage());
+            }
+        }
+
+        rentalMetrics.schedulerTick(read, started);
+        if (started > 0) {
+            log.debug("Tâche planifiée : {} contrat(s) démarré(s).", started);
+        }
+        return started;
+    }
+
+    // Traite un lot de contrats échus, renvoie le lot lu (démarrés ou ignorés)
+    private List<Contrat> startDueContrats(LocalDate today, int partition, long afterId) {
+        rentalMetrics.transaction(RentalMetrics.PLANIFICATION);
+        schedulerLeases.confirm(partition);
+        List<Contrat> contrats = contratRepository.findDueContrats(today, afterId,
+                schedulerLeases.partitions(), partition, Limit.of(schedulerBatchSize));
+        List<Vehicule> rentedVehicules = new ArrayList<>();
+        List<Contrat> startedContrats = new ArrayList<>();
+        List<ContratChangedEvent.Change> changes = new ArrayList<>();
 
-                // Si le véhicule est DISPONIBLE, démarrage normal
-                c.setEtat(EtatContrat.EN_COURS);
-                c.getVehicule().setEtat(EtatVehicule.EN_LOCATION);
-                
-                contratRepository.save(c);
-                vehiculeRepository.save(c.getVehicule());
+        for (Contrat c : contrats) {
+            // Si le véhicule n'est pas revenu (ex: EN_LOCATION ou EN_PANNE), on ne peut absolument pas démarrer un nouveau contrat !
+            // Le laisser en EN_ATTENTE, en attendant une annulation ou une intervention manuelle.
+            if (c.getVehicule().getEtat() != EtatVehicule.DISPONIBLE) {
+                log.warn("Le contrat {} devrait commencer, mais le véhicule {} n'est pas disponible. Démarrage ignoré.", c.getId(), c.getVehicule().getImmatriculation());
+                continue; // Passer à l'itération suivante
             }
+
+            // Si le véhicule est DISPONIBLE, démarrage normal
+            ContratSnapshot before = ContratSnapshot.of(c);
+            c.setEtat(EtatContrat.EN_COURS);
+            c.getVehicule().setEtat(EtatVehicule.EN_LOCATION);
+            rentedVehicules.add(c.getVehicule());
+            startedContrats.add(c);
+            changes.add(new ContratChangedEvent.Change(before, ContratSnapshot.of(c)));
         }
+
+        contratRepository.saveAll(contrats);
+        vehiculeRepository.saveAll(rentedVehicules);
+        transitionJournal.contrats(TypeTransition.CONTRAT_DEMARRE, startedContrats);
+        // Une exécution sans contrat démarré ne change rien : aucun événement, les ETags restent valides
+        if (!startedContrats.isEmpty()) {
+            // Les autres instances relisent ces démarrages en base (versions, cache, compteurs, journal)
+            clusterSync.recordStarts(startedContrats);
+            eventPublisher.publishEvent(new ContratChangedEvent(this, changes));
+            eventPublisher.publishEvent(new VehiculeEtatChangedEvent(this,
+                    rentedVehicules.stream().map(Vehicule::getId).toList(), EtatVehicule.DISPONIBLE, EtatVehicule.EN_LOCATION));
+        }
+        return contrats;
     }
 
     @Transactional
     public void terminerContrat(Long id) {
+        rentalMetrics.transaction(RentalMetrics.TERMINAISON);
+        rentalMetrics.timed(RentalMetrics.TERMINAISON, () -> doTerminerContrat(id));
+    }
+
+    private void doTerminerContrat(Long id) {
         Contrat contrat = contratRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Le contrat n'existe pas"));
 
@@ -212,19 +490,34 @@ public class ContratService {
         if (contrat.getEtat() == EtatContrat.EN_COURS || contrat.getEtat() == EtatContrat.EN_RETARD) {
             
             // 1. Terminer le contrat
+            ContratSnapshot before = ContratSnapshot.of(contrat);
             contrat.setEtat(EtatContrat.TERMINE);
             
             // 2. Libérer le véhicule
             Vehicule vehicule = contrat.getVehicule();
+            EtatVehicule previousEtat = vehicule.getEtat();
             // Seulement si le véhicule n'est pas "EN_PANNE", le rendre disponible (par sécurité)
-            if (vehicule.getEtat() != EtatVehicule.EN_PANNE) {
+            if (previousEtat != EtatVehicule.EN_PANNE) {
                 vehicule.setEtat(EtatVehicule.DISPONIBLE);
             }
 
             contratRepository.save(contrat);
             vehiculeRepository.save(vehicule);
+            transitionJournal.contrat(TypeTransition.CONTRAT_TERMINE, contrat);
+            eventPublisher.publishEvent(ContratChangedEvent.changed(this, before, contrat));
+            if (previousEtat != vehicule.getEtat()) {
+                eventPublisher.publishEvent(new VehiculeEtatChangedEvent(this, List.of(vehicule.getId()), previousEtat, vehicule.getEtat()));
+            }
             
-            System.out.println("Le contrat " + id + " est terminé normalement, le véhicule est restitué.");
+            log.info("Le contrat {} est terminé normalement, le véhicule est restitué.", id);
         }
     }
-}
\ No newline at end of file
+
+    @Transactional
+    public void deleteContrat(Long id) {
+        contratRepository.findById(id).ifPresent(c -> {
+            contratRepository.delete(c);
+            eventPublisher.publishEvent(ContratChangedEvent.removed(this, c));
+        });
+    }
+}
@@ -0,0 +1,133 @@
+package com.bfb.rental.service;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtre de Bloom à compteurs : appartenance probable d'une chaîne, avec suppression.
+ *
+ * Une réponse négative est certaine ; une réponse positive peut être un faux positif, au taux visé fpp
+ * tant que le filtre contient au plus capacity éléments. Chaque case est un compteur de 4 bits
+ * (16 par mot de 64 bits) mis à jour par compare-and-set, sans verrou. Un compteur saturé n'est plus
+ * décrémenté : la case reste occupée, ce qui ne peut produire qu'un faux positif de plus.
+ *
+ * Ne supprimer que des éléments ajoutés : retirer un absent peut effacer les cases d'un autre élément.
+ */
+final class CountingBloomFilter {
+
+    private static final int COUNTER_BITS = 4;
+    private static final int COUNTERS_PER_WORD = Long.SIZE / COUNTER_BITS;
+    private static final long COUNTER_MAX = (1L << COUNTER_BITS) - 1;
+
+    private final AtomicLongArray words;
+    private final long slots;
+    private final int hashes;
+    private final long capacity;
+    private final AtomicLong size = new AtomicLong();
+
+    CountingBloomFilter(long capacity, double fpp) {
+        if (capacity <= 0 || fpp <= 0 || fpp >= 1) {
+            throw new IllegalArgumentException("Capacité > 0 et taux de faux positifs dans ]0, 1[ attendus");
+        }
+        // Dimensionnement classique : m = -n ln(p) / ln(2)², k = m / n ln(2)
+        long m = (long) Math.ceil(-capacity * Math.log(fpp) / (Math.log(2) * Math.log(2)));
+        this.words = new AtomicLongArray(Math.toIntExact((m + COUNTERS_PER_WORD - 1) / COUNTERS_PER_WORD));
+        this.slots = (long) words.length() * COUNTERS_PER_WORD;
+        this.hashes = Math.max(1, (int) Math.round((double) slots / capacity * Math.log(2)));
+        this.capacity = capacity;
+    }
+
+    void add(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            increment(Long.remainderUnsigned(h1 + i * h2, slots));
+        }
+        size.incrementAndGet();
+    }
+
+    void remove(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            decrement(Long.remainderUnsigned(h1 + i * h2, slots));
+        }
+        size.decrementAndGet();
+    }
+
+    boolean mightContain(String key) {
+        long h1 = hash(key);
+        long h2 = mix(h1 ^ 0x9E3779B97F4A7C15L) | 1;
+        for (int i = 0; i < hashes; i++) {
+            if (counter(Long.remainderUnsigned(h1 + i * h2, slots)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    long size() {
+        return size.get();
+    }
+
+    long capacity() {
+        return capacity;
+    }
+
+    // ================= Compteurs =================
+
+    private long counter(long slot) {
+        return (words.get((int) (slot / COUNTERS_PER_WORD)) >>> shift(slot)) & COUNTER_MAX;
+    }
+
+    private void increment(long slot) {
+        int index = (int) (slot / COUNTERS_PER_WORD);
+        int shift = shift(slot);
+        long word;
+        do {
+            word = words.get(index);
+            if (((word >>> shift) & COUNTER_MAX) == COUNTER_MAX) {
+                return;
+            }
+        } while (!words.compareAndSet(index, word, word + (1L << shift)));
+    }
+
+    private void decrement(long slot) {
+        int index = (int) (slot / COUNTERS_PER_WORD);
+        int shift = shift(slot);
+        long word;
+        do {
+            word = words.get(index);
+            long count = (word >>> shift) & COUNTER_MAX;
+            if (count == 0 || count == COUNTER_MAX) {
+                return;
+            }
+        } while (!words.compareAndSet(index, word, word - (1L << shift)));
+    }
+
+    private static int shift(long slot) {
+        return (int) (slot % COUNTERS_PER_WORD) * COUNTER_BITS;
+    }
+
+    // ================= Hachage =================
+
+    // FNV-1a 64 bits sur les octets UTF-8, puis mélange final de MurmurHash3 pour répartir les bits
+    private static long hash(String key) {
+        long h = 0xCBF29CE484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xFF;
+            h *= 0x100000001B3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,366 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.ClientIdentite;
+import com.bfb.rental.dto.ImportReport;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.event.ClientSavedEvent;
+import com.bfb.rental.event.VehiculeSavedEvent;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.ArgumentPreparedStatementSetter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Import CSV de véhicules et de clients (ouverture d'une agence).
+ *
+ * Le fichier est lu en flux. Les contraintes d'unicité (immatriculation ; numéro de permis et
+ * nom + prénom + date de naissance) sont vérifiées sur des ensembles chargés en une requête au début,
+ * complétés au fil du fichier pour détecter aussi les doublons internes. Les lignes valides sont insérées
+ * par lots JDBC, chaque lot dans sa propre transaction ; si un lot échoue quand même (doublon créé
+ * entre-temps), il est rejoué ligne par ligne pour isoler les lignes en cause.
+ *
+ * Chaque ligne rejetée figure dans le rapport avec son motif ; les lignes valides sont importées.
+ * Les véhicules sont importés DISPONIBLE.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CsvImportService {
+
+    private static final String INSERT_VEHICULE = "INSERT INTO vehicule " +
+            "(marque, modele, couleur, motorisation, immatriculation, date_acquisition, etat, prix_journee) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String INSERT_CLIENT = "INSERT INTO client " +
+            "(nom, prenom, date_naissance, num_permis, adresse, email) VALUES (?, ?, ?, ?, ?, ?)";
+
+    private static final List<String> VEHICULE_COLUMNS = List.of(
+            "immatriculation", "marque", "modele", "motorisation", "couleur", "dateAcquisition", "prixJournee");
+    private static final List<String> VEHICULE_REQUIRED = List.of("immatriculation");
+    private static final List<String> CLIENT_COLUMNS = List.of(
+            "nom", "prenom", "dateNaissance", "numPermis", "adresse", "email");
+    private static final List<String> CLIENT_REQUIRED = List.of("nom", "prenom", "dateNaissance", "numPermis");
+
+    private final JdbcTemplate jdbcTemplate;
+    private final PlatformTransactionManager transactionManager;
+    private final VehiculeRepository vehiculeRepository;
+    private final ClientRepository clientRepository;
+    private final UniqueKeyFilter uniqueKeyFilter;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${rental.import.batch-size:1000}")
+    private int batchSize;
+
+    @Value("${rental.import.max-errors:1000}")
+    private int maxErrors;
+
+    public ImportReport importVehicules(InputStream csv) {
+        Set<String> existing = new HashSet<>(vehiculeRepository.findAllImmatriculations());
+        Map<String, Long> seen = new HashMap<>();
+
+        return run("vehicule", csv, VEHICULE_COLUMNS, VEHICULE_REQUIRED, row -> {
+            Double prix = row.decimal("prixJournee");
+            if (prix != null && prix < 0) {
+                throw new IllegalArgumentException("prixJournee ne peut pas être négatif");
+            }
+            LocalDate dateAcquisition = row.date("dateAcquisition");
+            String immatriculation = row.get("immatriculation");
+            unique(existing, seen, immatriculation, row.line(), "Immatriculation déjà existante: " + immatriculation);
+            Vehicule v = new Vehicule();
+            v.setImmatriculation(immatriculation);
+            v.setMarque(row.get("marque"));
+            v.setModele(row.get("modele"));
+            v.setMotorisation(row.get("motorisation"));
+            v.setCouleur(row.get("couleur"));
+            v.setDateAcquisition(dateAcquisition);
+            v.setPrixJournee(prix);
+            v.setEtat(EtatVehicule.DISPONIBLE);
+            return v;
+        }, this::insertVehicules);
+    }
+
+    public ImportReport importClients(InputStream csv) {
+        Set<String> existingPermis = new HashSet<>();
+        Set<String> existingIdentites = new HashSet<>();
+        for (ClientIdentite c : clientRepository.findAllIdentites()) {
+            existingPermis.add(c.numPermis());
+            existingIdentites.add(UniqueKeyFilter.identite(c.nom(), c.prenom(), c.dateNaissance()));
+        }
+        Map<String, Long> seenPermis = new HashMap<>();
+        Map<String, Long> seenIdentites = new HashMap<>();
+
+        return run("client", csv, CLIENT_COLUMNS, CLIENT_REQUIRED, row -> {
+            String nom = row.get("nom");
+            String prenom = row.get("prenom");
+            LocalDate dateNaissance = row.date("dateNaissance");
+            String numPermis = row.get("numPermis");
+            String identite = UniqueKeyFilter.identite(nom, prenom, dateNaissance);
+            // Les deux contraintes sont vérifiées avant d'enregistrer l'une ou l'autre clé
+            if (existingPermis.contains(numPermis) || existingIdentites.contains(identite)) {
+                throw new IllegalArgumentException(existingPermis.contains(numPermis)
+                        ? "Numéro de permis déjà existant: " + numPermis
+                        : "Client déjà existant (nom, prénom, date de naissance)");
+            }
+            Long permisLine = seenPermis.get(numPermis);
+            Long identiteLine = seenIdentites.get(identite);
+            if (permisLine != null || identiteLine != null) {
+                throw new IllegalArgumentException("En double avec la ligne " + (permisLine != null ? permisLine : identiteLine));
+            }
+            seenPermis.put(numPermis, row.line());
+            seenIdentites.put(identite, row.line());
+            Client c = new Client();
+            c.setNom(nom);
+            c.setPrenom(prenom);
+            c.setDateNaissance(dateNaissance);
+            c.setNumPermis(numPermis);
+            c.setAdresse(row.get("adresse"));
+            c.setEmail(row.get("email"));
+            return c;
+        }, this::insertClients);
+    }
+
+    // ================= Écriture =================
+
+    // Les ID générés reviennent avec le lot : les structures en mémoire sont mises à jour (après le commit du lot)
+    // sans relire les lignes
+    // (des entités gérées alourdiraient chaque flush suivant de la requête)
+    private void insertVehicules(List<Vehicule> vehicules) {
+        vehicules.forEach(v -> uniqueKeyFilter.addImmatriculation(v.getImmatriculation()));
+        List<Long> ids = insert(INSERT_VEHICULE, vehicules, v -> new Object[]{v.getMarque(), v.getModele(),
+                v.getCouleur(), v.getMotorisation(), v.getImmatriculation(),
+                v.getDateAcquisition() == null ? null : Date.valueOf(v.getDateAcquisition()),
+                v.getEtat().name(), v.getPrixJournee()});
+        for (int i = 0; i < vehicules.size(); i++) {
+            vehicules.get(i).setId(ids.get(i));
+        }
+        eventPublisher.publishEvent(VehiculeSavedEvent.created(this, vehicules));
+    }
+
+    private void insertClients(List<Client> clients) {
+        clients.forEach(uniqueKeyFilter::addClient);
+        List<Long> ids = insert(INSERT_CLIENT, clients, c -> new Object[]{c.getNom(), c.getPrenom(),
+                Date.valueOf(c.getDateNaissance()), c.getNumPermis(), c.getAdresse(), c.getEmail()});
+        for (int i = 0; i < clients.size(); i++) {
+            clients.get(i).setId(ids.get(i));
+        }
+        eventPublisher.publishEvent(ClientSavedEvent.created(this, clients));
+    }
+
+    // INSERT par lot JDBC ; renvoie les ID générés, dans l'ordre des lignes
+    private <T> List<Long> insert(String sql, List<T> items, Function<T, Object[]> columns) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.batchUpdate(con -> con.prepareStatement(sql, new String[]{"id"}), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                new ArgumentPreparedStatementSetter(columns.apply(items.get(i))).setValues(ps);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return items.size();
+            }
+        }, keys);
+        return keys.getKeyList().stream()
+                .map(row -> ((Number) row.values().iterator().next()).longValue())
+                .toList();
+    }
+
+    // ================= Lecture et validation =================
+
+    private <T> ImportReport run(String entite, InputStream csv, List<String> columns, List<String> required,
+                                 Function<Row, T> parse, Consumer<List<T>> insert) {
+        long start = System.nanoTime();
+        Progress<T> progress = new Progress<>(insert);
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8), 64 * 1024)) {
+            CsvReader reader = new CsvReader(in);
+            Map<String, Integer> header = header(reader.next(), columns, required);
+
+            List<String> fields;
+            while ((fields = reader.next()) != null) {
+                if (fields.size() == 1 && fields.get(0).isBlank()) {
+                    continue;
+                }
+                long line = reader.recordLine();
+                progress.lignes++;
+                if (fields.size() != header.size()) {
+                    progress.reject(line, header.size() + " colonnes attendues, " + fields.size() + " trouvées");
+                    continue;
+                }
+                Row row = new Row(header, fields, line);
+                try {
+                    for (String column : required) {
+                        if (row.get(column) == null) {
+                            throw new IllegalArgumentException(column + " est obligatoire");
+                        }
+                    }
+                    progress.add(line, parse.apply(row));
+                } catch (IllegalArgumentException e) {
+                    progress.reject(line, e.getMessage());
+                }
+            }
+            progress.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du fichier impossible", e);
+        }
+
+        long dureeMs = (System.nanoTime() - start) / 1_000_000;
+        log.info("Import {} : {} ligne(s), {} importée(s), {} rejetée(s) en {} ms",
+                entite, progress.lignes, progress.importes, progress.rejetes, dureeMs);
+        return new ImportReport(entite, progress.lignes, progress.importes, progress.rejetes, progress.erreurs, dureeMs);
+    }
+
+    // Position de chaque colonne connue ; l'ordre des colonnes est libre, les noms insensibles à la casse
+    private static Map<String, Integer> header(List<String> fields, List<String> columns, List<String> required) {
+        if (fields == null) {
+            throw new IllegalArgumentException("Fichier vide : une ligne d'en-tête est attendue (" + String.join(",", columns) + ")");
+        }
+        Map<String, String> byKey = new HashMap<>();
+        columns.forEach(c -> byKey.put(c.toLowerCase(Locale.ROOT), c));
+        Map<String, Integer> header = new HashMap<>();
+        for (int i = 0; i < fields.size(); i++) {
+            String column = byKey.get(fields.get(i).trim().toLowerCase(Locale.ROOT));
+            if (column == null) {
+                throw new IllegalArgumentException("Colonne inconnue : " + fields.get(i) + " (colonnes possibles : " + String.join(",", columns) + ")");
+            }
+            if (header.put(column, i) != null) {
+                throw new IllegalArgumentException("Colonne en double : " + column);
+            }
+        }
+        for (String column : required) {
+            if (!header.containsKey(column)) {
+                throw new IllegalArgumentException("Colonne obligatoire absente : " + column);
+            }
+        }
+        return header;
+    }
+
+    // Clé déjà en base, ou déjà vue plus haut dans le fichier ; sinon elle est enregistrée
+    private static void unique(Set<String> existing, Map<String, Long> seen, String key, long line, String existsMessage) {
+        if (existing.contains(key)) {
+            throw new IllegalArgumentException(existsMessage);
+        }
+        Long previous = seen.putIfAbsent(key, line);
+        if (previous != null) {
+            throw new IllegalArgumentException("En double avec la ligne " + previous);
+        }
+    }
+
+    // Une ligne du fichier : valeurs par nom de colonne, vides = absentes
+    private record Row(Map<String, Integer> header, List<String> fields, long line) {
+
+        String get(String column) {
+            Integer i = header.get(column);
+            if (i == null) {
+                return null;
+            }
+            String value = fields.get(i).trim();
+            return value.isEmpty() ? null : value;
+        }
+
+        Double decimal(String column) {
+            String value = get(column);
+            try {
+                return value == null ? null : Double.valueOf(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(column + " n'est pas un nombre : " + value);
+            }
+        }
+
+        LocalDate date(String column) {
+            String value = get(column);
+            try {
+                return value == null ? null : LocalDate.parse(value);
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException(column + " n'est pas une date AAAA-MM-JJ : " + value);
+            }
+        }
+    }
+
+    // Compteurs, erreurs et lot en cours d'un import
+    private final class Progress<T> {
+
+        private final Consumer<List<T>> insert;
+        private final List<T> batch = new ArrayList<>();
+        private final List<Long> batchLines = new ArrayList<>();
+        private final List<ImportReport.Erreur> erreurs = new ArrayList<>();
+        private long lignes;
+        private long importes;
+        private long rejetes;
+
+        Progress(Consumer<List<T>> insert) {
+            this.insert = insert;
+        }
+
+        void add(long line, T item) {
+            batch.add(item);
+            batchLines.add(line);
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        void reject(long line, String message) {
+            rejetes++;
+            if (erreurs.size() < maxErrors) {
+                erreurs.add(new ImportReport.Erreur(line, message));
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            TransactionTemplate tx = new TransactionTemplate(transactionManager);
+            try {
+                tx.executeWithoutResult(status -> insert.accept(batch));
+                importes += batch.size();
+            } catch (DataIntegrityViolationException e) {
+                // Doublon apparu depuis le chargement des ensembles : le lot est rejoué ligne par ligne
+                for (int i = 0; i < batch.size(); i++) {
+                    List<T> single = List.of(batch.get(i));
+                    try {
+                        tx.executeWithoutResult(status -> insert.accept(single));
+                        importes++;
+                    } catch (DataIntegrityViolationException duplicate) {
+                        reject(batchLines.get(i), "Contrainte d'unicité violée (enregistrement créé pendant l'import)");
+                    }
+                }
+            }
+            batch.clear();
+            batchLines.clear();
+        }
+    }
+}
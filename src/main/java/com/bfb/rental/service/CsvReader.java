@@ -0,0 +1,81 @@
+package com.bfb.rental.service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Lecture d'un CSV (RFC 4180, séparateur virgule) enregistrement par enregistrement, sans charger le fichier :
+ * champs entre guillemets (virgules, guillemets doublés et retours à la ligne compris), BOM UTF-8 ignoré.
+ */
+final class CsvReader {
+
+    private final BufferedReader in;
+    private long lineNumber;
+    private long recordLine;
+
+    CsvReader(BufferedReader in) {
+        this.in = in;
+    }
+
+    // Champs de l'enregistrement suivant, ou null en fin de fichier
+    List<String> next() throws IOException {
+        String line = in.readLine();
+        if (line == null) {
+            return null;
+        }
+        lineNumber++;
+        recordLine = lineNumber;
+        if (lineNumber == 1 && line.startsWith("\uFEFF")) {
+            line = line.substring(1);
+        }
+
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        int i = 0;
+        while (true) {
+            if (i == line.length()) {
+                if (!quoted) {
+                    break;
+                }
+                // Retour à la ligne dans un champ entre guillemets : l'enregistrement continue
+                String continuation = in.readLine();
+                if (continuation == null) {
+                    throw new IllegalArgumentException("Ligne " + recordLine + " : guillemet non fermé");
+                }
+                lineNumber++;
+                field.append('\n');
+                line = continuation;
+                i = 0;
+                continue;
+            }
+            char c = line.charAt(i++);
+            if (quoted) {
+                if (c != '"') {
+                    field.append(c);
+                } else if (i < line.length() && line.charAt(i) == '"') {
+                    field.append('"');
+                    i++;
+                } else {
+                    quoted = false;
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+
+    // Numéro de la ligne où commence le dernier enregistrement lu (1 = en-tête)
+    long recordLine() {
+        return recordLine;
+    }
+}
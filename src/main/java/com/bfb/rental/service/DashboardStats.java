@@ -0,0 +1,171 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.ContratSnapshot;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.event.ClientRemovedEvent;
+import com.bfb.rental.event.ClientSavedEvent;
+import com.bfb.rental.event.ContratChangedEvent;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
+import com.bfb.rental.event.VehiculeEtatChangedEvent;
+import com.bfb.rental.event.VehiculePanneEvent;
+import com.bfb.rental.event.VehiculeRemovedEvent;
+import com.bfb.rental.event.VehiculeSavedEvent;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.ContratRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Compteurs du tableau de bord, maintenus à chaque transition d'état
+ * au lieu d'être recalculés en parcourant toutes les tables à chaque affichage.
+ *
+ * Les mises à jour suivent les événements des chemins d'écriture, après commit. Une réconciliation périodique
+ * (requêtes d'agrégat COUNT / SUM) corrige une éventuelle dérive, par exemple
+ * après une modification faite directement en base.
+ */
+@Component
+@RequiredArgsConstructor
+public class DashboardStats {
+
+    private final VehiculeRepository vehiculeRepository;
+    private final ClientRepository clientRepository;
+    private final ContratRepository contratRepository;
+
+    private final AtomicLong totalCars = new AtomicLong();
+    private final AtomicLong rentedCars = new AtomicLong();
+    private final AtomicLong totalClients = new AtomicLong();
+    private final AtomicLong overdueContracts = new AtomicLong();
+    // Revenu en centimes pour éviter l'accumulation d'erreurs d'arrondi
+    private final AtomicLong revenueCents = new AtomicLong();
+
+    public long getTotalCars() {
+        return totalCars.get();
+    }
+
+    public long getRentedCars() {
+        return rentedCars.get();
+    }
+
+    public long getTotalClients() {
+        return totalClients.get();
+    }
+
+    public long getOverdueContracts() {
+        return overdueContracts.get();
+    }
+
+    public double getTotalRevenue() {
+        return revenueCents.get() / 100.0;
+    }
+
+    // Recalcul complet à partir de la base : au démarrage puis périodiquement
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${rental.stats.reconcile-ms:300000}", fixedDelayString = "${rental.stats.reconcile-ms:300000}")
+    public void reconcile() {
+        totalCars.set(vehiculeRepository.count());
+        rentedCars.set(vehiculeRepository.countByEtat(EtatVehicule.EN_LOCATION));
+        totalClients.set(clientRepository.count());
+        overdueContracts.set(contratRepository.countByEtat(EtatContrat.EN_RETARD));
+        revenueCents.set(toCents(contratRepository.sumPrixTotal()));
+    }
+
+    // Génération massive ou réinitialisation : recalcul complet
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleDonneesRemplacees(DonneesRemplaceesEvent event) {
+        reconcile();
+    }
+
+    // ================= Véhicules (après commit) =================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeSaved(VehiculeSavedEvent event) {
+        if (event.isCreated()) {
+            totalCars.addAndGet(event.getVehicules().size());
+            rentedCars.addAndGet(event.getVehicules().stream().filter(v -> v.getEtat() == EtatVehicule.EN_LOCATION).count());
+        } else {
+            for (Vehicule v : event.getVehicules()) {
+                vehiculeEtatChanged(event.getPreviousEtat(), v.getEtat(), 1);
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeRemoved(VehiculeRemovedEvent event) {
+        totalCars.decrementAndGet();
+        if (event.getEtat() == EtatVehicule.EN_LOCATION) {
+            rentedCars.decrementAndGet();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeEtatChanged(VehiculeEtatChangedEvent event) {
+        vehiculeEtatChanged(event.getFrom(), event.getTo(), event.getVehiculeIds().size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculePanne(VehiculePanneEvent event) {
+        vehiculeEtatChanged(EtatVehicule.EN_LOCATION, EtatVehicule.EN_PANNE, event.getEnLocation());
+    }
+
+    private void vehiculeEtatChanged(EtatVehicule from, EtatVehicule to, int count) {
+        int delta = ((to == EtatVehicule.EN_LOCATION ? 1 : 0) - (from == EtatVehicule.EN_LOCATION ? 1 : 0)) * count;
+        if (delta != 0) {
+            rentedCars.addAndGet(delta);
+        }
+    }
+
+    // ================= Clients (après commit) =================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleClientSaved(ClientSavedEvent event) {
+        if (event.isCreated()) {
+            totalClients.addAndGet(event.getClients().size());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleClientRemoved(ClientRemovedEvent event) {
+        totalClients.decrementAndGet();
+    }
+
+    // ================= Contrats (après commit) =================
+
+    // Écart de revenu et de contrats en retard entre l'état avant et après de chaque contrat
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleContratChanged(ContratChangedEvent event) {
+        long cents = 0;
+        long overdue = 0;
+        for (ContratChangedEvent.Change change : event.getChanges()) {
+            cents += cents(change.after()) - cents(change.before());
+            overdue += overdue(change.after()) - overdue(change.before());
+        }
+        if (cents != 0) {
+            revenueCents.addAndGet(cents);
+        }
+        if (overdue != 0) {
+            overdueContracts.addAndGet(overdue);
+        }
+    }
+
+    private static long cents(ContratSnapshot c) {
+        return c == null ? 0L : toCents(c.prixTotal());
+    }
+
+    private static int overdue(ContratSnapshot c) {
+        return c != null && c.etat() == EtatContrat.EN_RETARD ? 1 : 0;
+    }
+
+    private static long toCents(Double amount) {
+        return amount == null ? 0L : Math.round(amount * 100);
+    }
+}
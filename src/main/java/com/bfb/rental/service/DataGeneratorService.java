@@ -5,10 +5,15 @@ import com.bfb.rental.entity.Contrat;
 import com.bfb.rental.entity.Vehicule;
 import com.bfb.rental.enums.EtatContrat;
 import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.event.ContratChangedEvent;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
 import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.PanneRepository;
 import com.bfb.rental.repository.VehiculeRepository;
 import com.bfb.rental.repository.ContratRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -16,6 +21,7 @@ import java.time.LocalDate;
 import java.util.List;
 import java.util.Random;
 import java.util.UUID;
+import java.util.function.LongFunction;
 
 @Service
 @RequiredArgsConstructor
@@ -25,6 +31,11 @@ public class DataGeneratorService {
     private final VehiculeRepository vehiculeRepository;
     private final ContratRepository contratRepository;
     private final ContratService contratService;
+    private final VehiculeService vehiculeService;
+    private final ClientService clientService;
+    private final PanneRepository panneRepository;
+    private final UniqueKeyFilter uniqueKeyFilter;
+    private final ApplicationEventPublisher eventPublisher;
     private final Random random = new Random();
 
     // === Client aléatoire ===
@@ -38,7 +49,7 @@ public class DataGeneratorService {
         c.setDateNaissance(LocalDate.of(1970 + random.nextInt(30), 1 + random.nextInt(12), 1 + random.nextInt(28)));
         c.setNumPermis("PERMIS-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase());
         c.setAdresse("Rue de Paris " + random.nextInt(100));
-        clientRepository.save(c);
+        clientService.createClient(c);
     }
 
     // === Véhicule aléatoire ===
@@ -61,29 +72,39 @@ public class DataGeneratorService {
         v.setPrixJournee(30.0 + random.nextInt(120));
 
         // Logique simple pour éviter les doublons d'immatriculation
-        if(!vehiculeRepository.existsByImmatriculation(v.getImmatriculation())) {
-            vehiculeRepository.save(v);
+        if(!uniqueKeyFilter.immatriculationExists(v.getImmatriculation())) {
+            vehiculeService.createVehicule(v);
         }
     }
 
     // === Contrat aléatoire ===
     public void generateRandomContrat() throws Exception {
-        List<Client> clients = clientRepository.findAll();
-        List<Vehicule> vehicules = vehiculeRepository.findAll();
+        // Tirage par ID plutôt que findAll() : deux petites requêtes indexées, quelle que soit la taille des tables
+        Long clientId = randomId(clientRepository.findMinId(), clientRepository.findMaxId(),
+                from -> clientRepository.findIdsFrom(from, Limit.of(1)));
+        Long vehiculeId = randomId(vehiculeRepository.findMinId(), vehiculeRepository.findMaxId(),
+                from -> vehiculeRepository.findIdsFrom(from, Limit.of(1)));
 
-        if (clients.isEmpty() || vehicules.isEmpty()) {
+        if (clientId == null || vehiculeId == null) {
             throw new RuntimeException("Pas assez de données pour générer un contrat");
         }
 
-        Client randomClient = clients.get(random.nextInt(clients.size()));
-        Vehicule randomVehicule = vehicules.get(random.nextInt(vehicules.size()));
-
         // Date future aléatoire
         LocalDate start = LocalDate.now().plusDays(random.nextInt(30)); 
         LocalDate end = start.plusDays(1 + random.nextInt(10));
 
         // Appel du Service pour s'assurer de la détection des conflits
-        contratService.createContrat(randomClient.getId(), randomVehicule.getId(), start, end);
+        contratService.createContrat(clientId, vehiculeId, start, end);
+    }
+
+    // ID tiré uniformément entre les bornes puis ramené au premier ID existant (les suppressions laissent des trous)
+    private Long randomId(Long minId, Long maxId, LongFunction<List<Long>> idsFrom) {
+        if (minId == null || maxId == null) {
+            return null;
+        }
+        long target = minId + (long) (random.nextDouble() * (maxId - minId + 1));
+        List<Long> ids = idsFrom.apply(target);
+        return ids.isEmpty() ? minId : ids.get(0);
     }
 
     /**
@@ -99,10 +120,11 @@ public class DataGeneratorService {
         v.setCouleur("Rouge");
         v.setMotorisation("Essence");
         v.setDateAcquisition(LocalDate.now().minusYears(1));
-        vehiculeRepository.save(v);
+        vehiculeService.createVehicule(v);
 
         // 2. Créer un client
-        Client c = clientRepository.findAll().stream().findFirst().orElse(null);
+        Client c = clientRepository.findIdsFrom(0L, Limit.of(1)).stream()
+                .findFirst().flatMap(clientRepository::findById).orElse(null);
         if(c == null) {
             // S'il n'y a pas de client, en créer un
             c = new Client();
@@ -110,7 +132,7 @@ public class DataGeneratorService {
             c.setPrenom("Demo");
             c.setNumPermis("TEST-PERMIS");
             c.setDateNaissance(LocalDate.of(1990, 1, 1));
-            clientRepository.save(c);
+            c = clientService.createClient(c);
         }
 
         // 3. Créer le contrat A (le fautif) :
@@ -133,6 +155,7 @@ public class DataGeneratorService {
         
         c2.setEtat(EtatContrat.EN_ATTENTE);
         contratRepository.save(c2);
+        eventPublisher.publishEvent(ContratChangedEvent.created(this, List.of(c1, c2)));
     }
 
 
@@ -140,7 +163,10 @@ public class DataGeneratorService {
     @Transactional
     public void resetSystem() {
         contratRepository.deleteAll();
+        panneRepository.deleteAllInBatch();
         vehiculeRepository.deleteAll();
         clientRepository.deleteAll();
+        // Toutes les structures en mémoire se reconstruisent depuis la base vidée, après le commit
+        eventPublisher.publishEvent(new DonneesRemplaceesEvent(this));
     }
 }
\ No newline at end of file
@@ -0,0 +1,343 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.ContratRollup;
+import com.bfb.rental.dto.ContratSnapshot;
+import com.bfb.rental.dto.FleetReport;
+import com.bfb.rental.dto.VehiculeProfile;
+import com.bfb.rental.entity.Panne;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.event.ContratChangedEvent;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
+import com.bfb.rental.repository.ContratRepository;
+import com.bfb.rental.repository.PanneRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+/**
+ * Agrégats journaliers par véhicule pour les rapports d'utilisation et de revenu.
+ *
+ * Pour chaque véhicule, des colonnes de types primitifs indexées par jour (à partir d'une origine) :
+ * contrats en cours ce jour-là, revenu du jour en centimes, jour en panne. Un contrat compte à partir
+ * de son démarrage (EN_COURS, puis EN_RETARD ou TERMINE) ; son prix est réparti uniformément sur ses jours.
+ * Les pannes viennent de l'historique (table panne) ; une panne en cours compte jusqu'à aujourd'hui.
+ *
+ * Reconstruit au démarrage (lecture en flux des contrats démarrés), puis maintenu après chaque commit
+ * qui fait entrer ou sortir un contrat de ces états, ou qui en modifie les dates ou le prix.
+ * Un rapport ne lit que la liste des véhicules concernés, jamais la table des contrats.
+ */
+@Component
+@RequiredArgsConstructor
+public class FleetRollups {
+
+    public static final int MAX_RANGE_DAYS = 1096;
+
+    private final ContratRepository contratRepository;
+    private final PanneRepository panneRepository;
+    private final VehiculeRepository vehiculeRepository;
+    private final PlatformTransactionManager transactionManager;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Series> byVehicule = new HashMap<>();
+    // Pannes en cours : véhicule -> premier jour de panne
+    private final Map<Long, Long> openPannes = new HashMap<>();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        tx.setReadOnly(true);
+        lock.writeLock().lock();
+        try {
+            byVehicule.clear();
+            openPannes.clear();
+            tx.executeWithoutResult(status -> {
+                try (Stream<ContratRollup> rows = contratRepository.streamRollups()) {
+                    rows.forEach(r -> doAdd(r, 1));
+                }
+            });
+            for (Panne p : panneRepository.findAll()) {
+                if (p.getDateFin() == null) {
+                    openPannes.merge(p.getVehiculeId(), p.getDateDebut().toEpochDay(), Math::min);
+                } else {
+                    doMarkPanne(p.getVehiculeId(), p.getDateDebut().toEpochDay(), p.getDateFin().toEpochDay());
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public static boolean isCounted(EtatContrat etat) {
+        return etat == EtatContrat.EN_COURS || etat == EtatContrat.EN_RETARD || etat == EtatContrat.TERMINE;
+    }
+
+    // Contribution d'un contrat, null s'il n'est pas compté (ou s'il n'existe pas)
+    private static ContratRollup rollupOf(ContratSnapshot c) {
+        return c != null && isCounted(c.etat())
+                ? new ContratRollup(c.vehiculeId(), c.dateDebut(), c.dateFin(), c.prixTotal())
+                : null;
+    }
+
+    // ================= Mises à jour (appliquées après commit) =================
+
+    // Contrats qui entrent ou sortent des états comptés, ou dont les dates ou le prix changent
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleContratChanged(ContratChangedEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (ContratChangedEvent.Change change : event.getChanges()) {
+                ContratRollup before = rollupOf(change.before());
+                ContratRollup after = rollupOf(change.after());
+                if (Objects.equals(before, after)) {
+                    continue;
+                }
+                if (before != null) {
+                    doAdd(before, -1);
+                }
+                if (after != null) {
+                    doAdd(after, 1);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleDonneesRemplacees(DonneesRemplaceesEvent event) {
+        rebuild();
+    }
+
+    public void panneOpened(Collection<Long> vehiculeIds, LocalDate day) {
+        List<Long> copy = List.copyOf(vehiculeIds);
+        long since = day.toEpochDay();
+        TransactionHooks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                copy.forEach(id -> openPannes.putIfAbsent(id, since));
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void panneClosed(Long vehiculeId, LocalDate day) {
+        TransactionHooks.afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                Long since = openPannes.remove(vehiculeId);
+                if (since != null) {
+                    doMarkPanne(vehiculeId, since, day.toEpochDay());
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    // ================= Rapports =================
+
+    /**
+     * Utilisation et revenu sur [debut, fin], pour un véhicule ou les véhicules d'une marque / motorisation
+     * (filtres optionnels), regroupés par "vehicule", "marque" ou "motorisation" (groupBy optionnel).
+     */
+    public FleetReport report(LocalDate debut, LocalDate fin, Long vehiculeId, String marque, String motorisation,
+                              String groupBy) {
+        if (fin.isBefore(debut)) {
+            throw new IllegalArgumentException("La date de fin ne peut pas être antérieure à la date de début");
+        }
+        long days = fin.toEpochDay() - debut.toEpochDay() + 1;
+        if (days > MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Période de rapport limitée à " + MAX_RANGE_DAYS + " jours");
+        }
+        if (groupBy != null && !List.of("vehicule", "marque", "motorisation").contains(groupBy)) {
+            throw new IllegalArgumentException("Regroupement inconnu : " + groupBy + " (vehicule, marque ou motorisation)");
+        }
+        List<VehiculeProfile> profiles = vehiculeRepository.findProfiles(vehiculeId, blankToNull(marque), blankToNull(motorisation));
+
+        // Par groupe : véhicules, jours loués, jours en panne, revenu en centimes
+        Map<String, long[]> groups = "vehicule".equals(groupBy) ? new LinkedHashMap<>() : new TreeMap<>();
+        long[] total = new long[4];
+        long from = debut.toEpochDay();
+        long to = fin.toEpochDay();
+        long today = LocalDate.now().toEpochDay();
+        lock.readLock().lock();
+        try {
+            for (VehiculeProfile p : profiles) {
+                long[] stats = new long[4];
+                stats[0] = 1;
+                accumulate(p.id(), from, to, today, stats);
+                add(total, stats);
+                if (groupBy != null) {
+                    add(groups.computeIfAbsent(groupKey(p, groupBy), k -> new long[4]), stats);
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        List<FleetReport.Ligne> lignes = new ArrayList<>(groups.size());
+        groups.forEach((key, stats) -> lignes.add(ligne(key, stats, days)));
+        return new FleetReport(debut, fin, groupBy, lignes, ligne("total", total, days));
+    }
+
+    // ================= Interne =================
+
+    // Sous verrou de lecture
+    private void accumulate(Long vehiculeId, long from, long to, long today, long[] stats) {
+        Series s = byVehicule.get(vehiculeId);
+        if (s != null) {
+            int a = (int) (Math.max(from, s.origin) - s.origin);
+            int b = (int) (Math.min(to, s.origin + s.length() - 1) - s.origin);
+            for (int i = a; i <= b; i++) {
+                if (s.rented[i] > 0) {
+                    stats[1]++;
+                }
+                if (s.panne[i] != 0) {
+                    stats[2]++;
+                }
+                stats[3] += s.revenueCents[i];
+            }
+        }
+        Long since = openPannes.get(vehiculeId);
+        if (since != null) {
+            for (long day = Math.max(from, since); day <= Math.min(to, today); day++) {
+                if (s == null || !s.isPanne(day)) {
+                    stats[2]++;
+                }
+            }
+        }
+    }
+
+    // Sous verrou d'écriture ; sign = 1 pour ajouter la contribution, -1 pour la retirer
+    private void doAdd(ContratRollup r, int sign) {
+        long from = r.dateDebut().toEpochDay();
+        long to = r.dateFin().toEpochDay();
+        if (to < from) {
+            return;
+        }
+        int days = (int) (to - from + 1);
+        long cents = r.prixTotal() == null ? 0L : Math.round(r.prixTotal() * 100);
+        long base = cents / days;
+        long remainder = cents % days;
+        Series s = byVehicule.computeIfAbsent(r.vehiculeId(), id -> new Series());
+        s.cover(from, to);
+        int start = (int) (from - s.origin);
+        for (int i = 0; i < days; i++) {
+            s.rented[start + i] += (short) sign;
+            s.revenueCents[start + i] += (int) (sign * (base + (i < remainder ? 1 : 0)));
+        }
+    }
+
+    private void doMarkPanne(Long vehiculeId, long from, long to) {
+        if (to < from) {
+            return;
+        }
+        Series s = byVehicule.computeIfAbsent(vehiculeId, id -> new Series());
+        s.cover(from, to);
+        for (long day = from; day <= to; day++) {
+            s.panne[(int) (day - s.origin)] = 1;
+        }
+    }
+
+    private static String groupKey(VehiculeProfile p, String groupBy) {
+        String key = switch (groupBy) {
+            case "vehicule" -> String.valueOf(p.id());
+            case "marque" -> p.marque();
+            default -> p.motorisation();
+        };
+        return key == null ? "-" : key;
+    }
+
+    private static FleetReport.Ligne ligne(String key, long[] stats, long days) {
+        long capacity = stats[0] * days;
+        double taux = capacity == 0 ? 0.0 : Math.round(stats[1] * 10_000.0 / capacity) / 10_000.0;
+        return new FleetReport.Ligne(key, (int) stats[0], stats[1], stats[2], taux, stats[3] / 100.0);
+    }
+
+    private static void add(long[] into, long[] stats) {
+        for (int i = 0; i < into.length; i++) {
+            into[i] += stats[i];
+        }
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
+    /**
+     * Colonnes journalières d'un véhicule, couvrant [origin, origin + length[.
+     * Elles s'étendent (par doublement) du côté où une nouvelle date apparaît.
+     */
+    private static final class Series {
+
+        private long origin;
+        private short[] rented = new short[0];
+        private int[] revenueCents = new int[0];
+        private byte[] panne = new byte[0];
+
+        int length() {
+            return rented.length;
+        }
+
+        boolean isPanne(long day) {
+            long i = day - origin;
+            return i >= 0 && i < panne.length && panne[(int) i] != 0;
+        }
+
+        void cover(long from, long to) {
+            int length = length();
+            if (length == 0) {
+                origin = from;
+                resize(from, (int) (to - from + 1));
+                return;
+            }
+            long end = origin + length - 1;
+            if (from >= origin && to <= end) {
+                return;
+            }
+            long newOrigin = Math.min(from, origin);
+            long newEnd = Math.max(to, end);
+            if (from < origin) {
+                newOrigin -= length;
+            } else {
+                newEnd += length;
+            }
+            resize(newOrigin, (int) (newEnd - newOrigin + 1));
+        }
+
+        private void resize(long newOrigin, int newLength) {
+            int offset = (int) (origin - newOrigin);
+            short[] r = new short[newLength];
+            int[] c = new int[newLength];
+            byte[] p = new byte[newLength];
+            System.arraycopy(rented, 0, r, offset, rented.length);
+            System.arraycopy(revenueCents, 0, c, offset, revenueCents.length);
+            System.arraycopy(panne, 0, p, offset, panne.length);
+            rented = r;
+            revenueCents = c;
+            panne = p;
+            origin = newOrigin;
+        }
+    }
+}
@@ -0,0 +1,258 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.ReservationSlot;
+import com.bfb.rental.dto.VehiculeProfile;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
+import com.bfb.rental.event.VehiculePanneEvent;
+import com.bfb.rental.event.VehiculeRemovedEvent;
+import com.bfb.rental.event.VehiculeSavedEvent;
+import com.bfb.rental.repository.VehiculeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Index d'occupation de la flotte, jour par jour, pour la recherche de disponibilité.
+ *
+ * Chaque véhicule reçoit un numéro dense (sa position dans les BitSet). Pour chaque jour réservé,
+ * un BitSet indique les véhicules occupés ; d'autres BitSet donnent les véhicules par marque,
+ * par motorisation, et ceux EN_PANNE. "Quels véhicules sont libres sur toute la période" se résout
+ * alors par des opérations ET / ET-NON mot par mot, sans accès à la base.
+ *
+ * Les réservations sont alimentées par ReservationIndex ; les attributs des véhicules par les
+ * événements des chemins d'écriture des véhicules (création, modification, panne, suppression).
+ */
+@Component
+@RequiredArgsConstructor
+public class OccupancyIndex {
+
+    public static final int MAX_RANGE_DAYS = 366;
+
+    private final VehiculeRepository vehiculeRepository;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private long[] vehiculeIds = new long[1024];
+    private int size = 0;
+
+    private final BitSet known = new BitSet();
+    private final BitSet enPanne = new BitSet();
+    private final Map<String, BitSet> byMarque = new HashMap<>();
+    private final Map<String, BitSet> byMotorisation = new HashMap<>();
+    private final Map<Long, BitSet> occupiedByDay = new HashMap<>();
+
+    // Chargement des attributs de la flotte au démarrage (les réservations viennent de ReservationIndex)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildFleet() {
+        List<VehiculeProfile> profiles = vehiculeRepository.findAllProfiles();
+        lock.writeLock().lock();
+        try {
+            known.clear();
+            enPanne.clear();
+            byMarque.clear();
+            byMotorisation.clear();
+            for (VehiculeProfile p : profiles) {
+                doPutVehicule(p);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Véhicules libres sur toute la période [debut, fin], hors EN_PANNE,
+     * avec filtres optionnels (insensibles à la casse) sur la motorisation et la marque.
+     *
+     * @return les ID des véhicules libres, triés par ID croissant
+     */
+    public List<Long> findAvailable(LocalDate debut, LocalDate fin, String motorisation, String marque) {
+        if (fin.isBefore(debut)) {
+            throw new IllegalArgumentException("La date de fin ne peut pas être antérieure à la date de début");
+        }
+        if (fin.toEpochDay() - debut.toEpochDay() >= MAX_RANGE_DAYS) {
+            throw new IllegalArgumentException("Période de recherche limitée à " + MAX_RANGE_DAYS + " jours");
+        }
+        lock.readLock().lock();
+        try {
+            BitSet free = (BitSet) known.clone();
+            free.andNot(enPanne);
+            if (motorisation != null && !motorisation.isBlank()) {
+                free.and(byMotorisation.getOrDefault(key(motorisation), new BitSet()));
+            }
+            if (marque != null && !marque.isBlank()) {
+                free.and(byMarque.getOrDefault(key(marque), new BitSet()));
+            }
+            for (long day = debut.toEpochDay(); day <= fin.toEpochDay() && !free.isEmpty(); day++) {
+                BitSet occupied = occupiedByDay.get(day);
+                if (occupied != null) {
+                    free.andNot(occupied);
+                }
+            }
+            List<Long> ids = new ArrayList<>(free.cardinality());
+            for (int pos = free.nextSetBit(0); pos >= 0; pos = free.nextSetBit(pos + 1)) {
+                ids.add(vehiculeIds[pos]);
+            }
+            ids.sort(null);
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Génération massive ou réinitialisation ; les réservations suivent avec la reconstruction de ReservationIndex
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleDonneesRemplacees(DonneesRemplaceesEvent event) {
+        rebuildFleet();
+    }
+
+    // ================= Attributs des véhicules (après commit) =================
+
+    // Import par lot : un seul passage sous le verrou d'écriture
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeSaved(VehiculeSavedEvent event) {
+        List<VehiculeProfile> profiles = event.getVehicules().stream()
+                .map(v -> new VehiculeProfile(v.getId(), v.getMarque(), v.getMotorisation(), v.getEtat()))
+                .toList();
+        lock.writeLock().lock();
+        try {
+            profiles.forEach(this::doPutVehicule);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculePanne(VehiculePanneEvent event) {
+        lock.writeLock().lock();
+        try {
+            for (Long id : event.getVehiculeIds()) {
+                Integer pos = positions.get(id);
+                if (pos != null) {
+                    enPanne.set(pos);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeRemoved(VehiculeRemovedEvent event) {
+        lock.writeLock().lock();
+        try {
+            Integer pos = positions.get(event.getVehiculeId());
+            if (pos != null) {
+                clearAttributes(pos);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ================= Réservations (appelé par ReservationIndex, déjà après commit) =================
+
+    void occupy(ReservationSlot slot) {
+        setDays(slot, true);
+    }
+
+    void release(ReservationSlot slot) {
+        setDays(slot, false);
+    }
+
+    // Reconstruction de ReservationIndex : toutes les réservations remplacées en un seul passage sous verrou
+    void replaceReservations(Collection<ReservationSlot> slots) {
+        lock.writeLock().lock();
+        try {
+            occupiedByDay.clear();
+            for (ReservationSlot slot : slots) {
+                int pos = position(slot.vehiculeId());
+                for (long day = slot.dateDebut().toEpochDay(); day <= slot.dateFin().toEpochDay(); day++) {
+                    occupiedByDay.computeIfAbsent(day, d -> new BitSet()).set(pos);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void setDays(ReservationSlot slot, boolean occupied) {
+        lock.writeLock().lock();
+        try {
+            int pos = position(slot.vehiculeId());
+            for (long day = slot.dateDebut().toEpochDay(); day <= slot.dateFin().toEpochDay(); day++) {
+                if (occupied) {
+                    occupiedByDay.computeIfAbsent(day, d -> new BitSet()).set(pos);
+                } else {
+                    BitSet bits = occupiedByDay.get(day);
+                    if (bits != null) {
+                        bits.clear(pos);
+                        if (bits.isEmpty()) {
+                            occupiedByDay.remove(day);
+                        }
+                    }
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // ================= Interne (sous verrou d'écriture) =================
+
+    private void doPutVehicule(VehiculeProfile p) {
+        int pos = position(p.id());
+        clearAttributes(pos);
+        known.set(pos);
+        if (p.etat() == EtatVehicule.EN_PANNE) {
+            enPanne.set(pos);
+        }
+        if (p.marque() != null) {
+            byMarque.computeIfAbsent(key(p.marque()), k -> new BitSet()).set(pos);
+        }
+        if (p.motorisation() != null) {
+            byMotorisation.computeIfAbsent(key(p.motorisation()), k -> new BitSet()).set(pos);
+        }
+    }
+
+    private void clearAttributes(int pos) {
+        known.clear(pos);
+        enPanne.clear(pos);
+        byMarque.values().forEach(bits -> bits.clear(pos));
+        byMotorisation.values().forEach(bits -> bits.clear(pos));
+    }
+
+    // Les positions ne sont jamais réattribuées : un véhicule supprimé laisse simplement un trou
+    private int position(Long vehiculeId) {
+        Integer pos = positions.get(vehiculeId);
+        if (pos != null) {
+            return pos;
+        }
+        if (size == vehiculeIds.length) {
+            vehiculeIds = Arrays.copyOf(vehiculeIds, size * 2);
+        }
+        vehiculeIds[size] = vehiculeId;
+        positions.put(vehiculeId, size);
+        return size++;
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+}
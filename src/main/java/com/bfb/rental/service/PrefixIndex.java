@@ -0,0 +1,275 @@
+package com.bfb.rental.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Pattern;
+
+/**
+ * Index de recherche par préfixe de mots : "du je" trouve "Dupont Jean".
+ *
+ * Les mots (en minuscules, sans accents ni ponctuation) sont rangés dans des tableaux triés, chaque mot
+ * renvoyant à la position de son entité ; les mots d'un préfixe forment donc une plage contiguë, trouvée
+ * par recherche dichotomique. Les ajouts récents vont dans un petit ensemble trié à part, fusionné dans
+ * les tableaux quand il grossit. Une entité modifiée ou supprimée libère sa position (ses anciens mots
+ * sont ignorés jusqu'à la fusion suivante) ; modifiée, elle en reçoit une nouvelle.
+ *
+ * Une recherche à plusieurs mots est l'intersection, par BitSet de positions, des plages de chaque mot.
+ */
+final class PrefixIndex {
+
+    private static final Pattern ACCENTS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARATORS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private final Map<Long, Integer> positions = new HashMap<>();
+    private long[] ids = new long[1024];
+    private int size = 0;
+    private final BitSet live = new BitSet();
+
+    // Mots fusionnés (triés) et ajouts récents
+    private String[] words = new String[0];
+    private int[] wordPositions = new int[0];
+    private final TreeSet<Posting> recent = new TreeSet<>();
+
+    // ================= Mise à jour =================
+
+    // Ajoute ou remplace les textes indexés d'une entité
+    void put(long id, String... texts) {
+        Set<String> entityWords = new LinkedHashSet<>();
+        for (String text : texts) {
+            entityWords.addAll(words(text));
+        }
+        lock.writeLock().lock();
+        try {
+            doRemove(id);
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            int pos = size++;
+            ids[pos] = id;
+            positions.put(id, pos);
+            live.set(pos);
+            entityWords.forEach(word -> recent.add(new Posting(word, pos)));
+            if (recent.size() > Math.max(10_000, words.length / 8) || size - live.cardinality() > Math.max(10_000, size / 2)) {
+                compact();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    void remove(long id) {
+        lock.writeLock().lock();
+        try {
+            doRemove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Remplace tout le contenu : entrées (id, textes...)
+    void reset(Collection<Entry> entries) {
+        lock.writeLock().lock();
+        try {
+            positions.clear();
+            ids = new long[Math.max(1024, entries.size())];
+            size = 0;
+            live.clear();
+            recent.clear();
+            List<Posting> all = new ArrayList<>(entries.size() * 4);
+            for (Entry e : entries) {
+                int pos = size++;
+                ids[pos] = e.id();
+                positions.put(e.id(), pos);
+                live.set(pos);
+                Set<String> entityWords = new LinkedHashSet<>();
+                for (String text : e.texts()) {
+                    entityWords.addAll(words(text));
+                }
+                entityWords.forEach(word -> all.add(new Posting(word, pos)));
+            }
+            all.sort(null);
+            words = new String[all.size()];
+            wordPositions = new int[all.size()];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = all.get(i).word();
+                wordPositions[i] = all.get(i).position();
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void doRemove(long id) {
+        Integer pos = positions.remove(id);
+        if (pos != null) {
+            live.clear(pos);
+        }
+    }
+
+    // Fusion des ajouts récents dans les tableaux triés, sans les positions libérées, puis renumérotation
+    private void compact() {
+        int[] renumber = new int[size];
+        long[] newIds = new long[Math.max(1024, live.cardinality() * 2)];
+        int newSize = 0;
+        for (int pos = live.nextSetBit(0); pos >= 0; pos = live.nextSetBit(pos + 1)) {
+            renumber[pos] = newSize;
+            newIds[newSize++] = ids[pos];
+        }
+
+        List<String> mergedWords = new ArrayList<>(words.length + recent.size());
+        int[] mergedPositions = new int[words.length + recent.size()];
+        int n = 0;
+        int i = 0;
+        Iterator<Posting> it = recent.iterator();
+        Posting next = it.hasNext() ? it.next() : null;
+        while (i < words.length || next != null) {
+            boolean fromBase = next == null
+                    || (i < words.length && compare(words[i], wordPositions[i], next.word(), next.position()) <= 0);
+            String word = fromBase ? words[i] : next.word();
+            int pos = fromBase ? wordPositions[i++] : next.position();
+            if (!fromBase) {
+                next = it.hasNext() ? it.next() : null;
+            }
+            if (live.get(pos)) {
+                mergedWords.add(word);
+                mergedPositions[n++] = renumber[pos];
+            }
+        }
+
+        words = mergedWords.toArray(new String[0]);
+        wordPositions = Arrays.copyOf(mergedPositions, n);
+        recent.clear();
+        ids = newIds;
+        size = newSize;
+        live.clear();
+        live.set(0, newSize);
+        positions.clear();
+        for (int pos = 0; pos < newSize; pos++) {
+            positions.put(newIds[pos], pos);
+        }
+    }
+
+    // ================= Recherche =================
+
+    /**
+     * Entités dont chaque mot de la requête est le début d'un de leurs mots.
+     *
+     * @return au plus limit ID, par ordre d'indexation
+     */
+    List<Long> search(String query, int limit) {
+        List<String> prefixes = words(query);
+        if (prefixes.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            BitSet match = null;
+            for (String prefix : prefixes) {
+                BitSet found = new BitSet(size);
+                for (int i = lowerBound(prefix); i < words.length && words[i].startsWith(prefix); i++) {
+                    found.set(wordPositions[i]);
+                }
+                for (Posting p : recent.tailSet(new Posting(prefix, -1))) {
+                    if (!p.word().startsWith(prefix)) {
+                        break;
+                    }
+                    found.set(p.position());
+                }
+                if (match == null) {
+                    match = found;
+                } else {
+                    match.and(found);
+                }
+            }
+            match.and(live);
+            List<Long> result = new ArrayList<>(Math.min(limit, match.cardinality()));
+            for (int pos = match.nextSetBit(0); pos >= 0 && result.size() < limit; pos = match.nextSetBit(pos + 1)) {
+                result.add(ids[pos]);
+            }
+            return result;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    int size() {
+        lock.readLock().lock();
+        try {
+            return live.cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private int lowerBound(String prefix) {
+        int lo = 0;
+        int hi = words.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (words[mid].compareTo(prefix) < 0) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+
+    /**
+     * Mots d'un texte : minuscules, sans accents, découpés sur les espaces et la ponctuation.
+     * Un groupe ponctué est aussi indexé d'un seul tenant : "AB-123-CD" donne ab, 123, cd et ab123cd,
+     * et se retrouve en tapant "ab-12" comme "123".
+     */
+    static List<String> words(String text) {
+        if (text == null || text.isBlank()) {
+            return List.of();
+        }
+        String normalized = ACCENTS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("")
+                .toLowerCase(Locale.ROOT);
+        List<String> result = new ArrayList<>();
+        for (String group : normalized.trim().split("\\s+")) {
+            String[] parts = SEPARATORS.split(group);
+            String joined = String.join("", parts);
+            for (String part : parts) {
+                if (!part.isEmpty() && !result.contains(part)) {
+                    result.add(part);
+                }
+            }
+            if (!joined.isEmpty() && !result.contains(joined)) {
+                result.add(joined);
+            }
+        }
+        return result;
+    }
+
+    private static int compare(String w1, int p1, String w2, int p2) {
+        int c = w1.compareTo(w2);
+        return c != 0 ? c : Integer.compare(p1, p2);
+    }
+
+    record Entry(long id, String... texts) {
+    }
+
+    private record Posting(String word, int position) implements Comparable<Posting> {
+
+        @Override
+        public int compareTo(Posting other) {
+            return compare(word, position, other.word, other.position);
+        }
+    }
+}
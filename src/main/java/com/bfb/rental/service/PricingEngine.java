@@ -0,0 +1,335 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.QuoteRequest;
+import com.bfb.rental.dto.QuoteResult;
+import com.bfb.rental.dto.VehiculeTarif;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
+import com.bfb.rental.event.VehiculeRemovedEvent;
+import com.bfb.rental.event.VehiculeSavedEvent;
+import com.bfb.rental.repository.VehiculeRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.MonthDay;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Moteur de prix : prix = tarif journalier x coefficient de motorisation
+ *                         x somme des coefficients saisonniers des jours loués
+ *                         x coefficient du palier de durée.
+ *
+ * Les règles (rental.pricing.*) sont compilées au démarrage en tables :
+ * - saisons : somme cumulée des coefficients jour par jour sur un cycle du calendrier grégorien
+ *   (400 ans, après lesquels les dates se répètent à l'identique), la somme sur une période,
+ *   quelles que soient ses années, est une simple différence ;
+ * - paliers de durée : un coefficient par nombre de jours ;
+ * - véhicules : tarif (motorisation comprise) dans des tableaux triés par ID, remplacés en bloc
+ *   (copie à l'écriture) après chaque commit qui modifie un véhicule.
+ * Un devis ne fait donc ni accès à la base ni allocation.
+ *
+ * Le nombre de jours facturés reste celui d'avant : écart entre les deux dates, au minimum 1.
+ */
+@Component
+public class PricingEngine {
+
+    private static final DateTimeFormatter MONTH_DAY = DateTimeFormatter.ofPattern("MM-dd");
+
+    // Jours d'un cycle grégorien de 400 ans : le jour d et le jour d + CYCLE_DAYS ont le même mois et le même jour
+    private static final int CYCLE_DAYS = 146_097;
+
+    private final VehiculeRepository vehiculeRepository;
+    private final int maxQuotes;
+
+    private final Map<String, Double> motorisationFactors;
+    private final List<Season> seasons;
+    private final double[] durationFactors;
+
+    // Sommes saisonnières cumulées depuis le jour 0 (1er janvier 1970) sur un cycle, et total du cycle
+    private final double[] seasonPrefix;
+    private final double cycleSum;
+
+    private volatile Tarifs tarifs = Tarifs.EMPTY;
+
+    public PricingEngine(VehiculeRepository vehiculeRepository,
+                         @Value("${rental.pricing.seasons:}") String seasons,
+                         @Value("${rental.pricing.duration-tiers:}") String durationTiers,
+                         @Value("${rental.pricing.motorisations:}") String motorisations,
+                         @Value("${rental.pricing.max-quotes:10000}") int maxQuotes) {
+        this.vehiculeRepository = vehiculeRepository;
+        this.maxQuotes = maxQuotes;
+        this.motorisationFactors = parseMotorisations(motorisations);
+        this.seasons = parseSeasons(seasons);
+        this.durationFactors = compileDurationTiers(durationTiers);
+
+        this.seasonPrefix = new double[CYCLE_DAYS + 1];
+        for (int i = 0; i < CYCLE_DAYS; i++) {
+            seasonPrefix[i + 1] = seasonPrefix[i] + seasonFactor(LocalDate.ofEpochDay(i));
+        }
+        this.cycleSum = seasonPrefix[CYCLE_DAYS];
+    }
+
+    // ================= Tarifs des véhicules =================
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        List<VehiculeTarif> rows = new ArrayList<>(vehiculeRepository.findAllTarifs());
+        rows.sort((a, b) -> Long.compare(a.id(), b.id()));
+        long[] ids = new long[rows.size()];
+        double[] rates = new double[rows.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = rows.get(i).id();
+            rates[i] = rate(rows.get(i).prixJournee(), rows.get(i).motorisation());
+        }
+        tarifs = new Tarifs(ids, rates);
+    }
+
+    // Import par lot : une seule copie des tarifs pour tout le lot
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeSaved(VehiculeSavedEvent event) {
+        List<Vehicule> sorted = event.getVehicules().stream().sorted(Comparator.comparing(Vehicule::getId)).toList();
+        if (sorted.size() == 1) {
+            putRate(sorted.get(0).getId(), rate(sorted.get(0).getPrixJournee(), sorted.get(0).getMotorisation()));
+            return;
+        }
+        long[] ids = new long[sorted.size()];
+        double[] rates = new double[sorted.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = sorted.get(i).getId();
+            rates[i] = rate(sorted.get(i).getPrixJournee(), sorted.get(i).getMotorisation());
+        }
+        putRates(ids, rates);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeRemoved(VehiculeRemovedEvent event) {
+        removeRate(event.getVehiculeId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleDonneesRemplacees(DonneesRemplaceesEvent event) {
+        rebuild();
+    }
+
+    // ================= Prix =================
+
+    // Prix d'un contrat (réservation), à partir des attributs du véhicule
+    public double price(Double prixJournee, String motorisation, LocalDate debut, LocalDate fin) {
+        return price(rate(prixJournee, motorisation), debut.toEpochDay(), fin.toEpochDay());
+    }
+
+    /**
+     * Devis pour un véhicule, sans accès à la base.
+     *
+     * @return le prix, ou NaN si le véhicule est inconnu
+     */
+    public double quote(long vehiculeId, long debutEpochDay, long finEpochDay) {
+        Tarifs current = tarifs;
+        int pos = Arrays.binarySearch(current.ids(), vehiculeId);
+        return pos < 0 ? Double.NaN : price(current.rates()[pos], debutEpochDay, finEpochDay);
+    }
+
+    // Devis par lot : un résultat par élément (prix ou motif du refus), dans l'ordre de la demande
+    public List<QuoteResult> quote(List<QuoteRequest> requests) {
+        if (requests.size() > maxQuotes) {
+            throw new IllegalArgumentException("Trop de devis dans une même demande (maximum " + maxQuotes + ")");
+        }
+        List<QuoteResult> results = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            QuoteRequest r = requests.get(i);
+            if (r.getVehiculeId() == null || r.getDateDebut() == null || r.getDateFin() == null) {
+                results.add(QuoteResult.echec(i, "Véhicule et dates obligatoires"));
+            } else if (r.getDateFin().isBefore(r.getDateDebut())) {
+                results.add(QuoteResult.echec(i, "La date de fin ne peut pas être antérieure à la date de début"));
+            } else {
+                double prix = quote(r.getVehiculeId(), r.getDateDebut().toEpochDay(), r.getDateFin().toEpochDay());
+                results.add(Double.isNaN(prix) ? QuoteResult.echec(i, "Le véhicule n'existe pas") : QuoteResult.succes(i, prix));
+            }
+        }
+        return results;
+    }
+
+    private double price(double rate, long debut, long fin) {
+        long days = Math.max(1, fin - debut);
+        double total = rate * seasonSum(debut, debut + days) * durationFactors[(int) Math.min(days, durationFactors.length - 1)];
+        return Math.round(total * 100) / 100.0;
+    }
+
+    // Somme des coefficients saisonniers des jours [debut, fin[
+    private double seasonSum(long debut, long fin) {
+        return cumulatedSeason(fin) - cumulatedSeason(debut);
+    }
+
+    // Somme des coefficients des jours [0, day[ (négative avant 1970) : cycles complets, puis reste du cycle
+    private double cumulatedSeason(long day) {
+        return Math.floorDiv(day, CYCLE_DAYS) * cycleSum + seasonPrefix[(int) Math.floorMod(day, CYCLE_DAYS)];
+    }
+
+    private double rate(Double prixJournee, String motorisation) {
+        if (prixJournee == null) {
+            return 0.0;
+        }
+        Double factor = motorisation == null ? null : motorisationFactors.get(key(motorisation));
+        return prixJournee * (factor == null ? 1.0 : factor);
+    }
+
+    // La dernière saison qui contient le jour l'emporte ; hors saison, coefficient 1
+    private double seasonFactor(LocalDate day) {
+        MonthDay md = MonthDay.from(day);
+        double factor = 1.0;
+        for (Season s : seasons) {
+            if (s.contains(md)) {
+                factor = s.factor();
+            }
+        }
+        return factor;
+    }
+
+    // ================= Copie à l'écriture des tarifs =================
+
+    private synchronized void putRate(long id, double rate) {
+        Tarifs current = tarifs;
+        int pos = Arrays.binarySearch(current.ids(), id);
+        if (pos >= 0) {
+            double[] rates = current.rates().clone();
+            rates[pos] = rate;
+            tarifs = new Tarifs(current.ids(), rates);
+            return;
+        }
+        int insert = -pos - 1;
+        int n = current.ids().length;
+        long[] ids = new long[n + 1];
+        double[] rates = new double[n + 1];
+        System.arraycopy(current.ids(), 0, ids, 0, insert);
+        System.arraycopy(current.rates(), 0, rates, 0, insert);
+        ids[insert] = id;
+        rates[insert] = rate;
+        System.arraycopy(current.ids(), insert, ids, insert + 1, n - insert);
+        System.arraycopy(current.rates(), insert, rates, insert + 1, n - insert);
+        tarifs = new Tarifs(ids, rates);
+    }
+
+    // Fusion de deux listes triées par ID ; un ID déjà présent prend le nouveau tarif
+    private synchronized void putRates(long[] ids, double[] rates) {
+        Tarifs current = tarifs;
+        long[] oldIds = current.ids();
+        double[] oldRates = current.rates();
+        long[] mergedIds = new long[oldIds.length + ids.length];
+        double[] mergedRates = new double[mergedIds.length];
+        int i = 0;
+        int j = 0;
+        int k = 0;
+        while (i < oldIds.length || j < ids.length) {
+            if (j == ids.length || (i < oldIds.length && oldIds[i] < ids[j])) {
+                mergedIds[k] = oldIds[i];
+                mergedRates[k++] = oldRates[i++];
+            } else {
+                if (i < oldIds.length && oldIds[i] == ids[j]) {
+                    i++;
+                }
+                mergedIds[k] = ids[j];
+                mergedRates[k++] = rates[j++];
+            }
+        }
+        tarifs = new Tarifs(Arrays.copyOf(mergedIds, k), Arrays.copyOf(mergedRates, k));
+    }
+
+    private synchronized void removeRate(long id) {
+        Tarifs current = tarifs;
+        int pos = Arrays.binarySearch(current.ids(), id);
+        if (pos < 0) {
+            return;
+        }
+        int n = current.ids().length;
+        long[] ids = new long[n - 1];
+        double[] rates = new double[n - 1];
+        System.arraycopy(current.ids(), 0, ids, 0, pos);
+        System.arraycopy(current.rates(), 0, rates, 0, pos);
+        System.arraycopy(current.ids(), pos + 1, ids, pos, n - pos - 1);
+        System.arraycopy(current.rates(), pos + 1, rates, pos, n - pos - 1);
+        tarifs = new Tarifs(ids, rates);
+    }
+
+    // ================= Compilation des règles =================
+
+    // "electrique:0.95,diesel:1.05"
+    private static Map<String, Double> parseMotorisations(String spec) {
+        Map<String, Double> factors = new HashMap<>();
+        for (String[] rule : rules(spec, 2)) {
+            factors.put(key(rule[0]), Double.parseDouble(rule[1]));
+        }
+        return factors;
+    }
+
+    // "07-01:08-31:1.25,12-20:01-05:1.15" (bornes incluses, une saison peut chevaucher le 1er janvier)
+    private static List<Season> parseSeasons(String spec) {
+        List<Season> seasons = new ArrayList<>();
+        for (String[] rule : rules(spec, 3)) {
+            seasons.add(new Season(MonthDay.parse(rule[0], MONTH_DAY), MonthDay.parse(rule[1], MONTH_DAY),
+                    Double.parseDouble(rule[2])));
+        }
+        return seasons;
+    }
+
+    // "7:0.9,30:0.75" : à partir de 7 jours 0.9, à partir de 30 jours 0.75 ; table indexée par le nombre de jours
+    private static double[] compileDurationTiers(String spec) {
+        TreeMap<Integer, Double> tiers = new TreeMap<>();
+        for (String[] rule : rules(spec, 2)) {
+            tiers.put(Integer.parseInt(rule[0]), Double.parseDouble(rule[1]));
+        }
+        double[] factors = new double[(tiers.isEmpty() ? 0 : tiers.lastKey()) + 1];
+        for (int days = 0; days < factors.length; days++) {
+            Map.Entry<Integer, Double> tier = tiers.floorEntry(days);
+            factors[days] = tier == null ? 1.0 : tier.getValue();
+        }
+        return factors;
+    }
+
+    private static List<String[]> rules(String spec, int parts) {
+        List<String[]> rules = new ArrayList<>();
+        if (spec == null || spec.isBlank()) {
+            return rules;
+        }
+        for (String rule : spec.split(",")) {
+            String[] fields = rule.trim().split(":");
+            if (fields.length != parts) {
+                throw new IllegalArgumentException("Règle de tarification invalide : " + rule);
+            }
+            for (int i = 0; i < parts; i++) {
+                fields[i] = fields[i].trim();
+            }
+            rules.add(fields);
+        }
+        return rules;
+    }
+
+    private static String key(String value) {
+        return value.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private record Season(MonthDay from, MonthDay to, double factor) {
+
+        boolean contains(MonthDay day) {
+            return from.isAfter(to)
+                    ? !day.isBefore(from) || !day.isAfter(to)
+                    : !day.isBefore(from) && !day.isAfter(to);
+        }
+    }
+
+    private record Tarifs(long[] ids, double[] rates) {
+        static final Tarifs EMPTY = new Tarifs(new long[0], new double[0]);
+    }
+}
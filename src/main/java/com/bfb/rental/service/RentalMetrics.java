@@ -0,0 +1,149 @@
+package com.bfb.rental.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Métriques Micrometer du métier, exposées par Actuator (/actuator/prometheus).
+ *
+ * - rental.operation{operation, outcome} : durée de chaque opération (création, modification, retard,
+ *   terminaison, panne, planification), avec son issue : succes, refus (règle métier), invalide, erreur.
+ * - rental.transaction{operation, statut} : durée des transactions, commit compris.
+ * - rental.reservation.conflits{operation} : réservations refusées pour conflit de dates.
+ * - rental.contrats.annules{cause} : contrats annulés automatiquement (panne, retard).
+ * - rental.scheduler.contrats{statut} : contrats lus / démarrés à chaque exécution de la tâche planifiée.
+ * - rental.unicite.verifications{cle, resultat} : contrôles d'unicité tranchés par le filtre (filtre)
+ *   ou par la base (absent = faux positif du filtre, present).
+ *
+ * Les histogrammes (pour les percentiles p99 côté Prometheus) sont activés dans application.properties.
+ */
+@Component
+@RequiredArgsConstructor
+public class RentalMetrics {
+
+    public static final String CREATION = "creation";
+    public static final String CREATION_LOT = "creation_lot";
+    public static final String MODIFICATION = "modification";
+    public static final String RETARD = "retard";
+    public static final String TERMINAISON = "terminaison";
+    public static final String PANNE = "panne";
+    public static final String PLANIFICATION = "planification";
+
+    private final MeterRegistry registry;
+
+    public Timer.Sample start() {
+        return Timer.start(registry);
+    }
+
+    // Exécute et mesure une opération ; l'exception éventuelle est propagée telle quelle
+    public <T> T timed(String operation, Supplier<T> action) {
+        Timer.Sample sample = start();
+        try {
+            T result = action.get();
+            stop(sample, operation, null);
+            return result;
+        } catch (RuntimeException e) {
+            stop(sample, operation, e);
+            throw e;
+        }
+    }
+
+    public void timed(String operation, Runnable action) {
+        timed(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Fin d'une opération : l'issue est déduite de l'exception éventuelle
+    public void stop(Timer.Sample sample, String operation, Throwable error) {
+        sample.stop(Timer.builder("rental.operation")
+                .description("Durée des opérations métier")
+                .tag("operation", operation)
+                .tag("outcome", outcome(error))
+                .register(registry));
+    }
+
+    /**
+     * Mesure la transaction courante, de maintenant jusqu'à la fin du commit (ou du rollback).
+     * Sans transaction active, rien n'est mesuré.
+     */
+    public void transaction(String operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        long start = System.nanoTime();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                Timer.builder("rental.transaction")
+                        .description("Durée des transactions, commit compris")
+                        .tag("operation", operation)
+                        .tag("statut", status == STATUS_COMMITTED ? "commit" : "rollback")
+                        .register(registry)
+                        .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            }
+        });
+    }
+
+    public void conflict(String operation) {
+        Counter.builder("rental.reservation.conflits")
+                .description("Réservations refusées pour conflit de dates")
+                .tag("operation", operation)
+                .register(registry)
+                .increment();
+    }
+
+    public void contratsAnnules(String cause, int count) {
+        if (count > 0) {
+            Counter.builder("rental.contrats.annules")
+                    .description("Contrats annulés automatiquement")
+                    .tag("cause", cause)
+                    .register(registry)
+                    .increment(count);
+        }
+    }
+
+    public void uniciteVerifiee(String cle, String resultat) {
+        Counter.builder("rental.unicite.verifications")
+                .description("Contrôles d'unicité, selon qu'ils ont été tranchés par le filtre ou par la base")
+                .tag("cle", cle)
+                .tag("resultat", resultat)
+                .register(registry)
+                .increment();
+    }
+
+    public void schedulerTick(int lus, int demarres) {
+        schedulerSummary("lus").record(lus);
+        schedulerSummary("demarres").record(demarres);
+    }
+
+    private DistributionSummary schedulerSummary(String statut) {
+        return DistributionSummary.builder("rental.scheduler.contrats")
+                .description("Contrats traités par exécution de la tâche planifiée")
+                .tag("statut", statut)
+                .register(registry);
+    }
+
+    private static String outcome(Throwable error) {
+        if (error == null) {
+            return "succes";
+        }
+        if (error instanceof IllegalStateException) {
+            return "refus";
+        }
+        if (error instanceof IllegalArgumentException) {
+            return "invalide";
+        }
+        return "erreur";
+    }
+}
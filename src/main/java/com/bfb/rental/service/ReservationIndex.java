@@ -0,0 +1,240 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.ContratSnapshot;
+import com.bfb.rental.dto.ReservationSlot;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.event.ContratChangedEvent;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
+import com.bfb.rental.repository.ContratRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index en mémoire des réservations actives (EN_ATTENTE / EN_COURS), par véhicule.
+ * Remplace la requête findConflictingContrats sur le chemin de réservation :
+ * la détection de chevauchement se fait sans aller-retour vers la base.
+ *
+ * Les modifications suivent les événements ContratChangedEvent, après le commit de la transaction qui les publie,
+ * pour que l'index ne contienne jamais un contrat annulé par un rollback.
+ *
+ * La reconstruction (démarrage, génération massive) prépare un nouvel index à côté de l'ancien
+ * puis le substitue en une écriture : une réservation concurrente voit l'un ou l'autre, jamais un index
+ * vide ou partiel. Les modifications validées pendant la lecture de la base sont rejouées sur le nouvel index.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationIndex {
+
+    private static final Comparator<ReservationSlot> BY_DEBUT = Comparator
+            .comparing(ReservationSlot::dateDebut)
+            .thenComparing(ReservationSlot::contratId);
+
+    private final ContratRepository contratRepository;
+    private final OccupancyIndex occupancyIndex;
+
+    // Lu sans verrou par les réservations ; remplacé en bloc par rebuild
+    private volatile Slots slots = new Slots();
+
+    private final Object rebuildLock = new Object();
+
+    // Modifications validées pendant une reconstruction (par contrat, null = retiré), sous le verrou de l'objet
+    private Map<Long, ReservationSlot> changedDuringRebuild;
+
+    // Reconstruction complète à partir de la base (au démarrage, après une génération massive)
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        synchronized (rebuildLock) {
+            doRebuild();
+        }
+    }
+
+    private void doRebuild() {
+        synchronized (this) {
+            changedDuringRebuild = new HashMap<>();
+        }
+        Slots read = new Slots();
+        try {
+            for (ReservationSlot slot : contratRepository.findActiveReservationSlots()) {
+                read.put(slot);
+            }
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                changedDuringRebuild = null;
+            }
+            throw e;
+        }
+        synchronized (this) {
+            // Une modification rejouée est au moins aussi récente que la lecture de la base
+            changedDuringRebuild.forEach((contratId, slot) -> {
+                read.remove(contratId);
+                if (slot != null) {
+                    read.put(slot);
+                }
+            });
+            changedDuringRebuild = null;
+            occupancyIndex.replaceReservations(read.byContrat.values());
+            slots = read;
+        }
+    }
+
+    public static boolean isActive(EtatContrat etat) {
+        return etat == EtatContrat.EN_ATTENTE || etat == EtatContrat.EN_COURS;
+    }
+
+    /**
+     * Cherche une réservation active qui chevauche [debut, fin] pour ce véhicule.
+     * Il y a chevauchement si (DébutA <= FinB) et (FinA >= DébutB).
+     *
+     * @param excludeContratId contrat à ignorer (celui qu'on modifie), peut être null
+     * @return l'ID du premier contrat en conflit trouvé
+     */
+    public Optional<Long> findConflict(Long vehiculeId, LocalDate debut, LocalDate fin, Long excludeContratId) {
+        VehiculeSlots vehiculeSlots = slots.byVehicule.get(vehiculeId);
+        if (vehiculeSlots == null) {
+            return Optional.empty();
+        }
+        return vehiculeSlots.findConflict(debut, fin, excludeContratId);
+    }
+
+    public boolean hasConflict(Long vehiculeId, LocalDate debut, LocalDate fin) {
+        return findConflict(vehiculeId, debut, fin, null).isPresent();
+    }
+
+    // Ajout, déplacement ou retrait selon l'état du contrat après le changement
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleContratChanged(ContratChangedEvent event) {
+        for (ContratChangedEvent.Change change : event.getChanges()) {
+            ReservationSlot after = slotOf(change.after());
+            if (after == null) {
+                doRemove(change.before() != null ? change.before().id() : change.after().id());
+            } else if (!after.equals(slotOf(change.before()))) {
+                doPut(after);
+            }
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleDonneesRemplacees(DonneesRemplaceesEvent event) {
+        rebuild();
+    }
+
+    // Réservation occupée par le contrat, null s'il n'est pas actif (ou s'il n'existe pas)
+    private static ReservationSlot slotOf(ContratSnapshot c) {
+        return c != null && isActive(c.etat())
+                ? new ReservationSlot(c.id(), c.vehiculeId(), c.dateDebut(), c.dateFin())
+                : null;
+    }
+
+    private synchronized void doPut(ReservationSlot slot) {
+        doRemove(slot.contratId());
+        slots.put(slot);
+        occupancyIndex.occupy(slot);
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(slot.contratId(), slot);
+        }
+    }
+
+    private synchronized void doRemove(Long contratId) {
+        ReservationSlot previous = slots.remove(contratId);
+        if (previous != null) {
+            occupancyIndex.release(previous);
+            // Si des données en double se chevauchaient, les jours encore couverts sont remarqués occupés
+            VehiculeSlots vehiculeSlots = slots.byVehicule.get(previous.vehiculeId());
+            if (vehiculeSlots != null) {
+                vehiculeSlots.overlapping(previous.dateDebut(), previous.dateFin()).forEach(occupancyIndex::occupy);
+            }
+        }
+        if (changedDuringRebuild != null) {
+            changedDuringRebuild.put(contratId, null);
+        }
+    }
+
+    // Réservations actives par véhicule et par contrat : un index complet, remplacé d'un bloc
+    private static final class Slots {
+
+        private final Map<Long, VehiculeSlots> byVehicule = new ConcurrentHashMap<>();
+        private final Map<Long, ReservationSlot> byContrat = new ConcurrentHashMap<>();
+
+        void put(ReservationSlot slot) {
+            byVehicule.computeIfAbsent(slot.vehiculeId(), id -> new VehiculeSlots()).add(slot);
+            byContrat.put(slot.contratId(), slot);
+        }
+
+        ReservationSlot remove(Long contratId) {
+            ReservationSlot previous = byContrat.remove(contratId);
+            if (previous != null) {
+                VehiculeSlots vehiculeSlots = byVehicule.get(previous.vehiculeId());
+                if (vehiculeSlots != null) {
+                    vehiculeSlots.remove(previous);
+                }
+            }
+            return previous;
+        }
+    }
+
+    /**
+     * Réservations d'un véhicule triées par date de début.
+     * En temps normal elles ne se chevauchent pas, donc la recherche s'arrête dès la première
+     * réservation qui commence avant fin. Pour rester correct même si des données en double existent,
+     * on continue à reculer tant qu'une réservation plus ancienne pourrait encore couvrir debut,
+     * borne donnée par la durée maximale rencontrée.
+     */
+    private static final class VehiculeSlots {
+
+        private final TreeSet<ReservationSlot> byDebut = new TreeSet<>(BY_DEBUT);
+        private long maxDurationDays = 0;
+
+        synchronized void add(ReservationSlot slot) {
+            byDebut.add(slot);
+            maxDurationDays = Math.max(maxDurationDays, ChronoUnit.DAYS.between(slot.dateDebut(), slot.dateFin()));
+        }
+
+        synchronized void remove(ReservationSlot slot) {
+            byDebut.remove(slot);
+        }
+
+        synchronized List<ReservationSlot> overlapping(LocalDate debut, LocalDate fin) {
+            List<ReservationSlot> result = new ArrayList<>();
+            LocalDate earliestUsefulDebut = debut.minusDays(maxDurationDays);
+            ReservationSlot upper = new ReservationSlot(Long.MAX_VALUE, null, fin, fin);
+            for (ReservationSlot slot : byDebut.headSet(upper, true).descendingSet()) {
+                if (slot.dateDebut().isBefore(earliestUsefulDebut)) {
+                    break;
+                }
+                if (!slot.dateFin().isBefore(debut)) {
+                    result.add(slot);
+                }
+            }
+            return result;
+        }
+
+        synchronized Optional<Long> findConflict(LocalDate debut, LocalDate fin, Long excludeContratId) {
+            LocalDate earliestUsefulDebut = debut.minusDays(maxDurationDays);
+            ReservationSlot upper = new ReservationSlot(Long.MAX_VALUE, null, fin, fin);
+            for (ReservationSlot slot : byDebut.headSet(upper, true).descendingSet()) {
+                if (slot.dateDebut().isBefore(earliestUsefulDebut)) {
+                    break;
+                }
+                if (!slot.dateFin().isBefore(debut) && !slot.contratId().equals(excludeContratId)) {
+                    return Optional.of(slot.contratId());
+                }
+            }
+            return Optional.empty();
+        }
+    }
+}
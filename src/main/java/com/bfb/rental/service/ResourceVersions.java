@@ -0,0 +1,107 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.event.ClientRemovedEvent;
+import com.bfb.rental.event.ClientSavedEvent;
+import com.bfb.rental.event.ContratChangedEvent;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
+import com.bfb.rental.event.VehiculeEtatChangedEvent;
+import com.bfb.rental.event.VehiculePanneEvent;
+import com.bfb.rental.event.VehiculeRemovedEvent;
+import com.bfb.rental.event.VehiculeSavedEvent;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Numéros de version des véhicules, clients et contrats, pour les GET conditionnels de l'API (ETag).
+ *
+ * Chaque écriture incrémente la version du type concerné, après commit : une version ne change donc
+ * qu'une fois les données nouvelles visibles. Côté lecture, l'ETag est calculé avant la requête ;
+ * une écriture concurrente peut au pire étiqueter des données neuves avec l'ancienne version,
+ * ce qui coûte une réponse complète de plus au client, jamais une donnée périmée servie en 304.
+ *
+ * Les versions repartent de zéro au redémarrage : l'ETag inclut l'instant de démarrage pour qu'un
+ * ancien ETag ne soit jamais reconnu par une nouvelle instance.
+ */
+@Component
+public class ResourceVersions {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+
+    private final AtomicLong vehicules = new AtomicLong();
+    private final AtomicLong clients = new AtomicLong();
+    private final AtomicLong contrats = new AtomicLong();
+
+    // ================= Écritures (événements des chemins d'écriture, après commit) =================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeSaved(VehiculeSavedEvent event) {
+        vehicules.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeRemoved(VehiculeRemovedEvent event) {
+        vehicules.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeEtatChanged(VehiculeEtatChangedEvent event) {
+        vehicules.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculePanne(VehiculePanneEvent event) {
+        vehicules.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleClientSaved(ClientSavedEvent event) {
+        clients.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleClientRemoved(ClientRemovedEvent event) {
+        clients.incrementAndGet();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleContratChanged(ContratChangedEvent event) {
+        if (!event.getChanges().isEmpty()) {
+            contrats.incrementAndGet();
+        }
+    }
+
+    // Remise à zéro ou génération massive : tout change
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleDonneesRemplacees(DonneesRemplaceesEvent event) {
+        vehicules.incrementAndGet();
+        clients.incrementAndGet();
+        contrats.incrementAndGet();
+    }
+
+    // ================= ETags (forts, entre guillemets) =================
+
+    public String vehiculesEtag() {
+        return etag("v" + vehicules.get());
+    }
+
+    public String clientsEtag() {
+        return etag("c" + clients.get());
+    }
+
+    // Les vues de contrat contiennent le nom du client et la description du véhicule
+    public String contratsEtag() {
+        return etag("k" + contrats.get() + "c" + clients.get() + "v" + vehicules.get());
+    }
+
+    // Représentation à plat : les ID du client et du véhicule ne changent qu'avec le contrat
+    public String contratsCompactEtag() {
+        return etag("k" + contrats.get());
+    }
+
+    private String etag(String versions) {
+        return "\"" + epoch + "-" + versions + "\"";
+    }
+}
@@ -0,0 +1,207 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.repository.SchedulerLeaseRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Supplier;
+
+/**
+ * Partage de la tâche planifiée entre plusieurs instances sur la même base : les contrats à démarrer sont
+ * répartis en partitions (ID du véhicule modulo rental.scheduler.partitions), chacune protégée par un bail
+ * en base (table scheduler_lease). À chaque exécution, une instance renouvelle ses baux et prend sa part
+ * des baux libres ou expirés : une partition n'est traitée que par une instance à la fois.
+ *
+ * Chaque instance signale aussi sa présence par une ligne à part, renouvelée de la même façon : la part
+ * de chacune est le nombre de partitions divisé par le nombre d'instances vivantes (arrondi au-dessus),
+ * et une instance qui en détient davantage rend l'excédent à l'arrivée d'une nouvelle.
+ * Une instance arrêtée proprement rend ses baux ; une instance tombée les laisse expirer
+ * (rental.scheduler.lease-ms), après quoi les autres les reprennent.
+ *
+ * Chaque lot traité prolonge le bail de sa partition dans sa propre transaction (confirm) : si le bail
+ * a expiré et changé de main entre-temps (pause, base lente), le lot est annulé au lieu d'être traité deux fois.
+ * Les instants viennent de l'horloge de chaque instance : leur décalage doit rester petit devant la durée du bail.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SchedulerLeases {
+
+    private static final String PARTITION_PREFIX = "contrats-demarrage:";
+    private static final String NODE_PREFIX = "noeud:";
+
+    private final SchedulerLeaseRepository repository;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${rental.scheduler.partitions:1}")
+    private int partitions;
+
+    @Value("${rental.scheduler.lease-ms:15000}")
+    private long leaseMs;
+
+    @Value("${rental.scheduler.node-id:}")
+    private String configuredNodeId;
+
+    private String nodeId;
+    private TransactionTemplate tx;
+
+    // Partitions détenues par cette instance (accès sous le verrou de l'objet)
+    private final TreeSet<Integer> held = new TreeSet<>();
+
+    @PostConstruct
+    void init() {
+        if (partitions < 1) {
+            throw new IllegalStateException("rental.scheduler.partitions doit être >= 1");
+        }
+        nodeId = configuredNodeId.isBlank() ? defaultNodeId() : configuredNodeId;
+        tx = new TransactionTemplate(transactionManager);
+    }
+
+    public String nodeId() {
+        return nodeId;
+    }
+
+    public int partitions() {
+        return partitions;
+    }
+
+    /**
+     * Renouvelle les baux de cette instance et prend sa part des baux libres.
+     *
+     * @return les partitions à traiter pendant cette exécution, éventuellement aucune
+     */
+    public synchronized List<Integer> acquire() {
+        Instant now = Instant.now();
+        Instant expireLe = now.plusMillis(leaseMs);
+
+        // 1. Présence, et nombre d'instances vivantes (dont celle-ci)
+        tryLease(NODE_PREFIX + nodeId, now, expireLe);
+        Set<String> owners = new HashSet<>(inTx(() -> repository.findLiveOwners(NODE_PREFIX + "%", now)));
+        owners.add(nodeId);
+        int share = (partitions + owners.size() - 1) / owners.size();
+
+        // 2. Renouvellement des baux détenus ; un bail perdu (expiré puis repris) sort de la liste
+        Set<Integer> before = new TreeSet<>(held);
+        held.removeIf(p -> !tryLease(leaseName(p), now, expireLe));
+
+        // 3. Excédent rendu aux nouvelles instances, ou part complétée avec les baux libres.
+        // Chaque instance commence sa recherche à un décalage différent pour limiter les collisions
+        while (held.size() > share) {
+            int last = held.last();
+            release(last);
+            held.remove(last);
+        }
+        int offset = Math.floorMod(nodeId.hashCode(), partitions);
+        for (int i = 0; i < partitions && held.size() < share; i++) {
+            int p = (offset + i) % partitions;
+            if (!held.contains(p) && tryLease(leaseName(p), now, expireLe)) {
+                held.add(p);
+            }
+        }
+
+        if (!held.equals(before)) {
+            log.info("Tâche planifiée : instance {}, partition(s) {} sur {} ({} instance(s) vivante(s))",
+                    nodeId, held, partitions, owners.size());
+        }
+        return new ArrayList<>(held);
+    }
+
+    /**
+     * Prolonge le bail d'une partition dans la transaction courante, avant d'en écrire un lot.
+     * La ligne du bail reste verrouillée jusqu'au commit du lot : personne ne peut la reprendre pendant ce temps.
+     *
+     * @throws IllegalStateException si le bail n'appartient plus à cette instance (le lot doit être annulé)
+     */
+    public void confirm(int partition) {
+        Instant now = Instant.now();
+        if (repository.extend(leaseName(partition), nodeId, now, now.plusMillis(leaseMs)) == 0) {
+            synchronized (this) {
+                held.remove(partition);
+            }
+            throw new IllegalStateException("Bail de la partition " + partition + " perdu par l'instance " + nodeId);
+        }
+    }
+
+    // Arrêt propre : les autres instances reprennent les partitions dès leur prochaine exécution
+    @PreDestroy
+    public synchronized void releaseAll() {
+        try {
+            for (int p : held) {
+                release(p);
+            }
+            inTx(() -> repository.release(NODE_PREFIX + nodeId, nodeId, Instant.EPOCH));
+            // Les lignes de présence des instances arrêtées depuis longtemps ne servent plus
+            inTx(() -> repository.deleteExpired(NODE_PREFIX + "%", Instant.now().minus(Duration.ofDays(1))));
+        } catch (DataAccessException e) {
+            log.warn("Tâche planifiée : baux non rendus à l'arrêt ({}), ils expireront", e.getMessage());
+        }
+        held.clear();
+    }
+
+    // ================= Baux =================
+
+    // Crée le bail s'il n'existe pas encore, puis le prend ou le renouvelle s'il est à nous ou expiré
+    private boolean tryLease(String nom, Instant now, Instant expireLe) {
+        try {
+            if (inTx(() -> repository.acquire(nom, nodeId, now, expireLe)) == 1) {
+                return true;
+            }
+            if (inTx(() -> repository.existsById(nom))) {
+                return false;
+            }
+        } catch (DataAccessException e) {
+            // Ligne verrouillée par le lot en cours d'une autre instance : le bail est tenu
+            return false;
+        }
+        try {
+            inTx(() -> repository.create(nom, Instant.EPOCH));
+        } catch (DataAccessException e) {
+            // Créé au même moment par une autre instance
+        }
+        try {
+            return inTx(() -> repository.acquire(nom, nodeId, now, expireLe)) == 1;
+        } catch (DataAccessException e) {
+            return false;
+        }
+    }
+
+    private void release(int partition) {
+        inTx(() -> repository.release(leaseName(partition), nodeId, Instant.EPOCH));
+    }
+
+    private <T> T inTx(Supplier<T> action) {
+        return tx.execute(status -> action.get());
+    }
+
+    private String leaseName(int partition) {
+        return PARTITION_PREFIX + partition + "/" + partitions;
+    }
+
+    // Hôte, PID et suffixe aléatoire : deux contextes Spring dans la même JVM (tests) restent distincts
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            host = "localhost";
+        }
+        return host + ":" + ProcessHandle.current().pid() + ":" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
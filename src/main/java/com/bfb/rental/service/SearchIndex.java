@@ -0,0 +1,130 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.Suggestion;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.event.ClientRemovedEvent;
+import com.bfb.rental.event.ClientSavedEvent;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
+import com.bfb.rental.event.VehiculeRemovedEvent;
+import com.bfb.rental.event.VehiculeSavedEvent;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Recherche par préfixe des clients (nom, prénom, numéro de permis) et des véhicules (immatriculation,
+ * marque, modèle) pour la saisie semi-automatique du formulaire de contrat : "dup je" ou "ab-12".
+ *
+ * Les index (voir PrefixIndex) sont construits au démarrage et tenus à jour après commit par les événements
+ * des chemins d'écriture (création, modification, suppression, import). Seuls les ID trouvés sont relus en base,
+ * pour le libellé : quelques lignes par clé primaire, servies par le cache de second niveau.
+ */
+@Component
+@RequiredArgsConstructor
+public class SearchIndex {
+
+    public static final int MAX_SUGGESTIONS = 50;
+
+    private final ClientRepository clientRepository;
+    private final VehiculeRepository vehiculeRepository;
+
+    private final PrefixIndex clients = new PrefixIndex();
+    private final PrefixIndex vehicules = new PrefixIndex();
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        clients.reset(clientRepository.findAllIdentites().stream()
+                .map(c -> new PrefixIndex.Entry(c.id(), c.nom(), c.prenom(), c.numPermis()))
+                .toList());
+        vehicules.reset(vehiculeRepository.findAllLibelles().stream()
+                .map(v -> new PrefixIndex.Entry(v.id(), v.immatriculation(), v.marque(), v.modele()))
+                .toList());
+    }
+
+    // ================= Recherche =================
+
+    public List<Suggestion> suggestClients(String query, int limit) {
+        return suggestions(clients.search(query, clamp(limit)), clientRepository::findAllById,
+                Client::getId, SearchIndex::libelle);
+    }
+
+    public List<Suggestion> suggestVehicules(String query, int limit) {
+        return suggestions(vehicules.search(query, clamp(limit)), vehiculeRepository::findAllById,
+                Vehicule::getId, SearchIndex::libelle);
+    }
+
+    // Libellés du formulaire de contrat
+    public static String libelle(Client c) {
+        return c.getNom() + " " + c.getPrenom() + " (" + c.getNumPermis() + ")";
+    }
+
+    public static String libelle(Vehicule v) {
+        return Objects.toString(v.getMarque(), "") + " " + Objects.toString(v.getModele(), "") + " - " + v.getImmatriculation();
+    }
+
+    private static <T> List<Suggestion> suggestions(List<Long> ids, Function<List<Long>, List<T>> load,
+                                                    Function<T, Long> idOf, Function<T, String> libelle) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, T> byId = load.apply(ids).stream().collect(Collectors.toMap(idOf, Function.identity()));
+        return ids.stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .map(e -> new Suggestion(idOf.apply(e), libelle.apply(e)))
+                .sorted(Comparator.comparing(Suggestion::libelle, String.CASE_INSENSITIVE_ORDER))
+                .toList();
+    }
+
+    private static int clamp(int limit) {
+        return Math.max(1, Math.min(limit, MAX_SUGGESTIONS));
+    }
+
+    // ================= Mise à jour (après commit) =================
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleClientSaved(ClientSavedEvent event) {
+        event.getClients().stream().map(SearchIndex::entry).forEach(e -> clients.put(e.id(), e.texts()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleClientRemoved(ClientRemovedEvent event) {
+        clients.remove(event.getClient().id());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeSaved(VehiculeSavedEvent event) {
+        event.getVehicules().stream().map(SearchIndex::entry).forEach(e -> vehicules.put(e.id(), e.texts()));
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeRemoved(VehiculeRemovedEvent event) {
+        vehicules.remove(event.getVehiculeId());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleDonneesRemplacees(DonneesRemplaceesEvent event) {
+        rebuild();
+    }
+
+    private static PrefixIndex.Entry entry(Client c) {
+        return new PrefixIndex.Entry(c.getId(), c.getNom(), c.getPrenom(), c.getNumPermis());
+    }
+
+    private static PrefixIndex.Entry entry(Vehicule v) {
+        return new PrefixIndex.Entry(v.getId(), v.getImmatriculation(), v.getMarque(), v.getModele());
+    }
+}
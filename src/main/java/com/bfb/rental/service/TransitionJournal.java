@@ -0,0 +1,444 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.JournalEntry;
+import com.bfb.rental.dto.ReservationSlot;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.enums.TypeTransition;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal des transitions d'état (contrats et véhicules), en ajout seul.
+ *
+ * Chaque transition validée (après commit) est un enregistrement de taille fixe écrit dans un fichier
+ * mappé en mémoire : séquence, horodatage, contrat, véhicule, type, CRC32C. L'écriture est une copie
+ * de 40 octets sous un verrou, sans appel système. Les fichiers (segments journal-<première séquence>.log)
+ * sont préalloués et remplacés par un nouveau segment quand ils sont pleins.
+ *
+ * Écriture sur disque groupée (group commit) : un thread dédié force périodiquement les pages modifiées,
+ * une seule fois pour toutes les transitions arrivées depuis le passage précédent. Par défaut les appelants
+ * n'attendent pas (un arrêt brutal du processus ne perd rien, une panne de la machine peut perdre
+ * le dernier intervalle) ; avec rental.journal.wait-for-flush, ils attendent le passage qui couvre leur
+ * transition.
+ *
+ * Au redémarrage, le journal reprend après le dernier enregistrement valide. replay() relit le journal
+ * dans l'ordre, pour reconstruire un état ou alimenter une analyse ; la version statique lit
+ * un répertoire de journal hors de l'application.
+ */
+@Component
+public class TransitionJournal {
+
+    static final int RECORD_SIZE = 40;
+    // Octets couverts par le CRC : tout l'enregistrement sauf le CRC lui-même
+    private static final int CHECKED_SIZE = 36;
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+
+    private final boolean enabled;
+    private final Path dir;
+    private final int segmentSize;
+    private final long flushIntervalNanos;
+    private final boolean waitForFlush;
+
+    private final ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+    private final CRC32C crc = new CRC32C();
+    private final Object flushMonitor = new Object();
+
+    private FileChannel lockChannel;
+    private FileLock lock;
+    private MappedByteBuffer segment;
+    private long lastSequence;
+
+    // Dernière séquence écrite en mémoire, dernière séquence forcée sur disque
+    private volatile long written;
+    private volatile long flushed;
+    private volatile boolean running;
+    private Thread flusher;
+
+    public TransitionJournal(@Value("${rental.journal.enabled:true}") boolean enabled,
+                             @Value("${rental.journal.dir:data/journal}") String dir,
+                             @Value("${rental.journal.segment-records:1000000}") int segmentRecords,
+                             @Value("${rental.journal.flush-interval-ms:10}") long flushIntervalMs,
+                             @Value("${rental.journal.wait-for-flush:false}") boolean waitForFlush) {
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+        this.segmentSize = segmentRecords * RECORD_SIZE;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMs);
+        this.waitForFlush = waitForFlush;
+    }
+
+    @PostConstruct
+    public synchronized void open() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            Files.createDirectories(dir);
+            lockChannel = FileChannel.open(dir.resolve("journal.lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            try {
+                lock = lockChannel.tryLock();
+            } catch (OverlappingFileLockException e) {
+                lock = null;
+            }
+            if (lock == null) {
+                lockChannel.close();
+                throw new IllegalStateException("Journal déjà ouvert par un autre processus : " + dir.toAbsolutePath()
+                        + " (rental.journal.dir doit être propre à chaque instance)");
+            }
+
+            List<Path> segments = segments(dir);
+            if (segments.isEmpty()) {
+                segment = map(segmentPath(dir, 1), FileChannel.MapMode.READ_WRITE, segmentSize);
+                lastSequence = 0;
+            } else {
+                Path last = segments.get(segments.size() - 1);
+                segment = map(last, FileChannel.MapMode.READ_WRITE, segmentSize);
+                lastSequence = recover(segment, firstSequence(last));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Ouverture du journal impossible : " + dir.toAbsolutePath(), e);
+        }
+        written = lastSequence;
+        flushed = lastSequence;
+        running = true;
+        flusher = new Thread(this::flushLoop, "journal-flush");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    @PreDestroy
+    public void close() {
+        Thread thread;
+        synchronized (this) {
+            if (!running) {
+                return;
+            }
+            running = false;
+            thread = flusher;
+        }
+        LockSupport.unpark(thread);
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            segment.force();
+            segment = null;
+            try {
+                lock.release();
+                lockChannel.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        synchronized (flushMonitor) {
+            flushMonitor.notifyAll();
+        }
+    }
+
+    // ================= Transitions (appliquées après commit) =================
+
+    public void contrat(TypeTransition type, Contrat contrat) {
+        contrat(type, contrat.getId(), contrat.getVehicule().getId());
+    }
+
+    public void contrat(TypeTransition type, Long contratId, Long vehiculeId) {
+        long[] contratIds = {contratId};
+        long[] vehiculeIds = {vehiculeId};
+        TransactionHooks.afterCommit(() -> append(type, contratIds, vehiculeIds));
+    }
+
+    public void contrats(TypeTransition type, Collection<Contrat> contrats) {
+        if (contrats.isEmpty()) {
+            return;
+        }
+        long[] contratIds = new long[contrats.size()];
+        long[] vehiculeIds = new long[contrats.size()];
+        int i = 0;
+        for (Contrat c : contrats) {
+            contratIds[i] = c.getId();
+            vehiculeIds[i++] = c.getVehicule().getId();
+        }
+        TransactionHooks.afterCommit(() -> append(type, contratIds, vehiculeIds));
+    }
+
+    public void slots(TypeTransition type, Collection<ReservationSlot> slots) {
+        if (slots.isEmpty()) {
+            return;
+        }
+        long[] contratIds = new long[slots.size()];
+        long[] vehiculeIds = new long[slots.size()];
+        int i = 0;
+        for (ReservationSlot s : slots) {
+            contratIds[i] = s.contratId();
+            vehiculeIds[i++] = s.vehiculeId();
+        }
+        TransactionHooks.afterCommit(() -> append(type, contratIds, vehiculeIds));
+    }
+
+    public void vehicules(TypeTransition type, Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        long[] contratIds = new long[ids.size()];
+        long[] vehiculeIds = ids.stream().mapToLong(Long::longValue).toArray();
+        TransactionHooks.afterCommit(() -> append(type, contratIds, vehiculeIds));
+    }
+
+    // Dernière séquence écrite (0 si le journal est vide ou désactivé)
+    public long lastSequence() {
+        return written;
+    }
+
+    // ================= Écriture =================
+
+    private void append(TypeTransition type, long[] contratIds, long[] vehiculeIds) {
+        long now = System.currentTimeMillis();
+        long last;
+        synchronized (this) {
+            if (segment == null) {
+                return;
+            }
+            for (int i = 0; i < contratIds.length; i++) {
+                write(type, contratIds[i], vehiculeIds[i], now);
+            }
+            last = lastSequence;
+            written = last;
+        }
+        if (waitForFlush) {
+            awaitFlushed(last);
+        }
+    }
+
+    private void write(TypeTransition type, long contratId, long vehiculeId, long now) {
+        if (segment.remaining() < RECORD_SIZE) {
+            roll();
+        }
+        record.clear();
+        record.putLong(++lastSequence).putLong(now).putLong(contratId).putLong(vehiculeId).put(type.getCode());
+        crc.reset();
+        crc.update(record.array(), 0, CHECKED_SIZE);
+        record.putInt(CHECKED_SIZE, (int) crc.getValue());
+        segment.put(record.array());
+    }
+
+    // Segment plein : il est forcé sur disque en entier, le suivant commence à la prochaine séquence
+    private void roll() {
+        segment.force();
+        try {
+            segment = map(segmentPath(dir, lastSequence + 1), FileChannel.MapMode.READ_WRITE, segmentSize);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Création d'un segment du journal impossible", e);
+        }
+    }
+
+    private void awaitFlushed(long sequence) {
+        LockSupport.unpark(flusher);
+        synchronized (flushMonitor) {
+            while (flushed < sequence && running) {
+                try {
+                    flushMonitor.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void flushLoop() {
+        MappedByteBuffer flushedSegment = null;
+        int flushedPosition = 0;
+        while (running) {
+            long target;
+            MappedByteBuffer current;
+            int position;
+            synchronized (this) {
+                target = written;
+                current = segment;
+                position = current.position();
+            }
+            if (target > flushed) {
+                int from = current == flushedSegment ? flushedPosition : 0;
+                current.force(from, position - from);
+                flushedSegment = current;
+                flushedPosition = position;
+                flushed = target;
+                synchronized (flushMonitor) {
+                    flushMonitor.notifyAll();
+                }
+            }
+            LockSupport.parkNanos(flushIntervalNanos);
+        }
+    }
+
+    // ================= Relecture =================
+
+    // Transitions de séquence > afterSequence, dans l'ordre
+    public void replay(long afterSequence, Consumer<JournalEntry> consumer) {
+        long upTo = written;
+        read(dir, afterSequence, entry -> {
+            if (entry.sequence() > upTo) {
+                return false;
+            }
+            consumer.accept(entry);
+            return true;
+        });
+    }
+
+    // Au plus limit transitions de séquence > afterSequence (lecture paginée)
+    public List<JournalEntry> read(long afterSequence, int limit) {
+        List<JournalEntry> entries = new ArrayList<>();
+        if (limit > 0) {
+            long upTo = written;
+            read(dir, afterSequence, entry -> {
+                if (entry.sequence() > upTo) {
+                    return false;
+                }
+                entries.add(entry);
+                return entries.size() < limit;
+            });
+        }
+        return entries;
+    }
+
+    // Relecture d'un répertoire de journal hors de l'application (outil d'analyse, reconstruction)
+    public static void replay(Path dir, long afterSequence, Consumer<JournalEntry> consumer) {
+        read(dir, afterSequence, entry -> {
+            consumer.accept(entry);
+            return true;
+        });
+    }
+
+    // Lecture séquentielle des segments ; s'arrête au premier enregistrement invalide ou quand action renvoie false
+    private static void read(Path dir, long afterSequence, Predicate<JournalEntry> action) {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try {
+            List<Path> segments = segments(dir);
+            // Premier segment utile : le dernier qui commence au plus tard à la séquence recherchée
+            int start = 0;
+            for (int i = 0; i < segments.size(); i++) {
+                if (firstSequence(segments.get(i)) <= afterSequence + 1) {
+                    start = i;
+                }
+            }
+            CRC32C checksum = new CRC32C();
+            long expected = afterSequence + 1;
+            for (int i = start; i < segments.size(); i++) {
+                Path path = segments.get(i);
+                long first = firstSequence(path);
+                if (first > expected) {
+                    return;
+                }
+                ByteBuffer buffer = map(path, FileChannel.MapMode.READ_ONLY, Files.size(path));
+                for (long pos = (expected - first) * RECORD_SIZE; pos + RECORD_SIZE <= buffer.capacity(); pos += RECORD_SIZE) {
+                    JournalEntry entry = decode(buffer, (int) pos, expected, checksum);
+                    if (entry == null) {
+                        break;
+                    }
+                    if (!action.test(entry)) {
+                        return;
+                    }
+                    expected++;
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Lecture du journal impossible : " + dir.toAbsolutePath(), e);
+        }
+    }
+
+    // Enregistrement à la position donnée, ou null s'il n'est pas celui attendu (fin du journal, écriture interrompue)
+    private static JournalEntry decode(ByteBuffer buffer, int pos, long expected, CRC32C checksum) {
+        long sequence = buffer.getLong(pos);
+        if (sequence != expected) {
+            return null;
+        }
+        checksum.reset();
+        checksum.update(buffer.slice(pos, CHECKED_SIZE));
+        TypeTransition type = TypeTransition.fromCode(buffer.get(pos + 32));
+        if ((int) checksum.getValue() != buffer.getInt(pos + CHECKED_SIZE) || type == null) {
+            return null;
+        }
+        long contratId = buffer.getLong(pos + 16);
+        return new JournalEntry(sequence, Instant.ofEpochMilli(buffer.getLong(pos + 8)), type,
+                contratId == 0 ? null : contratId, buffer.getLong(pos + 24));
+    }
+
+    /**
+     * Reprise du dernier segment : position après le dernier enregistrement valide.
+     * La suite (écriture interrompue, pages écrites dans le désordre avant une panne) est effacée
+     * pour qu'un ancien enregistrement ne soit jamais relu après les nouveaux.
+     *
+     * @return la dernière séquence valide
+     */
+    private static long recover(MappedByteBuffer segment, long firstSequence) {
+        CRC32C checksum = new CRC32C();
+        long expected = firstSequence;
+        int pos = 0;
+        while (pos + RECORD_SIZE <= segment.capacity() && decode(segment, pos, expected, checksum) != null) {
+            expected++;
+            pos += RECORD_SIZE;
+        }
+        for (int i = pos; i < segment.capacity(); i += 8) {
+            if (segment.getLong(i) != 0) {
+                segment.putLong(i, 0L);
+            }
+        }
+        segment.position(pos);
+        return expected - 1;
+    }
+
+    private static MappedByteBuffer map(Path path, FileChannel.MapMode mode, long size) throws IOException {
+        StandardOpenOption[] options = mode == FileChannel.MapMode.READ_ONLY
+                ? new StandardOpenOption[]{StandardOpenOption.READ}
+                : new StandardOpenOption[]{StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE};
+        try (FileChannel channel = FileChannel.open(path, options)) {
+            return channel.map(mode, 0, size);
+        }
+    }
+
+    private static List<Path> segments(Path dir) throws IOException {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(p -> p.getFileName().toString().startsWith(SEGMENT_PREFIX)
+                            && p.getFileName().toString().endsWith(SEGMENT_SUFFIX))
+                    .sorted()
+                    .toList();
+        }
+    }
+
+    // Séquence sur 20 chiffres : l'ordre des noms de fichiers est celui des séquences
+    private static Path segmentPath(Path dir, long firstSequence) {
+        return dir.resolve(SEGMENT_PREFIX + String.format("%020d", firstSequence) + SEGMENT_SUFFIX);
+    }
+
+    private static long firstSequence(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+    }
+}
@@ -0,0 +1,248 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.ClientIdentite;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.event.ClientRemovedEvent;
+import com.bfb.rental.event.ClientSavedEvent;
+import com.bfb.rental.event.DonneesRemplaceesEvent;
+import com.bfb.rental.event.VehiculeRemovedEvent;
+import com.bfb.rental.event.VehiculeSavedEvent;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * Contrôles d'unicité (immatriculation, numéro de permis, identité du client) avec un filtre de Bloom
+ * devant la base : une valeur nouvelle, le cas courant, est tranchée en mémoire ; la requête exists
+ * n'est faite que si le filtre répond "peut-être présent".
+ *
+ * Les clés sont ajoutées avant l'écriture en base et retirées si la transaction est annulée, ou après
+ * commit de la suppression ; les contraintes d'unicité de la base restent le dernier rempart.
+ * Les filtres sont construits au démarrage, avant quoi chaque contrôle interroge la base, et reconstruits
+ * (capacité doublée) quand ils dépassent leur capacité, ou après une écriture qui contourne les services.
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class UniqueKeyFilter {
+
+    private final VehiculeRepository vehiculeRepository;
+    private final ClientRepository clientRepository;
+    private final RentalMetrics rentalMetrics;
+
+    @Value("${rental.unique-keys.min-capacity:100000}")
+    private long minCapacity;
+
+    @Value("${rental.unique-keys.fpp:0.01}")
+    private double fpp;
+
+    // Les ajouts prennent le verrou en lecture, la bascule vers de nouveaux filtres en écriture
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final AtomicBoolean resizing = new AtomicBoolean();
+    private volatile Filters current;
+    private Filters building;
+
+    // ================= Contrôles =================
+
+    public boolean immatriculationExists(String immatriculation) {
+        return exists("immatriculation", Filters::immatriculations, immatriculation,
+                () -> vehiculeRepository.existsByImmatriculation(immatriculation));
+    }
+
+    public boolean numPermisExists(String numPermis) {
+        return exists("permis", Filters::permis, numPermis, () -> clientRepository.existsByNumPermis(numPermis));
+    }
+
+    public boolean clientExists(String nom, String prenom, LocalDate dateNaissance) {
+        return exists("identite", Filters::identites, identite(nom, prenom, dateNaissance),
+                () -> clientRepository.existsByNomAndPrenomAndDateNaissance(nom, prenom, dateNaissance));
+    }
+
+    private boolean exists(String cle, Function<Filters, CountingBloomFilter> filter, String key,
+                           BooleanSupplier query) {
+        Filters filters = current;
+        if (key != null && filters != null && !filter.apply(filters).mightContain(key)) {
+            rentalMetrics.uniciteVerifiee(cle, "filtre");
+            return false;
+        }
+        boolean exists = query.getAsBoolean();
+        rentalMetrics.uniciteVerifiee(cle, exists ? "present" : "absent");
+        return exists;
+    }
+
+    // ================= Mise à jour =================
+
+    // À appeler dans la transaction, avant l'insertion (ou la modification de la clé) : retirée si elle est annulée
+    public void addImmatriculation(String immatriculation) {
+        update(filters -> add(filters.immatriculations(), immatriculation));
+        TransactionHooks.afterRollback(() -> removeImmatriculation(immatriculation));
+    }
+
+    public void addClient(Client client) {
+        ClientIdentite identite = new ClientIdentite(null, client.getNumPermis(), client.getNom(),
+                client.getPrenom(), client.getDateNaissance());
+        update(filters -> {
+            add(filters.permis(), identite.numPermis());
+            add(filters.identites(), identite(identite.nom(), identite.prenom(), identite.dateNaissance()));
+        });
+        TransactionHooks.afterRollback(() -> removeClient(identite));
+    }
+
+    // Retraits après commit : tant que la suppression ou le changement de clé n'est pas validé, l'ancienne clé existe encore
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeSaved(VehiculeSavedEvent event) {
+        String previous = event.getPreviousImmatriculation();
+        if (previous != null && !previous.equals(event.getVehicules().get(0).getImmatriculation())) {
+            removeImmatriculation(previous);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleVehiculeRemoved(VehiculeRemovedEvent event) {
+        removeImmatriculation(event.getImmatriculation());
+    }
+
+    // Les clés du client modifié ont été ajoutées avant l'écriture : celles d'avant sont retirées
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleClientSaved(ClientSavedEvent event) {
+        if (event.getPrevious() != null) {
+            removeClient(event.getPrevious());
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleClientRemoved(ClientRemovedEvent event) {
+        removeClient(event.getClient());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void handleDonneesRemplacees(DonneesRemplaceesEvent event) {
+        rebuild();
+    }
+
+    private void removeImmatriculation(String immatriculation) {
+        update(filters -> remove(filters.immatriculations(), immatriculation));
+    }
+
+    private void removeClient(ClientIdentite client) {
+        String identite = identite(client.nom(), client.prenom(), client.dateNaissance());
+        update(filters -> {
+            remove(filters.permis(), client.numPermis());
+            remove(filters.identites(), identite);
+        });
+    }
+
+    private void update(Consumer<Filters> change) {
+        lock.readLock().lock();
+        try {
+            if (current != null) {
+                change.accept(current);
+            }
+            if (building != null) {
+                change.accept(building);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+        Filters filters = current;
+        if (filters != null && filters.full() && resizing.compareAndSet(false, true)) {
+            Thread thread = new Thread(() -> {
+                try {
+                    rebuild();
+                } finally {
+                    resizing.set(false);
+                }
+            }, "unique-key-rebuild");
+            thread.setDaemon(true);
+            thread.start();
+        }
+    }
+
+    private void add(CountingBloomFilter filter, String key) {
+        if (key != null) {
+            filter.add(key);
+        }
+    }
+
+    // Une clé absente du filtre n'y a jamais été ajoutée : la retirer effacerait les cases d'une autre
+    private void remove(CountingBloomFilter filter, String key) {
+        if (key != null && filter.mightContain(key)) {
+            filter.remove(key);
+        }
+    }
+
+    // ================= Construction =================
+
+    /**
+     * Construit les filtres à partir de la base, dimensionnés pour deux fois le nombre de clés actuel.
+     * Les ajouts concurrents sont appliqués aux anciens comme aux nouveaux filtres : aucun n'est perdu.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.nanoTime();
+        long clients = clientRepository.count();
+        Filters next = new Filters(filter(vehiculeRepository.count()), filter(clients), filter(clients));
+        lock.writeLock().lock();
+        try {
+            building = next;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            List<String> immatriculations = vehiculeRepository.findAllImmatriculations();
+            immatriculations.forEach(next.immatriculations()::add);
+            for (ClientIdentite c : clientRepository.findAllIdentites()) {
+                next.permis().add(c.numPermis());
+                next.identites().add(identite(c.nom(), c.prenom(), c.dateNaissance()));
+            }
+            lock.writeLock().lock();
+            try {
+                current = next;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            lock.writeLock().lock();
+            try {
+                building = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Filtres d'unicité : {} immatriculation(s), {} client(s) en {} ms",
+                next.immatriculations().size(), next.permis().size(), (System.nanoTime() - start) / 1_000_000);
+    }
+
+    private CountingBloomFilter filter(long keys) {
+        return new CountingBloomFilter(Math.max(minCapacity, 2 * keys), fpp);
+    }
+
+    static String identite(String nom, String prenom, LocalDate dateNaissance) {
+        return nom + '\u0000' + prenom + '\u0000' + dateNaissance;
+    }
+
+    private record Filters(CountingBloomFilter immatriculations, CountingBloomFilter permis,
+                           CountingBloomFilter identites) {
+
+        boolean full() {
+            return immatriculations.size() > immatriculations.capacity() || permis.size() > permis.capacity();
+        }
+    }
+}
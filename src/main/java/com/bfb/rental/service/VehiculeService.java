@@ -1,13 +1,24 @@
 package com.bfb.rental.service;
 
+import com.bfb.rental.entity.Panne;
 import com.bfb.rental.entity.Vehicule;
 import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.enums.TypeTransition;
 import com.bfb.rental.event.VehiculePanneEvent;
+import com.bfb.rental.event.VehiculeRemovedEvent;
+import com.bfb.rental.event.VehiculeSavedEvent;
+import com.bfb.rental.repository.PanneRepository;
 import com.bfb.rental.repository.VehiculeRepository;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.List;
 
 @Service
 @RequiredArgsConstructor
@@ -15,17 +26,59 @@ public class VehiculeService {
 
     private final VehiculeRepository vehiculeRepository;
     private final ApplicationEventPublisher eventPublisher;
+    private final FleetRollups fleetRollups;
+    private final PanneRepository panneRepository;
+    private final TransitionJournal transitionJournal;
+    private final UniqueKeyFilter uniqueKeyFilter;
+    private final PlatformTransactionManager transactionManager;
+
+    @Value("${rental.panne.batch-size:500}")
+    private int panneBatchSize;
 
     // Créer un véhicule (avec validation d'unicité)
+    @Transactional
     public Vehicule createVehicule(Vehicule vehicule) {
-        if (vehiculeRepository.existsByImmatriculation(vehicule.getImmatriculation())) {
+        if (uniqueKeyFilter.immatriculationExists(vehicule.getImmatriculation())) {
             throw new IllegalArgumentException("Immatriculation déjà existante: " + vehicule.getImmatriculation());
         }
+        uniqueKeyFilter.addImmatriculation(vehicule.getImmatriculation());
         // État par défaut
         if (vehicule.getEtat() == null) {
             vehicule.setEtat(EtatVehicule.DISPONIBLE);
         }
-        return vehiculeRepository.save(vehicule);
+        Vehicule saved = vehiculeRepository.save(vehicule);
+        eventPublisher.publishEvent(VehiculeSavedEvent.created(this, List.of(saved)));
+        return saved;
+    }
+
+    // Création ou modification depuis le formulaire : l'unicité reste garantie par la contrainte de la base
+    @Transactional
+    public Vehicule saveVehicule(Vehicule vehicule) {
+        // Si c'est nouveau et sans état, disponible par défaut
+        if (vehicule.getId() == null && vehicule.getEtat() == null) {
+            vehicule.setEtat(EtatVehicule.DISPONIBLE);
+        }
+        // État et immatriculation précédents lus avant la sauvegarde (qui met à jour l'entité chargée)
+        Vehicule previous = vehicule.getId() == null ? null : vehiculeRepository.findById(vehicule.getId()).orElse(null);
+        EtatVehicule previousEtat = previous == null ? null : previous.getEtat();
+        String previousImmatriculation = previous == null ? null : previous.getImmatriculation();
+        if (!vehicule.getImmatriculation().equals(previousImmatriculation)) {
+            uniqueKeyFilter.addImmatriculation(vehicule.getImmatriculation());
+        }
+        Vehicule saved = vehiculeRepository.save(vehicule);
+        eventPublisher.publishEvent(previous == null
+                ? VehiculeSavedEvent.created(this, List.of(saved))
+                : VehiculeSavedEvent.updated(this, saved, previousEtat, previousImmatriculation));
+        panneEtatChanged(saved.getId(), previousEtat, saved.getEtat());
+        return saved;
+    }
+
+    @Transactional
+    public void deleteVehicule(Long id) {
+        vehiculeRepository.findById(id).ifPresent(v -> {
+            vehiculeRepository.delete(v);
+            eventPublisher.publishEvent(new VehiculeRemovedEvent(this, v));
+        });
     }
 
     // Métier principal : marquer un véhicule en panne
@@ -34,15 +87,68 @@ public class VehiculeService {
         Vehicule vehicule = vehiculeRepository.findById(vehiculeId)
                 .orElseThrow(() -> new RuntimeException("Véhicule inexistant"));
 
+        EtatVehicule previousEtat = vehicule.getEtat();
+        panneEtatChanged(vehiculeId, previousEtat, EtatVehicule.EN_PANNE);
         vehicule.setEtat(EtatVehicule.EN_PANNE);
         vehiculeRepository.save(vehicule);
 
         // Pattern Observateur
         // Publier l'événement "véhicule en panne", je ne me soucie pas de qui le traite.
         // Ainsi VehiculeService n'a pas besoin de dépendre de ContratService.
-        eventPublisher.publishEvent(new VehiculePanneEvent(this, vehiculeId));
+        eventPublisher.publishEvent(new VehiculePanneEvent(this, vehiculeId, previousEtat));
     }
     
+    /**
+     * Déclaration de pannes pour toute une flotte (ex : rappel constructeur).
+     * Traitée par lots : pour chaque lot, une requête UPDATE sur les véhicules dans une transaction courte,
+     * puis un seul événement de panne pour tout le lot.
+     *
+     * @return le nombre de véhicules effectivement passés EN_PANNE
+     */
+    public int declarerPannes(List<Long> vehiculeIds) {
+        List<Long> ids = vehiculeIds.stream().distinct().toList();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        int total = 0;
+        for (int from = 0; from < ids.size(); from += panneBatchSize) {
+            List<Long> batch = ids.subList(from, Math.min(from + panneBatchSize, ids.size()));
+            total += tx.execute(status -> declarerPannesBatch(batch));
+        }
+        return total;
+    }
+
+    private int declarerPannesBatch(List<Long> batch) {
+        long rented = vehiculeRepository.countByIdInAndEtat(batch, EtatVehicule.EN_LOCATION);
+        // Historique : une panne ouverte par véhicule qui n'était pas déjà EN_PANNE, avant la mise à jour
+        List<Long> newlyBroken = vehiculeRepository.findIdsNotEnPanne(batch);
+        panneRepository.openForVehicules(batch, LocalDate.now());
+        fleetRollups.panneOpened(newlyBroken, LocalDate.now());
+        transitionJournal.vehicules(TypeTransition.VEHICULE_EN_PANNE, newlyBroken);
+        int updated = vehiculeRepository.markEnPanne(batch);
+        eventPublisher.publishEvent(new VehiculePanneEvent(this, batch, (int) rented));
+        return updated;
+    }
+
+    /**
+     * Historique des pannes (rapports de flotte, journal des transitions) : ouvre une panne quand un véhicule
+     * passe EN_PANNE, la clôt quand il en sort (réparation saisie dans l'interface).
+     * Appelé dans la transaction de declarerPanne ou saveVehicule.
+     */
+    private void panneEtatChanged(Long vehiculeId, EtatVehicule from, EtatVehicule to) {
+        LocalDate today = LocalDate.now();
+        if (from != EtatVehicule.EN_PANNE && to == EtatVehicule.EN_PANNE) {
+            Panne panne = new Panne();
+            panne.setVehiculeId(vehiculeId);
+            panne.setDateDebut(today);
+            panneRepository.save(panne);
+            fleetRollups.panneOpened(List.of(vehiculeId), today);
+            transitionJournal.vehicules(TypeTransition.VEHICULE_EN_PANNE, List.of(vehiculeId));
+        } else if (from == EtatVehicule.EN_PANNE && to != EtatVehicule.EN_PANNE) {
+            panneRepository.close(vehiculeId, today);
+            fleetRollups.panneClosed(vehiculeId, today);
+            transitionJournal.vehicules(TypeTransition.VEHICULE_REPARE, List.of(vehiculeId));
+        }
+    }
+
     public Vehicule findById(Long id) {
         return vehiculeRepository.findById(id).orElseThrow(() -> new RuntimeException("Véhicule introuvable"));
     }
@@ -0,0 +1,34 @@
+package com.bfb.rental;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Enregistre les requêtes SQL préparées par Hibernate, par thread (les tâches planifiées sont ignorées).
+ * À activer dans un test avec la propriété
+ * spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bfb.rental.SqlRecorder
+ */
+public class SqlRecorder implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> STATEMENTS = ThreadLocal.withInitial(ArrayList::new);
+
+    @Override
+    public String inspect(String sql) {
+        STATEMENTS.get().add(sql);
+        return sql;
+    }
+
+    public static void reset() {
+        STATEMENTS.get().clear();
+    }
+
+    public static List<String> statements() {
+        return List.copyOf(STATEMENTS.get());
+    }
+
+    public static int count() {
+        return STATEMENTS.get().size();
+    }
+}
@@ -0,0 +1,50 @@
+package com.bfb.rental;
+
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatVehicule;
+
+import java.time.LocalDate;
+import java.util.Locale;
+import java.util.UUID;
+
+/**
+ * Entités de test aux clés uniques (immatriculation, numéro de permis, identité du client), non enregistrées :
+ * chaque test les enregistre par le chemin qu'il veut exercer (service ou dépôt).
+ */
+public final class TestData {
+
+    private TestData() {
+    }
+
+    // Véhicule DISPONIBLE à 50 € par jour ; l'immatriculation reprend la marque
+    public static Vehicule vehicule(String marque) {
+        Vehicule v = new Vehicule();
+        v.setMarque(marque);
+        v.setModele("Test");
+        v.setImmatriculation(uniqueKey(marque));
+        v.setEtat(EtatVehicule.DISPONIBLE);
+        v.setPrixJournee(50.0);
+        return v;
+    }
+
+    public static Vehicule vehicule(String marque, String motorisation) {
+        Vehicule v = vehicule(marque);
+        v.setMotorisation(motorisation);
+        return v;
+    }
+
+    // Le prénom aléatoire rend l'identité (nom, prénom, date de naissance) unique
+    public static Client client(String nom) {
+        Client c = new Client();
+        c.setNom(nom);
+        c.setPrenom(UUID.randomUUID().toString());
+        c.setDateNaissance(LocalDate.of(1990, 1, 1));
+        c.setNumPermis(uniqueKey(nom));
+        return c;
+    }
+
+    private static String uniqueKey(String prefix) {
+        return prefix.toUpperCase(Locale.ROOT) + "-" + UUID.randomUUID();
+    }
+}
@@ -0,0 +1,106 @@
+package com.bfb.rental.config;
+
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Mode threads virtuels (spring.threads.virtual.enabled=true) : à partir de Java 21, pannes traitées sur des
+ * threads virtuels et limite de requêtes en cours (503 au-delà) ; avant Java 21, la propriété est sans effet
+ * et l'exécuteur borné classique reste en place.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:virtual-threads;DB_CLOSE_DELAY=-1",
+        "spring.threads.virtual.enabled=true",
+        "rental.virtual.max-concurrent-requests=1",
+        "rental.virtual.queue-timeout-ms=50"
+})
+class VirtualThreadConfigTest {
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    void panneExecutorRunsOnVirtualThreads() throws Exception {
+        SimpleAsyncTaskExecutor executor = assertInstanceOf(SimpleAsyncTaskExecutor.class, context.getBean("panneExecutor"));
+        assertEquals(2, executor.getConcurrencyLimit());
+        // Thread.isVirtual() n'existe qu'à partir de Java 21 : appel par réflexion, le code est compilé en Java 17
+        Future<Object> virtual = executor.submit(() -> Thread.class.getMethod("isVirtual").invoke(Thread.currentThread()));
+        assertEquals(Boolean.TRUE, virtual.get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @EnabledForJreRange(min = JRE.JAVA_21)
+    @SuppressWarnings("unchecked")
+    void requestsBeyondTheLimitGet503() throws Exception {
+        OncePerRequestFilter filter = ((FilterRegistrationBean<OncePerRequestFilter>) context.getBean("concurrencyLimitFilter")).getFilter();
+        CountDownLatch inside = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            // La seule place est occupée par une requête en cours
+            Future<MockHttpServletResponse> holder = pool.submit(() -> call(filter, (request, response) -> {
+                inside.countDown();
+                await(release);
+            }));
+            await(inside);
+
+            MockHttpServletResponse rejected = call(filter, (request, response) -> fail("La requête aurait dû être refusée"));
+            assertEquals(503, rejected.getStatus());
+
+            // Place rendue à la fin de la requête : la suivante passe
+            release.countDown();
+            assertEquals(200, holder.get(5, TimeUnit.SECONDS).getStatus());
+            assertEquals(200, call(filter, (request, response) -> { }).getStatus());
+        } finally {
+            release.countDown();
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @EnabledForJreRange(max = JRE.JAVA_20)
+    void beforeJava21PlatformExecutorIsKept() {
+        assertInstanceOf(ThreadPoolTaskExecutor.class, context.getBean("panneExecutor"));
+        assertFalse(context.containsBean("concurrencyLimitFilter"));
+        assertTrue(context.containsBean("panneExecutor"));
+    }
+
+    private static MockHttpServletResponse call(OncePerRequestFilter filter, FilterChain chain) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/vehicules"), response, chain);
+        return response;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.bfb.rental.controller;
+
+import com.bfb.rental.SqlRecorder;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET conditionnels : un ETag inchangé donne un 304 sans aucune requête SQL ; une écriture change l'ETag
+ * des ressources concernées, et seulement d'elles.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:conditional-get;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bfb.rental.SqlRecorder"
+})
+@AutoConfigureMockMvc
+class ConditionalGetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Test
+    void unchangedListIsNotModifiedWithoutQuery() throws Exception {
+        createVehicule();
+        String etag = etag("/api/vehicules");
+
+        SqlRecorder.reset();
+        mockMvc.perform(get("/api/vehicules").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, etag))
+                .andExpect(content().string(""));
+        assertEquals(0, SqlRecorder.count());
+
+        // Un autre ETag (ou une liste qui ne le contient pas) donne la réponse complète
+        mockMvc.perform(get("/api/vehicules").header(HttpHeaders.IF_NONE_MATCH, "\"autre\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, etag));
+    }
+
+    @Test
+    void writesChangeOnlyAffectedEtags() throws Exception {
+        long vehiculeId = createVehicule();
+        long clientId = createClient();
+        String vehicules = etag("/api/vehicules");
+        String clients = etag("/api/clients");
+        String contrats = etag("/api/contrats");
+
+        // Un contrat ne change ni les véhicules ni les clients
+        long contratId = createContrat(clientId, vehiculeId);
+        assertEquals(vehicules, etag("/api/vehicules"));
+        assertEquals(clients, etag("/api/clients"));
+        String afterContrat = etag("/api/contrats");
+        assertNotEquals(contrats, afterContrat);
+
+        mockMvc.perform(get("/api/contrats/" + contratId).header(HttpHeaders.IF_NONE_MATCH, afterContrat))
+                .andExpect(status().isNotModified());
+
+        // Les vues de contrat contiennent le véhicule : une panne change les deux ETags
+        mockMvc.perform(post("/api/vehicules/" + vehiculeId + "/panne")).andExpect(status().isOk());
+        assertNotEquals(vehicules, etag("/api/vehicules"));
+        assertNotEquals(afterContrat, etag("/api/contrats/" + contratId));
+        assertEquals(clients, etag("/api/clients"));
+    }
+
+    @Test
+    void etagDependsOnNegotiatedFormat() throws Exception {
+        createVehicule();
+        MvcResult json = mockMvc.perform(get("/api/vehicules").accept(MediaType.APPLICATION_JSON))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn();
+        String jsonEtag = json.getResponse().getHeader(HttpHeaders.ETAG);
+        String cborEtag = mockMvc.perform(get("/api/vehicules").accept(MediaType.APPLICATION_CBOR))
+                .andExpect(content().contentType(MediaType.APPLICATION_CBOR))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotEquals(jsonEtag, cborEtag);
+
+        // L'ETag JSON ne valide pas la représentation CBOR
+        mockMvc.perform(get("/api/vehicules").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, jsonEtag))
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/api/vehicules").accept(MediaType.APPLICATION_CBOR).header(HttpHeaders.IF_NONE_MATCH, cborEtag))
+                .andExpect(status().isNotModified());
+    }
+
+    @Test
+    void detailEndpoints() throws Exception {
+        long vehiculeId = createVehicule();
+        String etag = etag("/api/vehicules/" + vehiculeId);
+
+        SqlRecorder.reset();
+        mockMvc.perform(get("/api/vehicules/" + vehiculeId).header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        assertEquals(0, SqlRecorder.count());
+
+        mockMvc.perform(get("/api/vehicules/" + vehiculeId))
+                .andExpect(jsonPath("$.id").value(vehiculeId));
+        mockMvc.perform(get("/api/vehicules/999999")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/clients/999999")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/api/contrats/999999")).andExpect(status().isNotFound());
+    }
+
+    private String etag(String url) throws Exception {
+        String etag = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertNotNull(etag);
+        return etag;
+    }
+
+    private long createVehicule() throws Exception {
+        return id(mockMvc.perform(post("/api/vehicules").contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"marque": "Renault", "modele": "Clio", "motorisation": "Essence",
+                         "immatriculation": "ETAG-%s", "prixJournee": 40.0}
+                        """.formatted(UUID.randomUUID()))).andExpect(status().isOk()).andReturn());
+    }
+
+    private long createClient() throws Exception {
+        return id(mockMvc.perform(post("/api/clients").contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"nom": "Martin", "prenom": "Paul", "dateNaissance": "1980-02-03", "numPermis": "ETAG-%s"}
+                        """.formatted(UUID.randomUUID()))).andExpect(status().isOk()).andReturn());
+    }
+
+    // Contrat dans le futur : la tâche planifiée ne le démarre pas pendant le test
+    private long createContrat(long clientId, long vehiculeId) throws Exception {
+        LocalDate debut = LocalDate.now().plusDays(30);
+        return id(mockMvc.perform(post("/api/contrats").contentType(MediaType.APPLICATION_JSON)
+                .content("""
+                        {"clientId": %d, "vehiculeId": %d, "dateDebut": "%s", "dateFin": "%s"}
+                        """.formatted(clientId, vehiculeId, debut, debut.plusDays(3))))
+                .andExpect(status().isOk()).andReturn());
+    }
+
+    private static long id(MvcResult result) throws Exception {
+        String json = result.getResponse().getContentAsString();
+        return Long.parseLong(json.replaceAll("(?s).*?\"id\"\\s*:\\s*(\\d+).*", "$1"));
+    }
+}
@@ -0,0 +1,293 @@
+package com.bfb.rental.controller;
+
+import com.bfb.rental.SqlRecorder;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.ContratRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
+import tools.jackson.dataformat.cbor.CBORMapper;
+import tools.jackson.dataformat.smile.SmileMapper;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Listes de contrats : une seule requête SQL par page, quel que soit le nombre de clients et de véhicules
+ * différents (pas de N+1). Les requêtes sont comptées sur le thread de la requête HTTP,
+ * ce qui ignore celles de la tâche planifiée. Pagination par curseur, filtres et flux NDJSON.
+ * Export CSV : filtres, échappement, compression. Formats binaires (CBOR, Smile) et représentation à plat.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:contrat-list;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bfb.rental.SqlRecorder"
+})
+@AutoConfigureMockMvc
+class ContratListQueryTest {
+
+    private static final int CONTRATS = 30;
+    private static final JsonMapper JSON = JsonMapper.builder().build();
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private VehiculeRepository vehiculeRepository;
+    @Autowired
+    private ContratRepository contratRepository;
+
+    @BeforeEach
+    void seed() {
+        if (contratRepository.count() > 0) {
+            return;
+        }
+        // Un client et un véhicule différents par contrat : un chargement paresseux se verrait tout de suite
+        List<Contrat> contrats = new ArrayList<>();
+        for (int i = 0; i < CONTRATS; i++) {
+            Client client = new Client();
+            client.setNom("Nom" + i);
+            client.setPrenom("Prenom" + i);
+            client.setDateNaissance(LocalDate.of(1990, 1, 1));
+            client.setNumPermis("LIST-" + UUID.randomUUID());
+            client = clientRepository.save(client);
+
+            Vehicule vehicule = new Vehicule();
+            vehicule.setMarque("Marque" + i);
+            vehicule.setModele("Modele");
+            vehicule.setMotorisation("Essence");
+            vehicule.setImmatriculation("LIST-" + UUID.randomUUID());
+            vehicule.setEtat(EtatVehicule.DISPONIBLE);
+            vehicule.setPrixJournee(50.0);
+            vehicule = vehiculeRepository.save(vehicule);
+
+            Contrat contrat = new Contrat();
+            contrat.setClient(client);
+            contrat.setVehicule(vehicule);
+            contrat.setDateDebut(LocalDate.now().plusDays(10));
+            contrat.setDateFin(LocalDate.now().plusDays(12));
+            contrat.setEtat(EtatContrat.EN_ATTENTE);
+            contrat.setPrixTotal(150.0);
+            contrats.add(contrat);
+        }
+
+        // Un contrat terminé dont les valeurs doivent être échappées à l'export
+        Client client = new Client();
+        client.setNom("Dupont, \"Jr\"");
+        client.setPrenom("Léa");
+        client.setDateNaissance(LocalDate.of(1985, 5, 5));
+        client.setNumPermis("LIST-" + UUID.randomUUID());
+        Contrat termine = new Contrat();
+        termine.setClient(clientRepository.save(client));
+        termine.setVehicule(contrats.get(0).getVehicule());
+        termine.setDateDebut(LocalDate.of(2024, 1, 1));
+        termine.setDateFin(LocalDate.of(2024, 1, 31));
+        termine.setEtat(EtatContrat.TERMINE);
+        termine.setPrixTotal(12345678.5);
+        contrats.add(termine);
+        contratRepository.saveAll(contrats);
+    }
+
+    @Test
+    void apiPageIssuesOneStatement() throws Exception {
+        SqlRecorder.reset();
+        mockMvc.perform(get("/api/contrats").param("limit", "20"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(20))
+                .andExpect(jsonPath("$[0].client.nom").value("Nom0"))
+                .andExpect(jsonPath("$[0].vehicule.marque").value("Marque0"));
+        assertEquals(1, SqlRecorder.count());
+    }
+
+    @Test
+    void apiFilteredPageIssuesOneStatement() throws Exception {
+        SqlRecorder.reset();
+        mockMvc.perform(get("/api/contrats").param("etat", "EN_ATTENTE").param("afterId", "0"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(CONTRATS));
+        assertEquals(1, SqlRecorder.count());
+    }
+
+    @Test
+    void cursorPagesCoverTheListOnceInIdOrder() throws Exception {
+        List<Long> ids = new ArrayList<>();
+        String cursor = "0";
+        int pages = 0;
+        while (cursor != null) {
+            MvcResult page = mockMvc.perform(get("/api/contrats").param("afterId", cursor).param("limit", "7"))
+                    .andExpect(status().isOk())
+                    .andReturn();
+            JSON.readTree(page.getResponse().getContentAsString()).forEach(row -> ids.add(row.get("id").asLong()));
+            cursor = page.getResponse().getHeader(Pagination.NEXT_CURSOR_HEADER);
+            pages++;
+        }
+        // 31 contrats : quatre pages pleines, puis une dernière page sans curseur
+        assertEquals(5, pages);
+        assertEquals(CONTRATS + 1, ids.size());
+        assertEquals(ids.stream().sorted().distinct().toList(), ids);
+    }
+
+    @Test
+    void listWithoutPagingParametersIsComplete() throws Exception {
+        mockMvc.perform(get("/api/contrats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(CONTRATS + 1))
+                .andExpect(header().doesNotExist(Pagination.NEXT_CURSOR_HEADER));
+        // limit seul : première page, avec le curseur de la suivante
+        mockMvc.perform(get("/api/contrats").param("limit", "10"))
+                .andExpect(jsonPath("$.length()").value(10))
+                .andExpect(header().exists(Pagination.NEXT_CURSOR_HEADER));
+    }
+
+    @Test
+    void filtersCombine() throws Exception {
+        assertEquals(1, list("etat", "TERMINE").size());
+        // Le véhicule du premier contrat porte aussi le contrat terminé
+        String vehiculeId = list().get(0).get("vehicule").get("id").asString();
+        assertEquals(2, list("vehiculeId", vehiculeId).size());
+        assertEquals(1, list("vehiculeId", vehiculeId, "etat", "EN_ATTENTE").size());
+        // Période : contrats qui la chevauchent
+        assertEquals(1, list("debut", "2024-01-15", "fin", "2024-02-15").size());
+        LocalDate jour = LocalDate.now().plusDays(11);
+        assertEquals(CONTRATS, list("debut", jour.toString(), "fin", jour.toString()).size());
+        assertEquals(0, list("etat", "TERMINE", "debut", jour.toString(), "fin", jour.toString()).size());
+    }
+
+    private JsonNode list(String... params) throws Exception {
+        MockHttpServletRequestBuilder builder = get("/api/contrats");
+        for (int i = 0; i < params.length; i += 2) {
+            builder.param(params[i], params[i + 1]);
+        }
+        return JSON.readTree(mockMvc.perform(builder).andExpect(status().isOk()).andReturn().getResponse().getContentAsString());
+    }
+
+    @Test
+    void streamWritesOneJsonObjectPerLine() throws Exception {
+        MvcResult started = mockMvc.perform(get("/api/contrats/stream").param("etat", "EN_ATTENTE"))
+                .andExpect(request().asyncStarted())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON))
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString(StandardCharsets.UTF_8);
+        List<String> lines = body.lines().toList();
+        assertEquals(CONTRATS, lines.size());
+        for (String line : lines) {
+            JsonNode contrat = JSON.readTree(line);
+            assertEquals("EN_ATTENTE", contrat.get("etat").asString());
+            assertTrue(contrat.get("client").get("nom").asString().startsWith("Nom"));
+        }
+    }
+
+    @Test
+    void compactPageReferencesIdsWithoutJoin() throws Exception {
+        SqlRecorder.reset();
+        mockMvc.perform(get("/api/contrats").param("compact", "true").param("etat", "EN_ATTENTE").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(5))
+                .andExpect(jsonPath("$[0].clientId").isNumber())
+                .andExpect(jsonPath("$[0].vehiculeId").isNumber())
+                .andExpect(jsonPath("$[0].client").doesNotExist());
+        assertEquals(1, SqlRecorder.count());
+        assertFalse(SqlRecorder.statements().get(0).toLowerCase().contains(" join "));
+    }
+
+    @Test
+    void binaryFormatsCarrySameContent() throws Exception {
+        JsonNode json = JSON.readTree(body(MediaType.APPLICATION_JSON));
+        JsonNode cbor = new CBORMapper().readTree(body(MediaType.APPLICATION_CBOR));
+        JsonNode smile = new SmileMapper().readTree(body(MediaType.parseMediaType("application/x-jackson-smile")));
+        assertEquals(json, cbor);
+        assertEquals(json, smile);
+        assertEquals("Nom0", cbor.get(0).get("client").get("nom").asString());
+    }
+
+    private byte[] body(MediaType accept) throws Exception {
+        return mockMvc.perform(get("/api/contrats").param("limit", "10").header(HttpHeaders.ACCEPT, accept.toString()))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(accept))
+                .andReturn().getResponse().getContentAsByteArray();
+    }
+
+    @Test
+    void csvExportAppliesFilters() throws Exception {
+        List<String> lines = export("csv", "etat", "EN_ATTENTE").lines().toList();
+        assertEquals(CONTRATS + 1, lines.size());
+        assertEquals("id,dateDebut,dateFin,etat,prixTotal,clientId,clientNom,clientPrenom,vehiculeId,marque,modele,immatriculation",
+                lines.get(0));
+        assertTrue(lines.get(1).contains(",EN_ATTENTE,150.0,"));
+        assertTrue(lines.get(1).contains(",Nom0,Prenom0,"));
+
+        // Période : seul le contrat terminé de janvier 2024 la chevauche
+        assertEquals(2, export("csv", "debut", "2024-01-15", "fin", "2024-02-15").lines().count());
+    }
+
+    @Test
+    void gzipExportEscapesValues() throws Exception {
+        String csv = export("csv.gz", "etat", "TERMINE");
+        List<String> lines = csv.lines().toList();
+        assertEquals(2, lines.size());
+        assertTrue(lines.get(1).contains(",2024-01-01,2024-01-31,TERMINE,12345678.5,"));
+        assertTrue(lines.get(1).contains(",\"Dupont, \"\"Jr\"\"\",Léa,"));
+
+        mockMvc.perform(get("/api/contrats/export").param("format", "xlsx"))
+                .andExpect(status().isBadRequest());
+    }
+
+    // Corps de l'export (décompressé si besoin) ; la réponse est écrite en asynchrone par StreamingResponseBody
+    private String export(String format, String... params) throws Exception {
+        MockHttpServletRequestBuilder builder = get("/api/contrats/export").param("format", format);
+        for (int i = 0; i < params.length; i += 2) {
+            builder.param(params[i], params[i + 1]);
+        }
+        MvcResult started = mockMvc.perform(builder).andExpect(request().asyncStarted()).andReturn();
+        byte[] body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsByteArray();
+        if (format.endsWith(".gz")) {
+            try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(body))) {
+                body = in.readAllBytes();
+            }
+        }
+        return new String(body, StandardCharsets.UTF_8);
+    }
+
+    @Test
+    void uiPageIssuesOneStatement() throws Exception {
+        SqlRecorder.reset();
+        mockMvc.perform(get("/ui/contrats"))
+                .andExpect(status().isOk());
+        assertEquals(1, SqlRecorder.count());
+    }
+}
@@ -0,0 +1,156 @@
+package com.bfb.rental.controller;
+
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import com.bfb.rental.service.OccupancyIndex;
+import com.bfb.rental.service.PricingEngine;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.hamcrest.Matchers.hasSize;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.multipart;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Import CSV : les lignes valides sont importées (sur plusieurs lots), les autres rejetées avec leur
+ * numéro de ligne et leur motif — doublons en base ou dans le fichier, dates et nombres invalides.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:csv-import;DB_CLOSE_DELAY=-1",
+        "rental.import.batch-size=2",
+        "rental.import.max-errors=3"
+})
+@AutoConfigureMockMvc
+class CsvImportTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private VehiculeRepository vehiculeRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+    @Autowired
+    private PricingEngine pricingEngine;
+
+    @Test
+    void importsValidVehiculesAndReportsRejectedLines() throws Exception {
+        String prefix = "IMP-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        Vehicule existing = new Vehicule();
+        existing.setMarque("Peugeot");
+        existing.setImmatriculation(prefix + "0");
+        existing.setEtat(EtatVehicule.DISPONIBLE);
+        vehiculeRepository.save(existing);
+
+        String csv = "Immatriculation,marque,modele,motorisation,prixJournee,dateAcquisition\n" +
+                prefix + "1,Renault,Clio,Essence,45.5,2024-03-01\n" +
+                prefix + "2,\"Citroën, DS\",\"C3 \"\"Aircross\"\"\",Diesel,,\n" +
+                "\n" +
+                prefix + "0,Peugeot,208,Essence,50,\n" +
+                prefix + "1,Renault,Megane,Essence,60,\n" +
+                prefix + "3,Tesla,Model 3,Electrique,-1,\n" +
+                prefix + "4,Tesla,Model Y,Electrique,90,2024-13-01\n" +
+                prefix + "5,Fiat,500,Essence,35,2023-06-15\n";
+
+        mockMvc.perform(multipart("/api/vehicules/import")
+                        .file(new MockMultipartFile("file", "flotte.csv", "text/csv", csv.getBytes(StandardCharsets.UTF_8))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.entite").value("vehicule"))
+                .andExpect(jsonPath("$.lignes").value(7))
+                .andExpect(jsonPath("$.importes").value(3))
+                .andExpect(jsonPath("$.rejetes").value(4))
+                // Liste des erreurs bornée à rental.import.max-errors, compteur exact
+                .andExpect(jsonPath("$.erreurs", hasSize(3)))
+                .andExpect(jsonPath("$.erreurs[0].ligne").value(5))
+                .andExpect(jsonPath("$.erreurs[0].message").value("Immatriculation déjà existante: " + prefix + "0"))
+                .andExpect(jsonPath("$.erreurs[1].ligne").value(6))
+                .andExpect(jsonPath("$.erreurs[1].message").value("En double avec la ligne 2"))
+                .andExpect(jsonPath("$.erreurs[2].ligne").value(7));
+
+        List<String> expected = List.of(prefix + "1", prefix + "2", prefix + "5");
+        List<Vehicule> imported = vehiculeRepository.findAll().stream()
+                .filter(v -> expected.contains(v.getImmatriculation()))
+                .toList();
+        assertEquals(3, imported.size());
+        Vehicule citroen = imported.stream().filter(v -> v.getImmatriculation().equals(prefix + "2")).findFirst().orElseThrow();
+        assertEquals("Citroën, DS", citroen.getMarque());
+        assertEquals("C3 \"Aircross\"", citroen.getModele());
+        Vehicule clio = imported.stream().filter(v -> v.getImmatriculation().equals(prefix + "1")).findFirst().orElseThrow();
+        assertEquals("Clio", clio.getModele());
+        assertEquals(LocalDate.of(2024, 3, 1), clio.getDateAcquisition());
+        assertEquals(45.5, clio.getPrixJournee());
+        // Les véhicules importés sont visibles dans l'index d'occupation et tarifés par le moteur de prix
+        LocalDate debut = LocalDate.now().plusYears(5);
+        List<Long> available = occupancyIndex.findAvailable(debut, debut.plusDays(1), null, null);
+        imported.forEach(v -> {
+            assertEquals(EtatVehicule.DISPONIBLE, v.getEtat());
+            assertTrue(available.contains(v.getId()));
+            assertEquals(pricingEngine.price(v.getPrixJournee(), v.getMotorisation(), debut, debut.plusDays(1)),
+                    pricingEngine.quote(v.getId(), debut.toEpochDay(), debut.plusDays(1).toEpochDay()));
+        });
+    }
+
+    @Test
+    void importsClientsFromRawCsvBody() throws Exception {
+        String permis = "IMP-" + UUID.randomUUID().toString().substring(0, 8) + "-";
+        Client existing = new Client();
+        existing.setNom("Martin");
+        existing.setPrenom("Paul");
+        existing.setDateNaissance(LocalDate.of(1980, 5, 5));
+        existing.setNumPermis(permis + "0");
+        clientRepository.save(existing);
+
+        // BOM en tête, adresse sur deux lignes (fin de ligne ramenée à \n) : les numéros de ligne suivent le fichier
+        String csv = "\uFEFFnom,prenom,dateNaissance,numPermis,adresse\r\n" +
+                "Durand,Julie,1991-02-03," + permis + "1,\"12 rue des Lilas\r\n75011 Paris\"\r\n" +
+                "Martin,Paul,1980-05-05," + permis + "2,\r\n" +
+                "Petit,Luc,1985-07-08," + permis + "1,\r\n" +
+                "Petit,Luc,1985-07-08\r\n";
+
+        mockMvc.perform(post("/api/clients/import")
+                        .contentType("text/csv")
+                        .content(csv.getBytes(StandardCharsets.UTF_8)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.lignes").value(4))
+                .andExpect(jsonPath("$.importes").value(1))
+                .andExpect(jsonPath("$.rejetes").value(3))
+                .andExpect(jsonPath("$.erreurs[0].ligne").value(4))
+                .andExpect(jsonPath("$.erreurs[0].message").value("Client déjà existant (nom, prénom, date de naissance)"))
+                .andExpect(jsonPath("$.erreurs[1].ligne").value(5))
+                .andExpect(jsonPath("$.erreurs[1].message").value("En double avec la ligne 2"))
+                .andExpect(jsonPath("$.erreurs[2].ligne").value(6))
+                .andExpect(jsonPath("$.erreurs[2].message").value("5 colonnes attendues, 3 trouvées"));
+
+        Client julie = clientRepository.findAll().stream()
+                .filter(c -> c.getNumPermis().equals(permis + "1")).findFirst().orElseThrow();
+        assertEquals("12 rue des Lilas\n75011 Paris", julie.getAdresse());
+        assertEquals(LocalDate.of(1991, 2, 3), julie.getDateNaissance());
+    }
+
+    @Test
+    void rejectsUnknownOrMissingColumns() throws Exception {
+        mockMvc.perform(post("/api/vehicules/import").contentType("text/csv")
+                        .content("immatriculation,kilometrage\nAB-123-CD,1000\n"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/clients/import").contentType("text/csv")
+                        .content("nom,prenom,numPermis\nDurand,Julie,X\n"))
+                .andExpect(status().isBadRequest());
+    }
+}
@@ -0,0 +1,121 @@
+package com.bfb.rental.controller;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.ContratRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import com.bfb.rental.service.ContratService;
+import com.bfb.rental.service.VehiculeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.webmvc.test.autoconfigure.AutoConfigureMockMvc;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.fail;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Déclaration de panne, unitaire ou par lot : après le traitement asynchrone (panneExecutor),
+ * les contrats EN_ATTENTE des véhicules en panne sont annulés, ceux des autres véhicules restent intacts.
+ */
+@SpringBootTest(properties = "spring.datasource.url=jdbc:h2:mem:panne;DB_CLOSE_DELAY=-1")
+@AutoConfigureMockMvc
+class PanneTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private ContratRepository contratRepository;
+    @Autowired
+    private VehiculeRepository vehiculeRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private Client client;
+
+    // Loin dans le futur pour que la tâche planifiée ne démarre pas les contrats pendant le test
+    private final LocalDate base = LocalDate.now().plusYears(5);
+
+    @BeforeEach
+    void setUp() {
+        client = clientRepository.save(TestData.client("Panne"));
+    }
+
+    @Test
+    void breakdownCancelsPendingContractsOfThatVehiculeOnly() throws Exception {
+        Vehicule enPanne = newVehicule();
+        Vehicule autre = newVehicule();
+        List<Contrat> annules = List.of(book(enPanne, 0), book(enPanne, 10));
+        Contrat intact = book(autre, 0);
+
+        mockMvc.perform(post("/api/vehicules/" + enPanne.getId() + "/panne"))
+                .andExpect(status().isOk());
+
+        awaitEtat(annules, EtatContrat.ANNULE);
+        assertEquals(EtatVehicule.EN_PANNE, vehiculeRepository.findById(enPanne.getId()).orElseThrow().getEtat());
+        assertEquals(EtatContrat.EN_ATTENTE, etat(intact));
+        assertEquals(EtatVehicule.DISPONIBLE, vehiculeRepository.findById(autre.getId()).orElseThrow().getEtat());
+    }
+
+    @Test
+    void bulkBreakdownCancelsPendingContractsOfEveryListedVehicule() throws Exception {
+        Vehicule first = newVehicule();
+        Vehicule second = newVehicule();
+        Vehicule autre = newVehicule();
+        List<Contrat> annules = List.of(book(first, 0), book(second, 0), book(second, 10));
+        Contrat intact = book(autre, 0);
+
+        // Doublons dans la liste : chaque véhicule n'est compté qu'une fois
+        mockMvc.perform(post("/api/vehicules/panne")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[" + first.getId() + "," + second.getId() + "," + first.getId() + "]"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(startsWith("2 véhicule(s)")));
+
+        awaitEtat(annules, EtatContrat.ANNULE);
+        assertEquals(EtatContrat.EN_ATTENTE, etat(intact));
+        assertEquals(EtatVehicule.DISPONIBLE, vehiculeRepository.findById(autre.getId()).orElseThrow().getEtat());
+    }
+
+    private Vehicule newVehicule() {
+        return vehiculeService.createVehicule(TestData.vehicule("Panne"));
+    }
+
+    private Contrat book(Vehicule v, int offset) {
+        return contratService.createContrat(client.getId(), v.getId(), base.plusDays(offset), base.plusDays(offset + 3));
+    }
+
+    private EtatContrat etat(Contrat contrat) {
+        return contratRepository.findById(contrat.getId()).orElseThrow().getEtat();
+    }
+
+    // Les annulations sont faites après commit sur panneExecutor : la réponse HTTP ne les attend pas
+    private void awaitEtat(List<Contrat> contrats, EtatContrat expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (!contrats.stream().allMatch(c -> etat(c) == expected)) {
+            if (System.currentTimeMillis() > deadline) {
+                fail("Contrats non passés à " + expected + " : " + contrats.stream().map(this::etat).toList());
+            }
+            Thread.sleep(20);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package com.bfb.rental.repository;
+
+import com.bfb.rental.SqlRecorder;
+import com.bfb.rental.enums.EtatContrat;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Limit;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Non-régression des plans d'exécution : chaque requête du dépôt des contrats est rejouée,
+ * le SQL généré est passé à EXPLAIN (H2), et le test échoue si la table contrat est parcourue entièrement.
+ *
+ * Exceptions : sumPrixTotal et streamRollups (reconstruction des agrégats de flotte), qui lisent toute la table par définition.
+ * Les listes à filtres optionnels (findViewPage, streamViews) parcourent la clé primaire dans l'ordre du curseur.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:contrat-plan;DB_CLOSE_DELAY=-1",
+        "spring.jpa.properties.hibernate.session_factory.statement_inspector=com.bfb.rental.SqlRecorder"
+})
+class ContratQueryPlanTest {
+
+    private static final int VEHICULES = 200;
+    private static final int CLIENTS = 100;
+    private static final int CONTRATS = 20_000;
+    private static final String[] ETATS = {"TERMINE", "TERMINE", "TERMINE", "ANNULE", "EN_COURS", "EN_ATTENTE", "EN_RETARD"};
+
+    @Autowired
+    private ContratRepository contratRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private long vehiculeId;
+
+    @BeforeEach
+    void seed() {
+        if (contratRepository.count() == 0) {
+            Random random = new Random(42);
+            List<Object[]> rows = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                rows.add(new Object[]{"Nom" + i, "Prenom" + i, Date.valueOf(LocalDate.of(1990, 1, 1)), "PLAN-" + i});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO client (nom, prenom, date_naissance, num_permis) VALUES (?, ?, ?, ?)", rows);
+            rows.clear();
+            for (int i = 0; i < VEHICULES; i++) {
+                rows.add(new Object[]{"Marque" + (i % 10), "Modele", "Essence", "PLAN-" + i});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO vehicule (marque, modele, motorisation, immatriculation, etat, prix_journee) " +
+                    "VALUES (?, ?, ?, ?, 'DISPONIBLE', 50)", rows);
+
+            long firstVehicule = jdbcTemplate.queryForObject("SELECT MIN(id) FROM vehicule", Long.class);
+            long firstClient = jdbcTemplate.queryForObject("SELECT MIN(id) FROM client", Long.class);
+            LocalDate start = LocalDate.now().minusYears(2);
+            rows.clear();
+            for (int i = 0; i < CONTRATS; i++) {
+                LocalDate debut = start.plusDays(random.nextInt(900));
+                rows.add(new Object[]{Date.valueOf(debut), Date.valueOf(debut.plusDays(1 + random.nextInt(10))),
+                        ETATS[random.nextInt(ETATS.length)], firstClient + random.nextInt(CLIENTS),
+                        firstVehicule + random.nextInt(VEHICULES), 100.0});
+            }
+            jdbcTemplate.batchUpdate("INSERT INTO contrat (id, date_debut, date_fin, etat, client_id, vehicule_id, prix_total) " +
+                    "VALUES (NEXT VALUE FOR contrat_seq, ?, ?, ?, ?, ?, ?)", rows);
+            // Statistiques de sélectivité à jour, comme sur une base en production
+            jdbcTemplate.execute("ANALYZE");
+        }
+        vehiculeId = jdbcTemplate.queryForObject("SELECT MIN(id) FROM vehicule", Long.class);
+    }
+
+    @Test
+    void findConflictingContrats() {
+        LocalDate today = LocalDate.now();
+        assertUsesIndex(() -> contratRepository.findConflictingContrats(vehiculeId, today, today.plusDays(7)),
+                "IDX_CONTRAT_VEHICULE_ETAT_DATES");
+    }
+
+    @Test
+    void findByVehiculeIdAndEtat() {
+        assertUsesIndex(() -> contratRepository.findByVehiculeIdAndEtat(vehiculeId, EtatContrat.EN_ATTENTE),
+                "IDX_CONTRAT_VEHICULE_ETAT_DATES");
+    }
+
+    @Test
+    void findPendingSlotsByVehiculeIds() {
+        assertUsesIndex(() -> contratRepository.findPendingSlotsByVehiculeIds(List.of(vehiculeId, vehiculeId + 1)),
+                "IDX_CONTRAT_VEHICULE_ETAT_DATES");
+    }
+
+    @Test
+    @Transactional
+    void cancelPendingByVehiculeIds() {
+        assertUsesIndex(() -> contratRepository.cancelPendingByVehiculeIds(List.of(vehiculeId, vehiculeId + 1)),
+                "IDX_CONTRAT_VEHICULE_ETAT_DATES");
+    }
+
+    @Test
+    void findDueContrats() {
+        assertUsesIndex(() -> contratRepository.findDueContrats(LocalDate.now(), 0L, 1, 0, Limit.of(100)),
+                "IDX_CONTRAT_ETAT_DEBUT");
+    }
+
+    @Test
+    void findActiveReservationSlots() {
+        assertUsesIndex(() -> contratRepository.findActiveReservationSlots(),
+                "IDX_CONTRAT_ETAT_DEBUT");
+    }
+
+    @Test
+    void countByEtat() {
+        assertUsesIndex(() -> contratRepository.countByEtat(EtatContrat.EN_COURS),
+                "IDX_CONTRAT_ETAT_DEBUT");
+    }
+
+    @Test
+    void findViewPage() {
+        assertUsesIndex(() -> contratRepository.findViewPage(0L, EtatContrat.EN_ATTENTE, vehiculeId, null, null, Limit.of(100)));
+    }
+
+    @Test
+    @Transactional(readOnly = true)
+    void streamViews() {
+        assertUsesIndex(() -> {
+            try (Stream<?> rows = contratRepository.streamViews(EtatContrat.EN_ATTENTE, vehiculeId, null, null)) {
+                rows.forEach(row -> { });
+            }
+        });
+    }
+
+    // Pour les requêtes critiques, l'index attendu est vérifié aussi : sur H2, la clé étrangère vehicule_id
+    // a son propre index implicite, qui masquerait l'absence de l'index composite sur d'autres bases
+    private void assertUsesIndex(Runnable query, String index) {
+        assertUsesIndex(query);
+        for (String sql : SqlRecorder.statements()) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+            assertTrue(plan.contains("PUBLIC." + index), () -> "Index " + index + " non utilisé :\n" + plan);
+        }
+    }
+
+    private void assertUsesIndex(Runnable query) {
+        SqlRecorder.reset();
+        query.run();
+        List<String> statements = SqlRecorder.statements();
+        assertFalse(statements.isEmpty(), "Aucune requête SQL exécutée");
+        for (String sql : statements) {
+            String plan = jdbcTemplate.queryForObject("EXPLAIN " + sql, String.class);
+            assertFalse(plan.contains("CONTRAT.tableScan"), () -> "Parcours complet de la table contrat :\n" + plan);
+        }
+    }
+}
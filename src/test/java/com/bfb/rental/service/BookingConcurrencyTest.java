@@ -0,0 +1,143 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.ContratRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+/**
+ * Test de charge du chemin de réservation : aucune double réservation possible.
+ * Le débit en parallèle sur des véhicules différents se mesure avec BookingBenchmark.
+ */
+@SpringBootTest
+class BookingConcurrencyTest {
+
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private ContratRepository contratRepository;
+    @Autowired
+    private VehiculeRepository vehiculeRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private Client client;
+
+    // Loin dans le futur pour que la tâche planifiée ne démarre pas les contrats pendant le test
+    private final LocalDate base = LocalDate.now().plusYears(5);
+
+    @BeforeEach
+    void setUp() {
+        client = clientRepository.save(TestData.client("Charge"));
+    }
+
+    @Test
+    void sameVehiculeSameDatesOnlyOneBookingWins() throws Exception {
+        Vehicule v = newVehicule();
+        int threads = 16;
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger success = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < threads; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        contratService.createContrat(client.getId(), v.getId(), base, base.plusDays(3));
+                        success.incrementAndGet();
+                    } catch (IllegalStateException expected) {
+                        // conflit ou trop de tentatives : refus attendu
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        assertEquals(1, success.get());
+        assertEquals(1, activeContrats(v).size());
+    }
+
+    @Test
+    void randomOverlappingBookingsNeverDoubleBook() throws Exception {
+        List<Vehicule> vehicules = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            vehicules.add(newVehicule());
+        }
+        int threads = 8;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(pool.submit(() -> {
+                    ThreadLocalRandom rnd = ThreadLocalRandom.current();
+                    for (int i = 0; i < 40; i++) {
+                        Vehicule v = vehicules.get(rnd.nextInt(vehicules.size()));
+                        LocalDate debut = base.plusDays(rnd.nextInt(60));
+                        try {
+                            contratService.createContrat(client.getId(), v.getId(), debut, debut.plusDays(rnd.nextInt(5)));
+                        } catch (IllegalStateException expected) {
+                            // conflit
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> f : futures) {
+                f.get();
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        for (Vehicule v : vehicules) {
+            List<Contrat> contrats = activeContrats(v);
+            for (int i = 0; i < contrats.size(); i++) {
+                for (int j = i + 1; j < contrats.size(); j++) {
+                    Contrat a = contrats.get(i);
+                    Contrat b = contrats.get(j);
+                    boolean overlap = !a.getDateDebut().isAfter(b.getDateFin()) && !a.getDateFin().isBefore(b.getDateDebut());
+                    assertFalse(overlap, "Double réservation : contrats " + a.getId() + " et " + b.getId());
+                }
+            }
+        }
+    }
+
+    private List<Contrat> activeContrats(Vehicule v) {
+        List<Contrat> result = new ArrayList<>();
+        result.addAll(contratRepository.findByVehiculeIdAndEtat(v.getId(), EtatContrat.EN_ATTENTE));
+        result.addAll(contratRepository.findByVehiculeIdAndEtat(v.getId(), EtatContrat.EN_COURS));
+        return result;
+    }
+
+    private Vehicule newVehicule() {
+        return vehiculeRepository.save(TestData.vehicule("Stress"));
+    }
+}
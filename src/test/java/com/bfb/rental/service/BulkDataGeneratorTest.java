@@ -0,0 +1,117 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.dto.BulkGenerationReport;
+import com.bfb.rental.dto.BulkGenerationRequest;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.repository.ClientRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.LocalDate;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Génération massive : les réservations générées ne se chevauchent jamais sur un véhicule,
+ * la reconstruction des index à la fin ne laisse passer aucune réservation concurrente en conflit, et les
+ * identifiants générés ne sont jamais repris par les contrats créés ensuite par le service.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:bulk-generator;DB_CLOSE_DELAY=-1",
+        "rental.generator.bulk.batch-size=50"
+})
+class BulkDataGeneratorTest {
+
+    // Locations qui occupent le véhicule : réservées, en cours ou pas encore rendues
+    private static final String OVERLAPS = "SELECT COUNT(*) FROM contrat a JOIN contrat b " +
+            "ON a.vehicule_id = b.vehicule_id AND a.id < b.id " +
+            "WHERE a.etat IN ('EN_ATTENTE', 'EN_COURS', 'EN_RETARD') AND b.etat IN ('EN_ATTENTE', 'EN_COURS', 'EN_RETARD') " +
+            "AND a.date_debut <= b.date_fin AND a.date_fin >= b.date_debut";
+
+    @Autowired
+    private BulkDataGeneratorService bulkDataGeneratorService;
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void generatedBookingsNeverOverlap() {
+        long before = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM contrat", Long.class);
+
+        BulkGenerationReport report = bulkDataGeneratorService.generate(request(200, 100, 2_000));
+
+        assertEquals(2_300, report.totalLignes());
+        assertEquals(before + 2_000, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM contrat", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject(OVERLAPS, Long.class));
+        // Un véhicule en location a une location en cours, et un véhicule en panne n'a plus de réservation
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM vehicule v WHERE v.etat = 'EN_LOCATION' " +
+                "AND NOT EXISTS (SELECT 1 FROM contrat c WHERE c.vehicule_id = v.id AND c.etat IN ('EN_COURS', 'EN_RETARD'))", Long.class));
+        assertEquals(0, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM contrat c JOIN vehicule v ON v.id = c.vehicule_id " +
+                "WHERE v.etat = 'EN_PANNE' AND c.etat = 'EN_ATTENTE'", Long.class));
+    }
+
+    @Test
+    void bookingsStayExclusiveWhileIndexesAreRebuilt() {
+        Client client = clientRepository.save(TestData.client("Generation"));
+        Vehicule vehicule = vehiculeService.createVehicule(TestData.vehicule("Generation"));
+        LocalDate debut = LocalDate.now().plusYears(7);
+        contratService.createContrat(client.getId(), vehicule.getId(), debut, debut.plusDays(3));
+
+        CompletableFuture<BulkGenerationReport> generation = CompletableFuture.supplyAsync(
+                () -> bulkDataGeneratorService.generate(request(500, 200, 5_000)));
+        int attempts = 0;
+        while (!generation.isDone() || attempts == 0) {
+            assertThrows(IllegalStateException.class,
+                    () -> contratService.createContrat(client.getId(), vehicule.getId(), debut.plusDays(1), debut.plusDays(2)));
+            attempts++;
+        }
+        generation.join();
+
+        assertTrue(attempts > 0);
+        assertEquals(0, jdbcTemplate.queryForObject(OVERLAPS, Long.class));
+    }
+
+    @Test
+    void serviceIdsNeverCollideWithGeneratedIds() {
+        Client client = clientRepository.save(TestData.client("Sequence"));
+        Vehicule vehicule = vehiculeService.createVehicule(TestData.vehicule("Sequence"));
+        LocalDate debut = LocalDate.now().plusYears(8);
+        // Un bloc d'identifiants déjà entamé par Hibernate avant la génération, puis au-delà de plusieurs blocs après
+        contratService.createContrat(client.getId(), vehicule.getId(), debut, debut.plusDays(1));
+
+        long maxBefore = jdbcTemplate.queryForObject("SELECT MAX(id) FROM contrat", Long.class);
+        bulkDataGeneratorService.generate(request(50, 20, 500));
+        // Un bloc de la séquence sert ID_ALLOCATION contrats, et non un seul
+        assertTrue(jdbcTemplate.queryForObject("SELECT MAX(id) FROM contrat", Long.class) - maxBefore < 3 * 500);
+
+        for (int i = 1; i <= 2 * Contrat.ID_ALLOCATION; i++) {
+            LocalDate from = debut.plusDays(3L * i);
+            contratService.createContrat(client.getId(), vehicule.getId(), from, from.plusDays(1));
+        }
+        assertEquals(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM contrat", Long.class),
+                jdbcTemplate.queryForObject("SELECT COUNT(DISTINCT id) FROM contrat", Long.class));
+    }
+
+    private static BulkGenerationRequest request(int vehicules, int clients, int contrats) {
+        BulkGenerationRequest request = new BulkGenerationRequest();
+        request.setVehicules(vehicules);
+        request.setClients(clients);
+        request.setContrats(contrats);
+        request.setSeed(7L);
+        request.setThreads(4);
+        return request;
+    }
+}
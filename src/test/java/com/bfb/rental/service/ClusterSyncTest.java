@@ -0,0 +1,134 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.RentalApplication;
+import com.bfb.rental.TestData;
+import com.bfb.rental.dto.JournalEntry;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.enums.TypeTransition;
+import com.bfb.rental.repository.ClusterDemarrageRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+
+/**
+ * Deux instances sur la même base H2 fichier : B sert l'API (contrats créés et lus sur B), A détient le bail
+ * de la tâche planifiée. Après la synchronisation, B voit les contrats démarrés par A : ETags changés,
+ * véhicule relu en base malgré le cache, compteurs, agrégats et journal à jour.
+ */
+class ClusterSyncTest {
+
+    private final String url = "jdbc:h2:file:./target/cluster-sync/" + UUID.randomUUID() + "/rental;AUTO_SERVER=TRUE";
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+    private final LocalDate today = LocalDate.now();
+
+    @AfterEach
+    void closeContexts() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void startsByAnotherInstanceReachTheApiInstance() {
+        ConfigurableApplicationContext a = start();
+        ConfigurableApplicationContext b = start();
+        // A prend le bail de l'unique partition ; B ne lance jamais la tâche
+        a.getBean(SchedulerLeases.class).acquire();
+        // Première synchronisation de B, avant tout démarrage : les suivantes appliquent les lots un par un
+        b.getBean(ClusterSync.class).sync();
+
+        Contrat contrat = createDueContrat(b);
+        Long vehiculeId = contrat.getVehicule().getId();
+        ResourceVersions versions = b.getBean(ResourceVersions.class);
+        VehiculeService vehiculesB = b.getBean(VehiculeService.class);
+        String contratsEtag = versions.contratsEtag();
+        String vehiculesEtag = versions.vehiculesEtag();
+        // Véhicule lu sur B : il entre dans le cache de second niveau de B
+        assertEquals(EtatVehicule.DISPONIBLE, vehiculesB.findById(vehiculeId).getEtat());
+
+        assertEquals(1, a.getBean(ContratService.class).updateContratStatusAutomatic());
+        // Sans synchronisation, B ne sait rien du démarrage
+        assertEquals(contratsEtag, versions.contratsEtag());
+        b.getBean(ClusterSync.class).sync();
+
+        assertNotEquals(contratsEtag, versions.contratsEtag());
+        assertNotEquals(vehiculesEtag, versions.vehiculesEtag());
+        assertEquals(EtatVehicule.EN_LOCATION, vehiculesB.findById(vehiculeId).getEtat());
+        DashboardStats stats = b.getBean(DashboardStats.class);
+        assertEquals(1, stats.getRentedCars());
+        stats.reconcile();
+        assertEquals(1, stats.getRentedCars());
+        assertEquals(1, b.getBean(FleetRollups.class).report(today, today, vehiculeId, null, null, null).total().joursLoues());
+        assertEquals(1, demarrages(b, contrat));
+
+        // A ne réapplique pas ses propres lots, B n'applique chaque lot qu'une fois
+        a.getBean(ClusterSync.class).sync();
+        b.getBean(ClusterSync.class).sync();
+        assertEquals(1, demarrages(a, contrat));
+        assertEquals(1, demarrages(b, contrat));
+        assertEquals(1, stats.getRentedCars());
+    }
+
+    @Test
+    void purgedLotsRebuildFromTheDatabase() {
+        ConfigurableApplicationContext a = start();
+        ConfigurableApplicationContext b = start();
+        a.getBean(SchedulerLeases.class).acquire();
+        b.getBean(ClusterSync.class).sync();
+
+        Contrat contrat = createDueContrat(b);
+        Long vehiculeId = contrat.getVehicule().getId();
+        ResourceVersions versions = b.getBean(ResourceVersions.class);
+        String contratsEtag = versions.contratsEtag();
+        assertEquals(EtatVehicule.DISPONIBLE, b.getBean(VehiculeService.class).findById(vehiculeId).getEtat());
+
+        // Lot démarré puis purgé avant que B ne le relise (instance B figée plus longtemps que la rétention)
+        assertEquals(1, a.getBean(ContratService.class).updateContratStatusAutomatic());
+        a.getBean(ClusterDemarrageRepository.class).deleteAll();
+        b.getBean(ClusterSync.class).sync();
+
+        assertNotEquals(contratsEtag, versions.contratsEtag());
+        assertEquals(EtatVehicule.EN_LOCATION, b.getBean(VehiculeService.class).findById(vehiculeId).getEtat());
+        assertEquals(1, b.getBean(DashboardStats.class).getRentedCars());
+        assertEquals(1, b.getBean(FleetRollups.class).report(today, today, vehiculeId, null, null, null).total().joursLoues());
+    }
+
+    // Exécutions automatiques (tâche et synchronisation) espacées d'une heure : seuls les appels du test comptent
+    private ConfigurableApplicationContext start() {
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(RentalApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--rental.journal.dir=target/journal/" + UUID.randomUUID(),
+                        "--rental.scheduler.rate-ms=3600000",
+                        "--rental.cluster.sync-ms=3600000",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        contexts.add(ctx);
+        return ctx;
+    }
+
+    private Contrat createDueContrat(ConfigurableApplicationContext ctx) {
+        Client client = ctx.getBean(ClientService.class).createClient(TestData.client("Cluster"));
+        Vehicule v = ctx.getBean(VehiculeService.class).createVehicule(TestData.vehicule("Cluster"));
+        return ctx.getBean(ContratService.class).createContrat(client.getId(), v.getId(), today, today.plusDays(2));
+    }
+
+    private static long demarrages(ConfigurableApplicationContext ctx, Contrat contrat) {
+        List<JournalEntry> entries = ctx.getBean(TransitionJournal.class).read(0, 1000);
+        return entries.stream()
+                .filter(e -> e.type() == TypeTransition.CONTRAT_DEMARRE && contrat.getId().equals(e.contratId()))
+                .count();
+    }
+}
@@ -0,0 +1,152 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.dto.ContratBatchResult;
+import com.bfb.rental.dto.CreateContratRequest;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.ContratRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Création de contrats par lot : mêmes règles que la création unitaire, conflits internes au lot compris,
+ * et un résultat par élément, dans l'ordre de la demande.
+ */
+@SpringBootTest
+class ContratBatchTest {
+
+    private static final long UNKNOWN_ID = Long.MAX_VALUE;
+
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private ContratRepository contratRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+
+    // Loin dans le futur pour que la tâche planifiée ne démarre pas les contrats pendant le test
+    private final LocalDate base = LocalDate.now().plusYears(8);
+    private Client client;
+
+    @BeforeEach
+    void setUp() {
+        client = clientRepository.save(TestData.client("Lot"));
+    }
+
+    @Test
+    void resultsFollowRequestOrder() {
+        Vehicule v1 = newVehicule();
+        Vehicule v2 = newVehicule();
+        List<CreateContratRequest> requests = List.of(
+                request(v2, base, base.plusDays(2)),
+                request(v1, base.plusDays(5), base.plusDays(1)),
+                request(v1, base, base.plusDays(3)),
+                request(null, base, base));
+
+        List<ContratBatchResult> results = contratService.createContrats(requests);
+
+        assertEquals(List.of(0, 1, 2, 3), results.stream().map(ContratBatchResult::index).toList());
+        assertEquals("La date de fin ne peut pas être antérieure à la date de début", results.get(1).erreur());
+        assertEquals("Client, véhicule et dates sont obligatoires", results.get(3).erreur());
+        for (int i : List.of(0, 2)) {
+            assertNull(results.get(i).erreur());
+            Contrat saved = contratRepository.findById(results.get(i).contratId()).orElseThrow();
+            assertEquals(requests.get(i).getVehiculeId(), saved.getVehicule().getId());
+            assertEquals(requests.get(i).getDateDebut(), saved.getDateDebut());
+            assertEquals(EtatContrat.EN_ATTENTE, saved.getEtat());
+            // Configuration livrée sans règle de tarification : jours x prix journée, quelle que soit la saison
+            long jours = saved.getDateFin().toEpochDay() - saved.getDateDebut().toEpochDay();
+            assertEquals(jours * 50.0, saved.getPrixTotal(), 0.001);
+        }
+    }
+
+    @Test
+    void conflictInsideTheBatch() {
+        Vehicule v = newVehicule();
+
+        List<ContratBatchResult> results = contratService.createContrats(List.of(
+                request(v, base, base.plusDays(3)),
+                request(v, base.plusDays(3), base.plusDays(5)),
+                request(v, base.plusDays(4), base.plusDays(6))));
+
+        assertNotNull(results.get(0).contratId());
+        assertEquals("Conflit avec l'élément 0 du même lot", results.get(1).erreur());
+        // L'élément refusé ne bloque pas la suite : seul l'élément 0 compte
+        assertNotNull(results.get(2).contratId());
+        assertEquals(2, contratRepository.findByVehiculeIdAndEtat(v.getId(), EtatContrat.EN_ATTENTE).size());
+    }
+
+    @Test
+    void conflictWithExistingBooking() {
+        Vehicule v = newVehicule();
+        Contrat existing = contratService.createContrat(client.getId(), v.getId(), base, base.plusDays(3));
+
+        List<ContratBatchResult> results = contratService.createContrats(List.of(
+                request(v, base.plusDays(3), base.plusDays(4)),
+                request(v, base.plusDays(4), base.plusDays(4))));
+
+        assertEquals("Ce véhicule est déjà réservé pendant la période spécifiée (ID conflit : " + existing.getId() + ")",
+                results.get(0).erreur());
+        assertNotNull(results.get(1).contratId());
+    }
+
+    @Test
+    void unknownEntitiesAndBrokenVehiculesAreRejected() {
+        Vehicule enPanne = newVehicule();
+        vehiculeService.declarerPanne(enPanne.getId());
+        Vehicule v = newVehicule();
+        CreateContratRequest unknownClient = request(v, base, base);
+        unknownClient.setClientId(UNKNOWN_ID);
+        CreateContratRequest unknownVehicule = request(v, base, base);
+        unknownVehicule.setVehiculeId(UNKNOWN_ID);
+
+        List<ContratBatchResult> results = contratService.createContrats(List.of(
+                request(enPanne, base, base), unknownClient, unknownVehicule));
+
+        assertEquals(List.of(
+                        "Ce véhicule est en panne et ne peut pas être loué",
+                        "Le client n'existe pas",
+                        "Le véhicule n'existe pas"),
+                results.stream().map(ContratBatchResult::erreur).toList());
+        assertEquals(0, contratRepository.findByVehiculeIdAndEtat(v.getId(), EtatContrat.EN_ATTENTE).size());
+    }
+
+    @Test
+    void oversizedBatchIsRefused() {
+        Vehicule v = newVehicule();
+        List<CreateContratRequest> requests = new ArrayList<>(Collections.nCopies(1_001, request(v, base, base)));
+
+        assertThrows(IllegalArgumentException.class, () -> contratService.createContrats(requests));
+    }
+
+    private Vehicule newVehicule() {
+        return vehiculeService.createVehicule(TestData.vehicule("Lot"));
+    }
+
+    private CreateContratRequest request(Vehicule v, LocalDate debut, LocalDate fin) {
+        CreateContratRequest r = new CreateContratRequest();
+        r.setClientId(client.getId());
+        r.setVehiculeId(v == null ? null : v.getId());
+        r.setDateDebut(debut);
+        r.setDateFin(fin);
+        return r;
+    }
+}
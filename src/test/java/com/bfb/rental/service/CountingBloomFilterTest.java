@@ -0,0 +1,56 @@
+package com.bfb.rental.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Filtre de Bloom à compteurs : aucun faux négatif, taux de faux positifs proche de la cible,
+ * suppression sans effacer les autres éléments.
+ */
+class CountingBloomFilterTest {
+
+    @Test
+    void noFalseNegativesAndBoundedFalsePositives() {
+        CountingBloomFilter filter = new CountingBloomFilter(100_000, 0.01);
+        for (int i = 0; i < 100_000; i++) {
+            filter.add("AA-" + i);
+        }
+        for (int i = 0; i < 100_000; i++) {
+            assertTrue(filter.mightContain("AA-" + i));
+        }
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain("BB-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertTrue(falsePositives < 2_000, "faux positifs : " + falsePositives);
+    }
+
+    @Test
+    void removeKeepsOtherKeys() {
+        CountingBloomFilter filter = new CountingBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 1_000; i++) {
+            filter.add("P-" + i);
+        }
+        for (int i = 0; i < 1_000; i += 2) {
+            filter.remove("P-" + i);
+        }
+        int stillThere = 0;
+        for (int i = 0; i < 1_000; i++) {
+            if (i % 2 == 1) {
+                assertTrue(filter.mightContain("P-" + i));
+            } else if (filter.mightContain("P-" + i)) {
+                stillThere++;
+            }
+        }
+        assertTrue(stillThere < 50, "supprimés encore vus : " + stillThere);
+
+        // Ajoutée deux fois, une clé reste présente après une seule suppression
+        filter.add("DOUBLE");
+        filter.add("DOUBLE");
+        filter.remove("DOUBLE");
+        assertTrue(filter.mightContain("DOUBLE"));
+    }
+}
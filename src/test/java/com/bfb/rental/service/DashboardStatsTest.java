@@ -0,0 +1,93 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatVehicule;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compteurs du tableau de bord : après chaque transition (création, démarrage, retard, fin, panne,
+ * réparation, suppression), les valeurs maintenues par les événements sont celles d'un recalcul complet.
+ * Base dédiée et tâche planifiée ralentie : seules les écritures du test font bouger les compteurs.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:dashboard-stats;DB_CLOSE_DELAY=-1",
+        "rental.scheduler.rate-ms=3600000"
+})
+class DashboardStatsTest {
+
+    @Autowired
+    private DashboardStats dashboardStats;
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private ClientService clientService;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    void countersMatchReconcileAfterEveryTransition() {
+        Client client = clientService.createClient(TestData.client("Tableau"));
+        Client sansContrat = clientService.createClient(TestData.client("Tableau"));
+        Vehicule loue = vehiculeService.createVehicule(TestData.vehicule("Tableau"));
+        Vehicule enPanne = vehiculeService.createVehicule(TestData.vehicule("Tableau"));
+        Vehicule supprime = vehiculeService.createVehicule(TestData.vehicule("Tableau"));
+        assertMatchesReconcile("création des véhicules et des clients");
+
+        Contrat contrat = contratService.createContrat(client.getId(), loue.getId(), today, today.plusDays(3));
+        Contrat suivant = contratService.createContrat(client.getId(), loue.getId(), today.plusDays(10), today.plusDays(12));
+        Contrat panne = contratService.createContrat(client.getId(), enPanne.getId(), today, today.plusDays(2));
+        assertMatchesReconcile("création des contrats");
+
+        contratService.updateContrat(suivant.getId(), client.getId(), loue.getId(), today.plusDays(10), today.plusDays(15));
+        assertMatchesReconcile("modification");
+
+        assertEquals(2, contratService.updateContratStatusAutomatic());
+        assertEquals(2, dashboardStats.getRentedCars());
+        assertMatchesReconcile("démarrage");
+
+        contratService.declarerRetard(contrat.getId());
+        assertEquals(1, dashboardStats.getOverdueContracts());
+        assertMatchesReconcile("retard");
+
+        contratService.terminerContrat(contrat.getId());
+        assertMatchesReconcile("fin");
+
+        vehiculeService.declarerPanne(enPanne.getId());
+        assertEquals(0, dashboardStats.getRentedCars());
+        assertMatchesReconcile("panne");
+
+        Vehicule repare = vehiculeService.findById(enPanne.getId());
+        repare.setEtat(EtatVehicule.DISPONIBLE);
+        vehiculeService.saveVehicule(repare);
+        contratService.terminerContrat(panne.getId());
+        assertMatchesReconcile("réparation");
+
+        contratService.deleteContrat(suivant.getId());
+        vehiculeService.deleteVehicule(supprime.getId());
+        clientService.deleteClient(sansContrat.getId());
+        assertMatchesReconcile("suppression");
+    }
+
+    private void assertMatchesReconcile(String step) {
+        long[] incremental = counters();
+        dashboardStats.reconcile();
+        assertArrayEquals(counters(), incremental, step);
+    }
+
+    private long[] counters() {
+        return new long[]{dashboardStats.getTotalCars(), dashboardStats.getRentedCars(), dashboardStats.getTotalClients(),
+                dashboardStats.getOverdueContracts(), Math.round(dashboardStats.getTotalRevenue() * 100)};
+    }
+}
@@ -0,0 +1,104 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.config.CacheConfig;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Cache de second niveau : les lectures répétées ne vont plus en base,
+ * et les transitions d'état restent visibles immédiatement.
+ */
+@SpringBootTest
+class EntityCacheTest {
+
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private VehiculeRepository vehiculeRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Test
+    void repeatedReadsHitTheCache() {
+        Vehicule v = vehiculeService.createVehicule(newVehicule());
+        vehiculeRepository.findById(v.getId()).orElseThrow();
+        CacheRegionStatistics stats = regionStatistics(CacheConfig.VEHICULE_REGION);
+        long hits = stats.getHitCount();
+        long misses = stats.getMissCount();
+
+        vehiculeRepository.findById(v.getId()).orElseThrow();
+        vehiculeRepository.findById(v.getId()).orElseThrow();
+
+        assertEquals(hits + 2, stats.getHitCount());
+        assertEquals(misses, stats.getMissCount());
+    }
+
+    @Test
+    void panneIsVisibleAfterCommit() {
+        Vehicule v = vehiculeService.createVehicule(newVehicule());
+        vehiculeRepository.findById(v.getId()).orElseThrow();
+
+        vehiculeService.declarerPanne(v.getId());
+
+        assertEquals(EtatVehicule.EN_PANNE, vehiculeRepository.findById(v.getId()).orElseThrow().getEtat());
+    }
+
+    @Test
+    void bulkPanneIsVisibleAfterCommit() {
+        Vehicule v = vehiculeService.createVehicule(newVehicule());
+        vehiculeRepository.findById(v.getId()).orElseThrow();
+
+        vehiculeService.declarerPannes(List.of(v.getId()));
+
+        assertEquals(EtatVehicule.EN_PANNE, vehiculeRepository.findById(v.getId()).orElseThrow().getEtat());
+    }
+
+    @Test
+    void contratTransitionsUpdateCachedVehicule() {
+        Vehicule v = vehiculeService.createVehicule(newVehicule());
+        Client client = newClient();
+        vehiculeRepository.findById(v.getId()).orElseThrow();
+
+        // Démarrage par la tâche planifiée : le véhicule passe EN_LOCATION
+        Contrat contrat = contratService.createContrat(client.getId(), v.getId(), LocalDate.now(), LocalDate.now().plusDays(2));
+        contratService.updateContratStatusAutomatic();
+        assertEquals(EtatVehicule.EN_LOCATION, vehiculeRepository.findById(v.getId()).orElseThrow().getEtat());
+
+        // Fin du contrat : le véhicule redevient DISPONIBLE
+        contratService.terminerContrat(contrat.getId());
+        assertEquals(EtatVehicule.DISPONIBLE, vehiculeRepository.findById(v.getId()).orElseThrow().getEtat());
+    }
+
+    private CacheRegionStatistics regionStatistics(String region) {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics().getDomainDataRegionStatistics(region);
+    }
+
+    private Vehicule newVehicule() {
+        return TestData.vehicule("Cache");
+    }
+
+    private Client newClient() {
+        return clientRepository.save(TestData.client("Cache"));
+    }
+}
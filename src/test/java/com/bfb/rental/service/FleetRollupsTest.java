@@ -0,0 +1,134 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.dto.FleetReport;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.ContratRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Agrégats de flotte : maintenus au fil des transitions des contrats et des pannes,
+ * et identiques à ceux d'une reconstruction complète.
+ */
+@SpringBootTest
+class FleetRollupsTest {
+
+    @Autowired
+    private FleetRollups fleetRollups;
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private ContratRepository contratRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private final LocalDate today = LocalDate.now();
+    private String marque;
+    private Client client;
+
+    @BeforeEach
+    void setUp() {
+        marque = "Rollup-" + UUID.randomUUID();
+        client = clientRepository.save(TestData.client(marque));
+    }
+
+    @Test
+    void contractCountsFromItsStart() {
+        Vehicule v = newVehicule("Essence");
+        Contrat contrat = contratService.createContrat(client.getId(), v.getId(), today, today.plusDays(3));
+
+        // EN_ATTENTE : pas encore loué
+        FleetReport.Ligne pending = report(null).total();
+        assertEquals(0, pending.joursLoues());
+        assertEquals(0.0, pending.revenu());
+
+        contratService.updateContratStatusAutomatic();
+        FleetReport.Ligne started = report(null).total();
+        assertEquals(1, started.vehicules());
+        assertEquals(4, started.joursLoues());
+        assertEquals(contrat.getPrixTotal(), started.revenu(), 0.001);
+
+        // Retard puis fin : même période, mêmes agrégats
+        contratService.declarerRetard(contrat.getId());
+        contratService.terminerContrat(contrat.getId());
+        assertEquals(started, report(null).total());
+
+        // Le revenu réparti par jour : une période d'un jour en reçoit le quart
+        FleetReport.Ligne oneDay = fleetRollups.report(today, today, v.getId(), null, null, null).total();
+        assertEquals(1, oneDay.joursLoues());
+        assertEquals(contrat.getPrixTotal() / 4, oneDay.revenu(), 0.01);
+    }
+
+    @Test
+    void modificationAndDeletionMoveTheContribution() {
+        Vehicule v = newVehicule("Diesel");
+        Contrat contrat = contratService.createContrat(client.getId(), v.getId(), today, today.plusDays(1));
+        contratService.updateContratStatusAutomatic();
+        assertEquals(2, report(null).total().joursLoues());
+
+        contratService.updateContrat(contrat.getId(), client.getId(), v.getId(), today, today.plusDays(5));
+        Contrat updated = contratRepository.findById(contrat.getId()).orElseThrow();
+        FleetReport.Ligne total = report(null).total();
+        assertEquals(6, total.joursLoues());
+        assertEquals(updated.getPrixTotal(), total.revenu(), 0.001);
+    }
+
+    @Test
+    void breakdownDaysAndGrouping() {
+        Vehicule essence = newVehicule("Essence");
+        Vehicule electrique = newVehicule("Electrique");
+        contratService.createContrat(client.getId(), essence.getId(), today, today.plusDays(9));
+        contratService.updateContratStatusAutomatic();
+
+        vehiculeService.declarerPanne(electrique.getId());
+        FleetReport byMotorisation = report("motorisation");
+        assertEquals(List.of("Electrique", "Essence"), byMotorisation.lignes().stream().map(FleetReport.Ligne::cle).toList());
+        assertEquals(1, byMotorisation.lignes().get(0).joursPanne());
+        assertEquals(0, byMotorisation.lignes().get(0).joursLoues());
+        assertEquals(10, byMotorisation.lignes().get(1).joursLoues());
+        assertEquals(2, byMotorisation.total().vehicules());
+
+        // Réparation : la panne est close, le jour reste compté
+        Vehicule repare = vehiculeService.findById(electrique.getId());
+        repare.setEtat(EtatVehicule.DISPONIBLE);
+        vehiculeService.saveVehicule(repare);
+        assertEquals(1, report(null).total().joursPanne());
+    }
+
+    @Test
+    void rebuildMatchesIncrementalState() {
+        Vehicule v = newVehicule("Hybride");
+        Vehicule other = newVehicule("Hybride");
+        contratService.createContrat(client.getId(), v.getId(), today, today.plusDays(6));
+        contratService.updateContratStatusAutomatic();
+        vehiculeService.declarerPannes(List.of(other.getId()));
+        FleetReport incremental = report("vehicule");
+
+        fleetRollups.rebuild();
+
+        assertEquals(incremental, report("vehicule"));
+    }
+
+    private FleetReport report(String groupBy) {
+        return fleetRollups.report(today.minusDays(10), today.plusDays(19), null, marque, null, groupBy);
+    }
+
+    private Vehicule newVehicule(String motorisation) {
+        return vehiculeService.createVehicule(TestData.vehicule(marque, motorisation));
+    }
+}
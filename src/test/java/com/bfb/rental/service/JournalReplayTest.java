@@ -0,0 +1,109 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.dto.JournalEntry;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.enums.TypeTransition;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.ContratRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Les transitions des services sont journalisées après commit, et la relecture du journal
+ * reconstruit l'état des contrats tel qu'il est en base.
+ */
+@SpringBootTest
+class JournalReplayTest {
+
+    @Autowired
+    private TransitionJournal transitionJournal;
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private ContratRepository contratRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Test
+    void replayRebuildsContractStates() throws InterruptedException {
+        long start = transitionJournal.lastSequence();
+        LocalDate today = LocalDate.now();
+        Client client = newClient();
+        Vehicule v1 = newVehicule();
+        Vehicule v2 = newVehicule();
+
+        Contrat c1 = contratService.createContrat(client.getId(), v1.getId(), today, today.plusDays(2));
+        Contrat c2 = contratService.createContrat(client.getId(), v1.getId(), today.plusDays(10), today.plusDays(12));
+        Contrat c3 = contratService.createContrat(client.getId(), v2.getId(), today.plusDays(5), today.plusDays(6));
+        contratService.updateContratStatusAutomatic();
+        contratService.declarerRetard(c1.getId());
+        contratService.terminerContrat(c1.getId());
+        // Annulation de c3 : traitée après commit, sur l'exécuteur des pannes
+        vehiculeService.declarerPanne(v2.getId());
+
+        Map<Long, List<TypeTransition>> byContrat = new HashMap<>();
+        List<JournalEntry> vehiculeEntries = new ArrayList<>();
+        for (int attempt = 0; attempt < 50 && !byContrat.getOrDefault(c3.getId(), List.of()).contains(TypeTransition.CONTRAT_ANNULE); attempt++) {
+            Thread.sleep(100);
+            byContrat.clear();
+            vehiculeEntries.clear();
+            transitionJournal.replay(start, entry -> {
+                if (entry.contratId() != null) {
+                    byContrat.computeIfAbsent(entry.contratId(), id -> new ArrayList<>()).add(entry.type());
+                } else if (entry.vehiculeId().equals(v2.getId())) {
+                    vehiculeEntries.add(entry);
+                }
+            });
+        }
+
+        assertEquals(List.of(TypeTransition.CONTRAT_CREE, TypeTransition.CONTRAT_DEMARRE,
+                TypeTransition.CONTRAT_EN_RETARD, TypeTransition.CONTRAT_TERMINE), byContrat.get(c1.getId()));
+        assertEquals(List.of(TypeTransition.CONTRAT_CREE, TypeTransition.CONTRAT_ANNULE), byContrat.get(c2.getId()));
+        assertEquals(List.of(TypeTransition.CONTRAT_CREE, TypeTransition.CONTRAT_ANNULE), byContrat.get(c3.getId()));
+        assertEquals(1, vehiculeEntries.size());
+        assertEquals(TypeTransition.VEHICULE_EN_PANNE, vehiculeEntries.get(0).type());
+
+        // Dernière transition de chaque contrat = état en base
+        for (Contrat c : List.of(c1, c2, c3)) {
+            List<TypeTransition> history = byContrat.get(c.getId());
+            EtatContrat etat = contratRepository.findById(c.getId()).orElseThrow().getEtat();
+            assertEquals(etat, etatAfter(history.get(history.size() - 1)));
+        }
+        assertTrue(transitionJournal.lastSequence() >= start + 9);
+    }
+
+    private static EtatContrat etatAfter(TypeTransition type) {
+        return switch (type) {
+            case CONTRAT_CREE -> EtatContrat.EN_ATTENTE;
+            case CONTRAT_DEMARRE -> EtatContrat.EN_COURS;
+            case CONTRAT_EN_RETARD -> EtatContrat.EN_RETARD;
+            case CONTRAT_ANNULE -> EtatContrat.ANNULE;
+            case CONTRAT_TERMINE -> EtatContrat.TERMINE;
+            default -> throw new IllegalArgumentException(type.name());
+        };
+    }
+
+    private Client newClient() {
+        return clientRepository.save(TestData.client("Journal"));
+    }
+
+    private Vehicule newVehicule() {
+        return vehiculeService.createVehicule(TestData.vehicule("Journal"));
+    }
+}
@@ -0,0 +1,132 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.event.ContratChangedEvent;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.ContratRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Recherche de disponibilité : les réservations occupent leurs jours bornes comprises et les libèrent
+ * quand elles bougent ou disparaissent, les véhicules EN_PANNE sont exclus, et le retrait d'une réservation
+ * en double laisse occupés les jours encore couverts par l'autre.
+ */
+@SpringBootTest
+class OccupancyIndexTest {
+
+    @Autowired
+    private OccupancyIndex occupancyIndex;
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private ContratRepository contratRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Loin dans le futur pour que la tâche planifiée ne démarre pas les contrats pendant le test
+    private final LocalDate base = LocalDate.now().plusYears(9);
+    // Marque propre au test : la recherche ne voit que ses véhicules
+    private String marque;
+    private Client client;
+
+    @BeforeEach
+    void setUp() {
+        marque = "Dispo-" + UUID.randomUUID();
+        client = clientRepository.save(TestData.client("Dispo"));
+    }
+
+    @Test
+    void bookingsOccupyTheirDaysBoundsIncluded() {
+        Vehicule booked = newVehicule("Essence");
+        Vehicule free = newVehicule("Electrique");
+        Contrat contrat = contratService.createContrat(client.getId(), booked.getId(), base, base.plusDays(3));
+
+        assertEquals(List.of(free.getId()), available(base.minusDays(2), base));
+        assertEquals(List.of(free.getId()), available(base.plusDays(3), base.plusDays(5)));
+        assertEquals(List.of(booked.getId(), free.getId()), available(base.plusDays(4), base.plusDays(5)));
+        assertEquals(List.of(booked.getId(), free.getId()), available(base.minusDays(2), base.minusDays(1)));
+
+        // Déplacement : l'ancienne période est libérée, la nouvelle occupée
+        contratService.updateContrat(contrat.getId(), client.getId(), booked.getId(), base.plusDays(10), base.plusDays(11));
+        assertEquals(List.of(booked.getId(), free.getId()), available(base, base.plusDays(3)));
+        assertEquals(List.of(free.getId()), available(base.plusDays(11), base.plusDays(20)));
+
+        // Filtres insensibles à la casse
+        assertEquals(List.of(free.getId()), occupancyIndex.findAvailable(base, base, "electrique", marque.toUpperCase()));
+    }
+
+    @Test
+    void brokenVehiculesAreNeverAvailable() {
+        Vehicule single = newVehicule("Essence");
+        Vehicule fleet = newVehicule("Essence");
+        Vehicule ok = newVehicule("Essence");
+
+        vehiculeService.declarerPanne(single.getId());
+        vehiculeService.declarerPannes(List.of(fleet.getId()));
+
+        assertEquals(List.of(ok.getId()), available(base, base.plusDays(30)));
+    }
+
+    @Test
+    void removingADuplicateKeepsDaysCoveredByTheOther() {
+        Vehicule v = newVehicule("Essence");
+        // Données en double écrites hors du chemin de réservation : deux contrats qui se chevauchent
+        Contrat first = saveAndIndex(v, base, base.plusDays(5));
+        saveAndIndex(v, base.plusDays(3), base.plusDays(8));
+
+        contratRepository.delete(first);
+        eventPublisher.publishEvent(ContratChangedEvent.removed(this, first));
+
+        assertEquals(List.of(v.getId()), available(base, base.plusDays(2)));
+        assertEquals(List.of(), available(base.plusDays(3), base.plusDays(3)));
+        assertEquals(List.of(), available(base.plusDays(5), base.plusDays(8)));
+        assertEquals(List.of(v.getId()), available(base.plusDays(9), base.plusDays(9)));
+    }
+
+    @Test
+    void invalidRangesAreRejected() {
+        assertThrows(IllegalArgumentException.class, () -> available(base, base.minusDays(1)));
+        assertThrows(IllegalArgumentException.class, () -> available(base, base.plusDays(OccupancyIndex.MAX_RANGE_DAYS)));
+    }
+
+    private List<Long> available(LocalDate debut, LocalDate fin) {
+        return occupancyIndex.findAvailable(debut, fin, null, marque);
+    }
+
+    private Vehicule newVehicule(String motorisation) {
+        return vehiculeService.createVehicule(TestData.vehicule(marque, motorisation));
+    }
+
+    // Hors transaction : les index sont mis à jour dès la publication
+    private Contrat saveAndIndex(Vehicule v, LocalDate debut, LocalDate fin) {
+        Contrat c = new Contrat();
+        c.setClient(client);
+        c.setVehicule(v);
+        c.setDateDebut(debut);
+        c.setDateFin(fin);
+        c.setEtat(EtatContrat.EN_ATTENTE);
+        c.setPrixTotal(100.0);
+        Contrat saved = contratRepository.save(c);
+        eventPublisher.publishEvent(ContratChangedEvent.created(this, List.of(saved)));
+        return saved;
+    }
+}
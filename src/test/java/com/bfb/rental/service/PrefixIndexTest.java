@@ -0,0 +1,81 @@
+package com.bfb.rental.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Index par préfixe : plusieurs mots combinés en ET, accents et ponctuation ignorés, modifications et
+ * suppressions visibles avant comme après la fusion des ajouts récents.
+ */
+class PrefixIndexTest {
+
+    @Test
+    void matchesEveryQueryWordAsPrefix() {
+        PrefixIndex index = new PrefixIndex();
+        index.reset(List.of(
+                new PrefixIndex.Entry(1, "Dupont", "Jean", "PERM-001"),
+                new PrefixIndex.Entry(2, "Dupuis", "Jeanne", "PERM-002"),
+                new PrefixIndex.Entry(3, "Durand", "Émile", "PERM-003")));
+
+        assertEquals(List.of(1L, 2L), index.search("dup", 10));
+        assertEquals(List.of(1L, 2L), index.search("je dup", 10));
+        assertEquals(List.of(2L), index.search("jeanne d", 10));
+        assertEquals(List.of(3L), index.search("EMILE", 10));
+        assertEquals(List.of(3L), index.search("perm-003", 10));
+        assertEquals(List.of(1L), index.search("dup", 1));
+        assertTrue(index.search("martin", 10).isEmpty());
+        assertTrue(index.search(" - ", 10).isEmpty());
+    }
+
+    @Test
+    void platesMatchWithOrWithoutDashes() {
+        assertEquals(List.of("ab", "123", "cd", "ab123cd"), PrefixIndex.words("AB-123-CD"));
+
+        PrefixIndex index = new PrefixIndex();
+        index.reset(List.of(new PrefixIndex.Entry(7, "AB-123-CD", "Peugeot", "208")));
+        assertEquals(List.of(7L), index.search("ab-12", 10));
+        assertEquals(List.of(7L), index.search("ab12", 10));
+        assertEquals(List.of(7L), index.search("123", 10));
+        assertEquals(List.of(7L), index.search("peu 20", 10));
+    }
+
+    @Test
+    void updatesAndRemovalsSurviveCompaction() {
+        PrefixIndex index = new PrefixIndex();
+        index.reset(List.of(new PrefixIndex.Entry(1, "Martin", "Paul")));
+
+        index.put(2, "Martin", "Luc");
+        index.put(1, "Bernard", "Paul");
+        assertEquals(List.of(2L), index.search("mar", 10));
+        assertEquals(List.of(1L), index.search("bern pa", 10));
+
+        index.remove(2);
+        assertTrue(index.search("mar", 10).isEmpty());
+        assertEquals(1, index.size());
+
+        // Assez d'ajouts pour déclencher plusieurs fusions
+        for (long id = 100; id < 30_100; id++) {
+            index.put(id, "Nom" + id, "Prenom");
+        }
+        index.put(150, "Renomme", "Prenom");
+        for (long id = 200; id < 20_200; id++) {
+            index.remove(id);
+        }
+        index.put(40_000, "Martin", "Zoé");
+
+        assertEquals(List.of(1L), index.search("bernard", 10));
+        assertEquals(List.of(150L), index.search("renom", 10));
+        assertTrue(index.search("nom150", 10).isEmpty());
+        assertTrue(index.search("nom5000", 10).isEmpty());
+        assertEquals(List.of(25_000L), index.search("nom25000", 10));
+        assertEquals(List.of(40_000L), index.search("mar zoe", 10));
+
+        List<Long> all = new ArrayList<>(index.search("prenom", 100_000));
+        assertEquals(index.size() - 2, all.size());
+    }
+}
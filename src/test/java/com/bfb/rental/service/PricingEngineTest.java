@@ -0,0 +1,107 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.QuoteRequest;
+import com.bfb.rental.dto.QuoteResult;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.event.VehiculeRemovedEvent;
+import com.bfb.rental.event.VehiculeSavedEvent;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Règles de tarification compilées : saisons (y compris à cheval sur le 1er janvier),
+ * paliers de durée, motorisation, et devis à partir des tarifs en mémoire.
+ */
+class PricingEngineTest {
+
+    private static final int NEXT_YEAR = LocalDate.now().getYear() + 1;
+
+    private final PricingEngine engine = new PricingEngine(null,
+            "07-01:08-31:1.25,12-20:01-05:1.5", "7:0.9,30:0.75", "Electrique:0.8", 3);
+
+    @Test
+    void withoutRulesPriceIsDaysTimesDailyRate() {
+        PricingEngine flat = new PricingEngine(null, "", "", "", 10);
+        LocalDate debut = LocalDate.of(NEXT_YEAR, 3, 10);
+        assertEquals(300.0, flat.price(100.0, "Essence", debut, debut.plusDays(3)));
+        // Même jour : un jour facturé
+        assertEquals(100.0, flat.price(100.0, "Essence", debut, debut));
+        assertEquals(0.0, flat.price(null, "Essence", debut, debut.plusDays(3)));
+    }
+
+    @Test
+    void seasonsApplyDayByDay() {
+        // 30 juin hors saison + 1er juillet en saison
+        assertEquals(225.0, engine.price(100.0, null, LocalDate.of(NEXT_YEAR, 6, 30), LocalDate.of(NEXT_YEAR, 7, 2)));
+        // Saison à cheval sur le 1er janvier : 31 décembre et 1er janvier
+        assertEquals(300.0, engine.price(100.0, null, LocalDate.of(NEXT_YEAR, 12, 31), LocalDate.of(NEXT_YEAR + 1, 1, 2)));
+        // Toute année a le même résultat : loin dans le futur, avant 1970, et à cheval sur deux cycles de 400 ans
+        assertEquals(225.0, engine.price(100.0, null, LocalDate.of(NEXT_YEAR + 20, 6, 30), LocalDate.of(NEXT_YEAR + 20, 7, 2)));
+        assertEquals(225.0, engine.price(100.0, null, LocalDate.of(1960, 6, 30), LocalDate.of(1960, 7, 2)));
+        assertEquals(300.0, engine.price(100.0, null, LocalDate.of(2369, 12, 31), LocalDate.of(2370, 1, 2)));
+        // Deux années dont une bissextile : 731 jours, dont 2 x 62 jours d'été et 2 x 17 jours d'hiver, palier 30 jours
+        assertEquals(100 * (731 + 2 * 62 * 0.25 + 2 * 17 * 0.5) * 0.75,
+                engine.price(100.0, null, LocalDate.of(2023, 1, 1), LocalDate.of(2025, 1, 1)), 0.001);
+    }
+
+    @Test
+    void durationTiersAndMotorisation() {
+        LocalDate debut = LocalDate.of(NEXT_YEAR, 3, 1);
+        assertEquals(600.0, engine.price(100.0, "Essence", debut, debut.plusDays(6)));
+        assertEquals(630.0, engine.price(100.0, "Essence", debut, debut.plusDays(7)));
+        assertEquals(2250.0, engine.price(100.0, "Essence", debut, debut.plusDays(30)));
+        assertEquals(80.0, engine.price(100.0, "electrique", debut, debut.plusDays(1)));
+    }
+
+    @Test
+    void quotesUseInMemoryTarifs() {
+        long debut = LocalDate.of(NEXT_YEAR, 3, 1).toEpochDay();
+        assertTrue(Double.isNaN(engine.quote(42L, debut, debut + 2)));
+
+        Vehicule v = new Vehicule();
+        v.setId(42L);
+        v.setPrixJournee(50.0);
+        v.setMotorisation("Electrique");
+        engine.handleVehiculeSaved(VehiculeSavedEvent.created(this, List.of(v)));
+        assertEquals(80.0, engine.quote(42L, debut, debut + 2));
+
+        engine.handleVehiculeRemoved(new VehiculeRemovedEvent(this, v));
+        assertTrue(Double.isNaN(engine.quote(42L, debut, debut + 2)));
+    }
+
+    @Test
+    void batchQuoteReportsErrorsPerItem() {
+        Vehicule v = new Vehicule();
+        v.setId(7L);
+        v.setPrixJournee(100.0);
+        engine.handleVehiculeSaved(VehiculeSavedEvent.created(this, List.of(v)));
+
+        List<QuoteResult> results = engine.quote(List.of(
+                request(7L, LocalDate.of(NEXT_YEAR, 3, 1), LocalDate.of(NEXT_YEAR, 3, 3)),
+                request(8L, LocalDate.of(NEXT_YEAR, 3, 1), LocalDate.of(NEXT_YEAR, 3, 3)),
+                request(7L, LocalDate.of(NEXT_YEAR, 3, 3), LocalDate.of(NEXT_YEAR, 3, 1))));
+
+        assertEquals(200.0, results.get(0).prix());
+        assertNull(results.get(1).prix());
+        assertEquals("Le véhicule n'existe pas", results.get(1).erreur());
+        assertNull(results.get(2).prix());
+
+        List<QuoteRequest> tooMany = List.of(new QuoteRequest(), new QuoteRequest(), new QuoteRequest(), new QuoteRequest());
+        assertThrows(IllegalArgumentException.class, () -> engine.quote(tooMany));
+    }
+
+    private static QuoteRequest request(Long vehiculeId, LocalDate debut, LocalDate fin) {
+        QuoteRequest r = new QuoteRequest();
+        r.setVehiculeId(vehiculeId);
+        r.setDateDebut(debut);
+        r.setDateFin(fin);
+        return r;
+    }
+}
@@ -0,0 +1,127 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.dto.CreateContratRequest;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.repository.ClientRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Métriques du métier, relevées dans un SimpleMeterRegistry propre au test : conflits de réservation
+ * (unitaire et par lot) avec l'issue des opérations, et contrats lus / démarrés par la tâche planifiée.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:rental-metrics;DB_CLOSE_DELAY=-1",
+        "rental.scheduler.rate-ms=3600000"
+})
+class RentalMetricsTest {
+
+    @TestConfiguration
+    static class Registry {
+
+        @Bean
+        SimpleMeterRegistry simpleMeterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+
+    @Autowired
+    private SimpleMeterRegistry registry;
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    void bookingConflictsAreCounted() {
+        Client client = clientRepository.save(TestData.client("Metriques"));
+        Vehicule v = vehiculeService.createVehicule(TestData.vehicule("Metriques"));
+        LocalDate debut = today.plusYears(5);
+        double succes = operations(RentalMetrics.CREATION, "succes");
+        double refus = operations(RentalMetrics.CREATION, "refus");
+
+        contratService.createContrat(client.getId(), v.getId(), debut, debut.plusDays(3));
+        assertThrows(IllegalStateException.class,
+                () -> contratService.createContrat(client.getId(), v.getId(), debut.plusDays(1), debut.plusDays(5)));
+
+        assertEquals(1, conflicts(RentalMetrics.CREATION));
+        assertEquals(succes + 1, operations(RentalMetrics.CREATION, "succes"));
+        assertEquals(refus + 1, operations(RentalMetrics.CREATION, "refus"));
+
+        // Par lot : conflit avec un contrat existant, puis entre deux éléments du même lot
+        contratService.createContrats(List.of(
+                request(client, v, debut.plusDays(2), debut.plusDays(4)),
+                request(client, v, debut.plusDays(10), debut.plusDays(12)),
+                request(client, v, debut.plusDays(11), debut.plusDays(13))));
+        assertEquals(2, conflicts(RentalMetrics.CREATION_LOT));
+    }
+
+    @Test
+    void schedulerRunsRecordReadAndStartedContracts() {
+        Client client = clientRepository.save(TestData.client("Metriques"));
+        for (int i = 0; i < 3; i++) {
+            Vehicule v = vehiculeService.createVehicule(TestData.vehicule("Metriques"));
+            contratService.createContrat(client.getId(), v.getId(), today, today.plusDays(2));
+        }
+        long runs = scheduler("demarres").count();
+        double started = scheduler("demarres").totalAmount();
+        double read = scheduler("lus").totalAmount();
+        double planifications = operations(RentalMetrics.PLANIFICATION, "succes");
+        double commits = transactions(RentalMetrics.PLANIFICATION, "commit");
+
+        assertEquals(3, contratService.updateContratStatusAutomatic());
+
+        assertEquals(runs + 1, scheduler("demarres").count());
+        assertEquals(started + 3, scheduler("demarres").totalAmount());
+        assertEquals(read + 3, scheduler("lus").totalAmount());
+        assertEquals(planifications + 1, operations(RentalMetrics.PLANIFICATION, "succes"));
+        assertEquals(commits + 1, transactions(RentalMetrics.PLANIFICATION, "commit"));
+    }
+
+    private double conflicts(String operation) {
+        Counter counter = registry.find("rental.reservation.conflits").tag("operation", operation).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private double operations(String operation, String outcome) {
+        Timer timer = registry.find("rental.operation").tag("operation", operation).tag("outcome", outcome).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private double transactions(String operation, String statut) {
+        Timer timer = registry.find("rental.transaction").tag("operation", operation).tag("statut", statut).timer();
+        return timer == null ? 0 : timer.count();
+    }
+
+    private DistributionSummary scheduler(String statut) {
+        return DistributionSummary.builder("rental.scheduler.contrats").tag("statut", statut).register(registry);
+    }
+
+    private static CreateContratRequest request(Client client, Vehicule v, LocalDate debut, LocalDate fin) {
+        CreateContratRequest r = new CreateContratRequest();
+        r.setClientId(client.getId());
+        r.setVehiculeId(v.getId());
+        r.setDateDebut(debut);
+        r.setDateFin(fin);
+        return r;
+    }
+}
@@ -0,0 +1,153 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.event.ContratChangedEvent;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.ContratRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Index des réservations : bornes incluses, contrat exclu de sa propre modification, aucun ajout
+ * après un rollback, et une reconstruction qui ne laisse jamais passer une double réservation.
+ */
+@SpringBootTest
+class ReservationIndexTest {
+
+    @Autowired
+    private ReservationIndex reservationIndex;
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private ContratRepository contratRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    // Loin dans le futur pour que la tâche planifiée ne démarre pas les contrats pendant le test
+    private final LocalDate base = LocalDate.now().plusYears(6);
+    private Client client;
+    private Vehicule vehicule;
+
+    @BeforeEach
+    void setUp() {
+        client = clientRepository.save(TestData.client("Index"));
+        vehicule = vehiculeService.createVehicule(TestData.vehicule("Index"));
+    }
+
+    @Test
+    void boundsAreInclusive() {
+        Contrat contrat = book(base, base.plusDays(3));
+
+        // Le jour de fin d'une réservation n'est pas libre pour la suivante, ni le jour de début pour la précédente
+        assertEquals(Optional.of(contrat.getId()), reservationIndex.findConflict(vehicule.getId(), base.plusDays(3), base.plusDays(5), null));
+        assertTrue(reservationIndex.hasConflict(vehicule.getId(), base.minusDays(2), base));
+        assertFalse(reservationIndex.hasConflict(vehicule.getId(), base.plusDays(4), base.plusDays(6)));
+        assertFalse(reservationIndex.hasConflict(vehicule.getId(), base.minusDays(2), base.minusDays(1)));
+
+        assertThrows(IllegalStateException.class, () -> book(base.plusDays(3), base.plusDays(3)));
+        book(base.plusDays(4), base.plusDays(4));
+    }
+
+    @Test
+    void updateIgnoresTheContractBeingModified() {
+        Contrat first = book(base, base.plusDays(3));
+        Contrat second = book(base.plusDays(10), base.plusDays(12));
+
+        assertEquals(Optional.of(first.getId()), reservationIndex.findConflict(vehicule.getId(), base.plusDays(1), base.plusDays(4), null));
+        assertEquals(Optional.empty(), reservationIndex.findConflict(vehicule.getId(), base.plusDays(1), base.plusDays(4), first.getId()));
+
+        // Décalage sur sa propre période : accepté, et l'ancienne période est libérée
+        contratService.updateContrat(first.getId(), client.getId(), vehicule.getId(), base.plusDays(1), base.plusDays(4));
+        assertFalse(reservationIndex.hasConflict(vehicule.getId(), base, base));
+        assertTrue(reservationIndex.hasConflict(vehicule.getId(), base.plusDays(4), base.plusDays(4)));
+
+        // Chevauchement avec l'autre contrat : refusé, rien ne bouge
+        IllegalStateException e = assertThrows(IllegalStateException.class, () -> contratService.updateContrat(
+                first.getId(), client.getId(), vehicule.getId(), base.plusDays(8), base.plusDays(10)));
+        assertTrue(e.getMessage().contains(second.getId().toString()));
+        assertEquals(Optional.of(first.getId()), reservationIndex.findConflict(vehicule.getId(), base.plusDays(2), base.plusDays(2), null));
+    }
+
+    @Test
+    void rollbackLeavesTheIndexUntouched() {
+        Contrat contrat = new Contrat();
+        contrat.setClient(client);
+        contrat.setVehicule(vehicule);
+        contrat.setDateDebut(base);
+        contrat.setDateFin(base.plusDays(2));
+        contrat.setEtat(EtatContrat.EN_ATTENTE);
+        contrat.setPrixTotal(150.0);
+
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            Contrat saved = contratRepository.save(contrat);
+            eventPublisher.publishEvent(ContratChangedEvent.created(this, List.of(saved)));
+            status.setRollbackOnly();
+        });
+
+        assertFalse(reservationIndex.hasConflict(vehicule.getId(), base, base.plusDays(2)));
+        book(base, base.plusDays(2));
+    }
+
+    @Test
+    void rebuildNeverHidesBookings() throws Exception {
+        book(base, base.plusDays(3));
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService pool = Executors.newSingleThreadExecutor();
+        try {
+            Future<?> rebuilds = pool.submit(() -> {
+                while (running.get()) {
+                    reservationIndex.rebuild();
+                }
+            });
+
+            // Pendant les reconstructions : les chevauchements restent refusés, les nouvelles réservations sont gardées
+            List<Contrat> booked = new ArrayList<>();
+            for (int i = 0; i < 50; i++) {
+                assertThrows(IllegalStateException.class, () -> book(base.plusDays(1), base.plusDays(2)));
+                booked.add(book(base.plusDays(10L + i), base.plusDays(10L + i)));
+            }
+            running.set(false);
+            rebuilds.get();
+
+            for (Contrat c : booked) {
+                assertEquals(Optional.of(c.getId()), reservationIndex.findConflict(vehicule.getId(), c.getDateDebut(), c.getDateFin(), null));
+            }
+        } finally {
+            running.set(false);
+            pool.shutdown();
+        }
+    }
+
+    private Contrat book(LocalDate debut, LocalDate fin) {
+        return contratService.createContrat(client.getId(), vehicule.getId(), debut, fin);
+    }
+}
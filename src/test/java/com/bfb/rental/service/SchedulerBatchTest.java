@@ -0,0 +1,85 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.TestData;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.enums.EtatVehicule;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.ContratRepository;
+import com.bfb.rental.repository.VehiculeRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tâche planifiée par lots (rental.scheduler.batch-size) : une exécution parcourt tous les contrats échus,
+ * au-delà du premier lot et même quand des lots entiers sont ignorés (véhicule pas encore revenu),
+ * sans toucher aux contrats qui ne sont pas encore échus.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:scheduler-batch;DB_CLOSE_DELAY=-1",
+        "rental.scheduler.batch-size=4",
+        "rental.scheduler.rate-ms=3600000"
+})
+class SchedulerBatchTest {
+
+    @Autowired
+    private ContratService contratService;
+    @Autowired
+    private ContratRepository contratRepository;
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private VehiculeRepository vehiculeRepository;
+    @Autowired
+    private ClientRepository clientRepository;
+
+    private final LocalDate today = LocalDate.now();
+
+    @Test
+    void oneRunPagesThroughEveryDueContract() {
+        Client client = clientRepository.save(TestData.client("Lots"));
+        // Premiers IDs : échus, mais leur véhicule n'est pas revenu ; plus d'un lot complet est ignoré
+        List<Contrat> bloques = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            Vehicule v = newVehicule();
+            bloques.add(contratService.createContrat(client.getId(), v.getId(), today, today.plusDays(2)));
+            v.setEtat(EtatVehicule.EN_LOCATION);
+            vehiculeRepository.save(v);
+        }
+        List<Contrat> echus = new ArrayList<>();
+        List<Contrat> futurs = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Vehicule v = newVehicule();
+            echus.add(contratService.createContrat(client.getId(), v.getId(), today.minusDays(i % 2), today.plusDays(2)));
+            // Même véhicule, pas encore échu : reste en attente
+            if (i % 3 == 0) {
+                futurs.add(contratService.createContrat(client.getId(), v.getId(), today.plusDays(5), today.plusDays(6)));
+            }
+        }
+
+        assertEquals(echus.size(), contratService.updateContratStatusAutomatic());
+
+        echus.forEach(c -> assertEquals(EtatContrat.EN_COURS, etat(c)));
+        bloques.forEach(c -> assertEquals(EtatContrat.EN_ATTENTE, etat(c)));
+        futurs.forEach(c -> assertEquals(EtatContrat.EN_ATTENTE, etat(c)));
+        // Exécution suivante : rien de nouveau à démarrer
+        assertEquals(0, contratService.updateContratStatusAutomatic());
+    }
+
+    private Vehicule newVehicule() {
+        return vehiculeService.createVehicule(TestData.vehicule("Lots"));
+    }
+
+    private EtatContrat etat(Contrat contrat) {
+        return contratRepository.findById(contrat.getId()).orElseThrow().getEtat();
+    }
+}
@@ -0,0 +1,154 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.RentalApplication;
+import com.bfb.rental.TestData;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Contrat;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.enums.EtatContrat;
+import com.bfb.rental.repository.ClientRepository;
+import com.bfb.rental.repository.ContratRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Deux instances de l'application sur la même base H2 fichier : les partitions de la tâche planifiée
+ * sont réparties sans recouvrement, chaque contrat échu est démarré une seule fois, et les partitions
+ * d'une instance arrêtée (proprement ou non) sont reprises par l'autre.
+ */
+class SchedulerLeaseTest {
+
+    private static final int PARTITIONS = 4;
+    private static final long LEASE_MS = 1_000;
+
+    private final String url = "jdbc:h2:file:./target/scheduler-lease/" + UUID.randomUUID() + "/rental;AUTO_SERVER=TRUE";
+    private final List<ConfigurableApplicationContext> contexts = new ArrayList<>();
+
+    @AfterEach
+    void closeContexts() {
+        contexts.forEach(ConfigurableApplicationContext::close);
+    }
+
+    @Test
+    void partitionsAreSharedAndEachContractStartsOnce() {
+        ConfigurableApplicationContext a = start();
+        ConfigurableApplicationContext b = start();
+        SchedulerLeases leasesA = a.getBean(SchedulerLeases.class);
+        SchedulerLeases leasesB = b.getBean(SchedulerLeases.class);
+
+        // A arrive seul et prend tout ; B se signale, A rend l'excédent, B le prend
+        assertEquals(PARTITIONS, leasesA.acquire().size());
+        assertTrue(leasesB.acquire().isEmpty());
+        List<Integer> heldA = leasesA.acquire();
+        List<Integer> heldB = leasesB.acquire();
+        assertEquals(PARTITIONS / 2, heldA.size());
+        assertEquals(PARTITIONS / 2, heldB.size());
+        Set<Integer> all = new HashSet<>(heldA);
+        all.addAll(heldB);
+        assertEquals(Set.of(0, 1, 2, 3), all);
+
+        List<Contrat> contrats = createDueContrats(a, 8);
+        int expectedA = 0;
+        for (Contrat c : contrats) {
+            if (heldA.contains((int) (c.getVehicule().getId() % PARTITIONS))) {
+                expectedA++;
+            }
+        }
+        int startedA = a.getBean(ContratService.class).updateContratStatusAutomatic();
+        int startedB = b.getBean(ContratService.class).updateContratStatusAutomatic();
+        assertEquals(expectedA, startedA);
+        assertEquals(contrats.size() - expectedA, startedB);
+
+        // Exécutions suivantes : plus rien à démarrer, et tous les contrats sont en cours
+        assertEquals(0, a.getBean(ContratService.class).updateContratStatusAutomatic());
+        assertEquals(0, b.getBean(ContratService.class).updateContratStatusAutomatic());
+        ContratRepository repository = b.getBean(ContratRepository.class);
+        for (Contrat c : contrats) {
+            assertEquals(EtatContrat.EN_COURS, repository.findById(c.getId()).orElseThrow().getEtat());
+        }
+    }
+
+    @Test
+    void crashedInstanceLosesItsPartitionsAfterLease() throws InterruptedException {
+        ConfigurableApplicationContext a = start();
+        ConfigurableApplicationContext b = start();
+        SchedulerLeases leasesA = a.getBean(SchedulerLeases.class);
+        SchedulerLeases leasesB = b.getBean(SchedulerLeases.class);
+        assertEquals(PARTITIONS, leasesA.acquire().size());
+        assertTrue(leasesB.acquire().isEmpty());
+
+        // A ne renouvelle plus (pause, instance figée) : ses baux expirent et B reprend tout
+        Thread.sleep(LEASE_MS + 200);
+        assertEquals(PARTITIONS, leasesB.acquire().size());
+
+        // Un lot encore en cours sur A est refusé : sa transaction est annulée
+        TransactionTemplate txA = new TransactionTemplate(a.getBean(PlatformTransactionManager.class));
+        assertThrows(IllegalStateException.class, () -> txA.executeWithoutResult(status -> leasesA.confirm(0)));
+
+        // A revient : rien à traiter tant que B tient les baux, puis le partage se refait
+        createDueContrats(a, 2);
+        assertEquals(0, a.getBean(ContratService.class).updateContratStatusAutomatic());
+        assertEquals(PARTITIONS / 2, leasesB.acquire().size());
+        assertEquals(PARTITIONS / 2, leasesA.acquire().size());
+    }
+
+    @Test
+    void closedInstanceReleasesItsPartitions() {
+        ConfigurableApplicationContext a = start();
+        ConfigurableApplicationContext b = start();
+        assertEquals(PARTITIONS, a.getBean(SchedulerLeases.class).acquire().size());
+        SchedulerLeases leasesB = b.getBean(SchedulerLeases.class);
+        assertTrue(leasesB.acquire().isEmpty());
+
+        // Arrêt propre : baux et présence rendus, B reprend tout sans attendre l'expiration
+        a.close();
+        assertEquals(PARTITIONS, leasesB.acquire().size());
+    }
+
+    // Arguments de ligne de commande : ils l'emportent sur application.properties.
+    // Exécutions automatiques espacées d'une heure : seules les exécutions du test comptent
+    private ConfigurableApplicationContext start() {
+        ConfigurableApplicationContext ctx = new SpringApplicationBuilder(RentalApplication.class)
+                .web(WebApplicationType.NONE)
+                .run("--spring.datasource.url=" + url,
+                        "--spring.jpa.hibernate.ddl-auto=update",
+                        "--rental.journal.dir=target/journal/" + UUID.randomUUID(),
+                        "--rental.scheduler.partitions=" + PARTITIONS,
+                        "--rental.scheduler.lease-ms=" + LEASE_MS,
+                        "--rental.scheduler.rate-ms=3600000",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN");
+        contexts.add(ctx);
+        return ctx;
+    }
+
+    private static List<Contrat> createDueContrats(ConfigurableApplicationContext ctx, int count) {
+        VehiculeService vehiculeService = ctx.getBean(VehiculeService.class);
+        ContratService contratService = ctx.getBean(ContratService.class);
+        Client client = ctx.getBean(ClientRepository.class).save(TestData.client("Bail"));
+
+        LocalDate today = LocalDate.now();
+        List<Contrat> contrats = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            Vehicule v = vehiculeService.createVehicule(TestData.vehicule("Bail"));
+            contrats.add(contratService.createContrat(client.getId(), v.getId(), today, today.plusDays(2)));
+        }
+        return contrats;
+    }
+}
@@ -0,0 +1,152 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.dto.JournalEntry;
+import com.bfb.rental.enums.TypeTransition;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Journal des transitions : ordre et continuité des séquences (y compris entre segments et en concurrence),
+ * reprise après redémarrage ou écriture interrompue, relecture.
+ */
+class TransitionJournalTest {
+
+    @TempDir
+    Path dir;
+
+    private final List<TransitionJournal> opened = new ArrayList<>();
+
+    @AfterEach
+    void closeAll() {
+        opened.forEach(TransitionJournal::close);
+    }
+
+    @Test
+    void replaysInOrderAcrossSegmentsAndRestarts() {
+        TransitionJournal journal = open(10, false);
+        for (long id = 1; id <= 25; id++) {
+            journal.contrat(TypeTransition.CONTRAT_CREE, id, 100 + id);
+        }
+        journal.vehicules(TypeTransition.VEHICULE_EN_PANNE, List.of(7L, 8L));
+        journal.close();
+
+        TransitionJournal reopened = open(10, false);
+        assertEquals(27, reopened.lastSequence());
+        reopened.contrat(TypeTransition.CONTRAT_ANNULE, 3L, 103L);
+
+        List<JournalEntry> entries = new ArrayList<>();
+        reopened.replay(0, entries::add);
+        assertEquals(28, entries.size());
+        for (int i = 0; i < entries.size(); i++) {
+            assertEquals(i + 1, entries.get(i).sequence());
+        }
+        assertEquals(TypeTransition.CONTRAT_CREE, entries.get(0).type());
+        assertEquals(1L, entries.get(0).contratId());
+        assertEquals(101L, entries.get(0).vehiculeId());
+        assertNull(entries.get(25).contratId());
+        assertEquals(7L, entries.get(25).vehiculeId());
+        assertEquals(TypeTransition.CONTRAT_ANNULE, entries.get(27).type());
+
+        // Lecture paginée : à partir d'une séquence au milieu d'un segment
+        List<JournalEntry> page = reopened.read(14, 3);
+        assertEquals(List.of(15L, 16L, 17L), page.stream().map(JournalEntry::sequence).toList());
+        // Relecture hors application
+        List<JournalEntry> offline = new ArrayList<>();
+        TransitionJournal.replay(dir, 20, offline::add);
+        assertEquals(8, offline.size());
+    }
+
+    @Test
+    void concurrentWritersGetContiguousSequences() throws Exception {
+        TransitionJournal journal = open(1000, false);
+        int threads = 8;
+        int perThread = 5000;
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            long vehiculeId = t + 1;
+            pool.submit(() -> {
+                for (long i = 1; i <= perThread; i++) {
+                    journal.contrat(TypeTransition.CONTRAT_DEMARRE, i, vehiculeId);
+                }
+            });
+        }
+        pool.shutdown();
+        assertTrue(pool.awaitTermination(30, TimeUnit.SECONDS));
+
+        long[] expected = {0};
+        Map<Long, Long> lastByVehicule = new HashMap<>();
+        journal.replay(0, entry -> {
+            assertEquals(++expected[0], entry.sequence());
+            // L'ordre de chaque écrivain est conservé
+            long previous = lastByVehicule.getOrDefault(entry.vehiculeId(), 0L);
+            assertEquals(previous + 1, entry.contratId());
+            lastByVehicule.put(entry.vehiculeId(), entry.contratId());
+        });
+        assertEquals((long) threads * perThread, expected[0]);
+    }
+
+    @Test
+    void recoversAfterTornRecord() throws IOException {
+        TransitionJournal journal = open(100, false);
+        for (long id = 1; id <= 5; id++) {
+            journal.contrat(TypeTransition.CONTRAT_CREE, id, 1L);
+        }
+        journal.close();
+
+        // Écriture interrompue sur le 5e enregistrement : le CRC ne correspond plus
+        try (Stream<Path> files = Files.list(dir);
+             FileChannel channel = FileChannel.open(files.filter(p -> p.toString().endsWith(".log")).findFirst().orElseThrow(),
+                     StandardOpenOption.WRITE)) {
+            channel.write(ByteBuffer.wrap(new byte[]{42}), 4L * TransitionJournal.RECORD_SIZE + 20);
+        }
+
+        TransitionJournal reopened = open(100, false);
+        assertEquals(4, reopened.lastSequence());
+        reopened.contrat(TypeTransition.CONTRAT_TERMINE, 4L, 1L);
+
+        List<JournalEntry> entries = reopened.read(0, 100);
+        assertEquals(5, entries.size());
+        assertEquals(TypeTransition.CONTRAT_TERMINE, entries.get(4).type());
+    }
+
+    @Test
+    void waitForFlushReturnsOnceFlushed() {
+        TransitionJournal journal = open(100, true);
+        journal.contrat(TypeTransition.CONTRAT_CREE, 1L, 1L);
+        assertEquals(1, journal.read(0, 10).size());
+    }
+
+    @Test
+    void directoryIsOwnedByASingleJournal() {
+        open(100, false);
+        assertThrows(IllegalStateException.class, () -> open(100, false));
+    }
+
+    private TransitionJournal open(int segmentRecords, boolean waitForFlush) {
+        TransitionJournal journal = new TransitionJournal(true, dir.toString(), segmentRecords, 1, waitForFlush);
+        journal.open();
+        opened.add(journal);
+        return journal;
+    }
+}
@@ -0,0 +1,113 @@
+package com.bfb.rental.service;
+
+import com.bfb.rental.controller.ClientController;
+import com.bfb.rental.entity.Client;
+import com.bfb.rental.entity.Vehicule;
+import com.bfb.rental.repository.VehiculeRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+
+import java.time.LocalDate;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Contrôles d'unicité : une valeur nouvelle est tranchée par le filtre sans requête, un doublon
+ * est toujours refusé, une écriture annulée ne laisse pas sa clé dans le filtre, et une écriture qui contourne les services est vue après reconstruction.
+ */
+@SpringBootTest
+class UniqueKeyFilterTest {
+
+    @Autowired
+    private UniqueKeyFilter uniqueKeyFilter;
+    @Autowired
+    private VehiculeService vehiculeService;
+    @Autowired
+    private VehiculeRepository vehiculeRepository;
+    @Autowired
+    private ClientController clientController;
+    @Autowired
+    private MeterRegistry registry;
+
+    @Test
+    void newPlateIsAnsweredByTheFilter() {
+        double filtre = count("immatriculation", "filtre");
+        double absent = count("immatriculation", "absent");
+        double present = count("immatriculation", "present");
+
+        Vehicule v = vehicule("UK-" + UUID.randomUUID());
+        vehiculeService.createVehicule(v);
+        Vehicule duplicate = vehicule(v.getImmatriculation());
+        assertThrows(IllegalArgumentException.class, () -> vehiculeService.createVehicule(duplicate));
+
+        // Le doublon passe par la base ; la valeur nouvelle aussi, mais seulement en cas de faux positif (1 %)
+        assertEquals(present + 1, count("immatriculation", "present"));
+        assertEquals(filtre + absent + 1, count("immatriculation", "filtre") + count("immatriculation", "absent"));
+    }
+
+    @Test
+    void duplicateClientIsRejected() {
+        Client client = client("UK-" + UUID.randomUUID(), "Filtre-" + UUID.randomUUID());
+        clientController.createClient(client);
+
+        Client samePermis = client(client.getNumPermis(), "Autre-" + UUID.randomUUID());
+        assertThrows(IllegalArgumentException.class, () -> clientController.createClient(samePermis));
+        Client sameIdentity = client("UK-" + UUID.randomUUID(), client.getNom());
+        assertThrows(IllegalArgumentException.class, () -> clientController.createClient(sameIdentity));
+    }
+
+    @Test
+    void failedSaveReleasesItsKey() {
+        Vehicule v = vehiculeService.createVehicule(vehicule("UK-" + UUID.randomUUID()));
+        // Le formulaire ne contrôle pas l'unicité : la contrainte de la base refuse le doublon et la transaction est annulée
+        Vehicule duplicate = vehicule(v.getImmatriculation());
+        assertThrows(DataIntegrityViolationException.class, () -> vehiculeService.saveVehicule(duplicate));
+        vehiculeService.deleteVehicule(v.getId());
+
+        // Les deux ajouts ont été retirés : l'immatriculation est de nouveau tranchée par le filtre seul
+        double filtre = count("immatriculation", "filtre");
+        assertFalse(uniqueKeyFilter.immatriculationExists(v.getImmatriculation()));
+        assertEquals(filtre + 1, count("immatriculation", "filtre"));
+    }
+
+    @Test
+    void rebuildSeesRowsWrittenAroundTheServices() {
+        Vehicule v = vehiculeRepository.save(vehicule("UK-" + UUID.randomUUID()));
+        uniqueKeyFilter.rebuild();
+
+        double present = count("immatriculation", "present");
+        assertTrue(uniqueKeyFilter.immatriculationExists(v.getImmatriculation()));
+        assertEquals(present + 1, count("immatriculation", "present"));
+    }
+
+    private double count(String cle, String resultat) {
+        Counter counter = registry.find("rental.unicite.verifications").tag("cle", cle).tag("resultat", resultat).counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private static Vehicule vehicule(String immatriculation) {
+        Vehicule v = new Vehicule();
+        v.setMarque("Filtre");
+        v.setModele("Test");
+        v.setImmatriculation(immatriculation);
+        v.setPrixJournee(40.0);
+        return v;
+    }
+
+    private static Client client(String numPermis, String nom) {
+        Client c = new Client();
+        c.setNom(nom);
+        c.setPrenom("Test");
+        c.setDateNaissance(LocalDate.of(1985, 6, 1));
+        c.setNumPermis(numPermis);
+        return c;
+    }
+}